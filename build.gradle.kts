@@ -22,8 +22,9 @@ object Versions{
 
 dependencies {
 	//api会传递给子项目 implementation不会 
-    //testImplementation(platform("org.junit:junit-bom:5.10.0"))
-    //testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation(platform("org.junit:junit-bom:5.10.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     // log
     api(group= "org.slf4j", name= "slf4j-api", version= "2.0.17");
     api(group= "org.apache.logging.log4j", name= "log4j-api", version= "${Versions.log4jVersion}")
@@ -76,6 +76,26 @@ public interface Connection {
 	 */
 	boolean isClose();
 
+	/**
+	 * 是否自动读取消息<br>
+	 * 默认总是自动读取
+	 * 
+	 * @return
+	 */
+	default boolean isAutoRead() {
+		return true;
+	}
+
+	/**
+	 * 设置是否自动读取消息<br>
+	 * 关闭后不再从socket读取 对端写满缓冲区后形成tcp背压<br>
+	 * 默认不做处理
+	 * 
+	 * @param autoRead
+	 */
+	default void setAutoRead(boolean autoRead) {
+	}
+
 	/**
 	 * 发送消息
 	 * 
@@ -1,13 +1,12 @@
 package gleam.communication.client;
 
-import java.util.Map;
-
 import gleam.communication.Connection;
 import gleam.communication.MessageDirectHandler;
 import gleam.communication.Protocol;
 import gleam.communication.define.ConnectionConstant;
 import gleam.communication.impl.AbstractConnectionListener;
 import gleam.core.define.ServiceStatus;
+import gleam.util.collection.IntObjectMap;
 
 public abstract class ClientConnectionListener<T extends Client> extends AbstractConnectionListener {
 
@@ -63,7 +62,7 @@ public abstract class ClientConnectionListener<T extends Client> extends Abstrac
 		return client;
 	}
 
-	public Map<Integer, MessageDirectHandler<?>> getDirectHandlers() {
+	public IntObjectMap<MessageDirectHandler<?>> getDirectHandlers() {
 		return directHandlers;
 	}
 
@@ -13,7 +13,6 @@ import gleam.communication.inner.auth.InnerIdentity;
 import gleam.communication.inner.protocol.ReqInnerForward;
 import gleam.communication.inner.protocol.ReqInnerHeartbeat;
 import gleam.communication.inner.protocol.ReqMultipleServerForward;
-import gleam.communication.protocol.ProtocolUtil;
 import gleam.communication.task.CommunicationTaskManager;
 import gleam.core.service.AbstractService;
 import gleam.task.TaskHandle;
@@ -157,8 +156,7 @@ public abstract class SocketClient extends AbstractService implements Client {
 		forwardMsg.setDstServerId(dstServerId);
 		forwardMsg.setForwardMsgId(message.getId());
 		forwardMsg.setForwardMsgSeq(message.getSeq());
-		byte[] forwardMsgData = ProtocolUtil.encodeMessage(forwardMsg);
-		forwardMsg.setForwardMsgData(forwardMsgData);
+		forwardMsg.setForwardMsg(message);
 		connection.sendProtocol(forwardMsg);
 	}
 
@@ -174,8 +172,7 @@ public abstract class SocketClient extends AbstractService implements Client {
 		forwardMsg.setDstServerType(dstServerType);
 		forwardMsg.getDstServerIds().addAll(dstServerIds);
 		forwardMsg.setForwardMsgId(message.getId());
-		byte[] forwardMsgData = ProtocolUtil.encodeMessage(message);
-		forwardMsg.setForwardMsgData(forwardMsgData);
+		forwardMsg.setForwardMsg(message);
 		connection.sendProtocol(forwardMsg);
 	}
 
@@ -20,6 +20,11 @@ public class ConnectionConstant {
 	 * 关闭链接原因
 	 */
 	public final static AttributeKey<Integer> CLOSE_REASON_ATTR_KEY = AttributeKey.valueOf("closeReason");
+	/**
+	 * 是否因处理实体邮箱过长暂停了读取<br>
+	 * 只恢复由邮箱背压暂停的读取
+	 */
+	public final static AttributeKey<Boolean> FLOW_CONTROL_PAUSED_ATTR_KEY = AttributeKey.valueOf("flowControlPaused");
 	/**
 	 * tick任务间隔<br>
 	 * 判断心跳过期/断线重连检查时间
@@ -34,6 +39,14 @@ public class ConnectionConstant {
 	 * 超时未注册/发送心跳的 关闭连接
 	 */
 	public final static long DEFAULT_HEARTBEAT_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+	/**
+	 * 处理实体邮箱长度超过该比例时 暂停读取该连接的消息
+	 */
+	public final static double MAILBOX_HIGH_WATERMARK = 0.75;
+	/**
+	 * 处理实体邮箱长度低于该比例时 恢复读取该连接的消息
+	 */
+	public final static double MAILBOX_LOW_WATERMARK = 0.25;
 	/**
 	 * 实名验证生日
 	 */
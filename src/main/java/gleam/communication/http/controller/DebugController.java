@@ -23,8 +23,11 @@ import gleam.communication.http.annotation.RequestMapping;
 import gleam.communication.http.dispatcher.DispatcherServlet;
 import gleam.communication.http.helper.HttpServerHelper;
 import gleam.config.ServerSettings;
+import gleam.core.HandlerMetrics;
+import gleam.core.executor.ActorTaskExecutor;
 import gleam.util.ClazzUtil;
 import gleam.util.json.JsonUtil;
+import gleam.util.pool.ObjectPool;
 import gleam.util.script.ScriptUtil;
 import gleam.util.time.DateFormatUtils;
 import io.netty.handler.codec.http.FullHttpResponse;
@@ -51,6 +54,8 @@ public class DebugController {
 		addExample("查询玩家对象(角色名)", "com.game.module.player.PlayerManager.getInstance().getPlayerByName(\"玩家角色名\");");
 		addExample("查询游戏服上下文", "com.game.context.GameContext.getInstance();");
 		addExample("查看ObjectPool", "gleam.util.pool.ObjectPool.printStatistics();");
+		addExample("开启ObjectPool泄漏采样(每1000个采样1个 0为关闭)", "gleam.util.pool.ObjectPool.setLeakSampleInterval(1000);");
+		addExample("查看actor任务队列统计", "gleam.core.executor.ActorTaskExecutor.getInstance().printStatistics();");
 		addExample("查询玩家缓存", "com.game.module.player.PlayerManager.getInstance().getPlayerCache();");
 		addExample("查询配置数据", "gleam.config.ConfigManager.getInstance().getContainers();");
 	}
@@ -81,6 +86,42 @@ public class DebugController {
 		return response;
 	}
 
+	/**
+	 * 运行统计数据<br>
+	 * 只读 不受debug模式限制 仍受ip白名单限制<br>
+	 * 清空统计会影响线上数据 只允许在debug模式下使用
+	 * 
+	 * @param reset 非空且为debug模式时打印后清空统计
+	 */
+	@RequestMapping("/statistics")
+	public FullHttpResponse statistics(@Param("reset") String reset) {
+		FullHttpResponse response = HttpServerHelper.createResponse(HttpResponseStatus.OK);
+		response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
+		boolean resetStatistics = false;
+		if (!StringUtils.isBlank(reset)) {
+			if (isDebug()) {
+				resetStatistics = true;
+			} else {
+				responseWrite(response, "reset is only allowed in debug mode.\r\n");
+			}
+		}
+		ActorTaskExecutor actorTaskExecutor = ActorTaskExecutor.getInstance();
+		responseWrite(response, "==== ActorTaskExecutor ====\r\n");
+		responseWrite(response, actorTaskExecutor.printStatistics());
+		if (resetStatistics) {
+			actorTaskExecutor.resetStatistics();
+		}
+		responseWrite(response, "==== Handler ====\r\n");
+		HandlerMetrics handlerMetrics = HandlerMetrics.getInstance();
+		responseWrite(response, handlerMetrics.printStatistics());
+		if (resetStatistics) {
+			handlerMetrics.reset();
+		}
+		responseWrite(response, "==== ObjectPool ====\r\n");
+		responseWrite(response, ObjectPool.printStatistics());
+		return response;
+	}
+
 	/**
 	 * 是否测试环境
 	 * 
@@ -1,8 +1,5 @@
 package gleam.communication.impl;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,14 +7,23 @@ import gleam.communication.Connection;
 import gleam.communication.ConnectionListener;
 import gleam.communication.MessageDirectHandler;
 import gleam.communication.Protocol;
+import gleam.communication.define.ConnectionConstant;
 import gleam.communication.task.HandleMsgTask;
 import gleam.core.Entity;
+import gleam.core.actor.Actor;
+import gleam.core.executor.ActorTaskExecutor;
+import gleam.task.token.TokenTaskQueue;
+import gleam.util.collection.IntObjectMap;
 
 public abstract class AbstractConnectionListener implements ConnectionListener {
 
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-	protected final Map<Integer, MessageDirectHandler<?>> directHandlers = new HashMap<>();
+	/**
+	 * 消息id,直接处理类<br>
+	 * 以int为key 接收消息时不装箱
+	 */
+	protected final IntObjectMap<MessageDirectHandler<?>> directHandlers = new IntObjectMap<>();
 
 	public void init() {
 	}
@@ -68,17 +74,79 @@ public abstract class AbstractConnectionListener implements ConnectionListener {
 	protected abstract Entity<?> getHandleEntity(Connection connection, Protocol protocol);
 
 	protected void entityHandleMsg(Entity<?> entity, Connection connection, Protocol protocol) {
+		if (isFlowControlEnabled() && entity instanceof Actor<?> actor) {
+			// 入队前检查 邮箱满后消息会被抛弃
+			checkMailbox(connection, ActorTaskExecutor.getInstance().getActorMailbox(actor));
+		}
 		HandleMsgTask task = HandleMsgTask.get(entity, connection, protocol);
 		entity.submitTask(task);
 	}
 
+	/**
+	 * 是否根据处理实体的邮箱长度控制连接读取<br>
+	 * 1条连接对应多个实体时(如内网连接) 应关闭 避免影响其他实体
+	 * 
+	 * @return
+	 */
+	protected boolean isFlowControlEnabled() {
+		return true;
+	}
+
+	/**
+	 * 加上将要入队的消息 邮箱长度达到高水位时 暂停读取该连接<br>
+	 * 在连接的io线程调用 邮箱排空到低水位时由actor线程恢复读取<br>
+	 * 已由其他逻辑关闭自动读取的连接不处理
+	 * 
+	 * @param connection
+	 * @param mailbox
+	 */
+	protected void checkMailbox(Connection connection, TokenTaskQueue mailbox) {
+		int capacity = mailbox.getCapacity();
+		if (mailbox.getTasks().size() + 1 < capacity * ConnectionConstant.MAILBOX_HIGH_WATERMARK) {
+			return;
+		}
+		if (isReadPaused(connection) || !connection.isAutoRead()) {
+			return;
+		}
+		connection.setAttribute(ConnectionConstant.FLOW_CONTROL_PAUSED_ATTR_KEY, Boolean.TRUE);
+		connection.setAutoRead(false);
+		logger.warn("connection[{}] mailbox[{}] reach high watermark.stop reading.", connection.toFullName(),
+				mailbox.getToken());
+		int lowWatermark = (int) (capacity * ConnectionConstant.MAILBOX_LOW_WATERMARK);
+		mailbox.addDrainListener(lowWatermark, () -> resumeRead(connection, mailbox));
+	}
+
+	/**
+	 * 邮箱排空到低水位 恢复读取<br>
+	 * 只恢复{@link #checkMailbox(Connection, TokenTaskQueue)}暂停的读取
+	 * 
+	 * @param connection
+	 * @param mailbox
+	 */
+	protected void resumeRead(Connection connection, TokenTaskQueue mailbox) {
+		if (!isReadPaused(connection)) {
+			return;
+		}
+		connection.setAttribute(ConnectionConstant.FLOW_CONTROL_PAUSED_ATTR_KEY, Boolean.FALSE);
+		if (connection.isClose()) {
+			return;
+		}
+		connection.setAutoRead(true);
+		logger.info("connection[{}] mailbox[{}] below low watermark.resume reading.", connection.toFullName(),
+				mailbox.getToken());
+	}
+
+	private boolean isReadPaused(Connection connection) {
+		return Boolean.TRUE.equals(connection.getAttribute(ConnectionConstant.FLOW_CONTROL_PAUSED_ATTR_KEY));
+	}
+
 	protected void handleMsgWithoutEntity(Connection connection, Protocol protocol) {
 		logger.warn("connection[{}] handle protocol[{}] seq[{}] error.messageHandler not exists.",
 				connection.toFullName(), protocol.getClass().getName(), protocol.getSeq());
 
 	}
 
-	public Map<Integer, MessageDirectHandler<?>> getDirectHandlers() {
+	public IntObjectMap<MessageDirectHandler<?>> getDirectHandlers() {
 		return directHandlers;
 	}
 }
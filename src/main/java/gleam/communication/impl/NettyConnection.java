@@ -18,6 +18,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 
 public class NettyConnection implements Connection {
 
@@ -95,6 +96,16 @@ public class NettyConnection implements Connection {
 		return !channel.isOpen();
 	}
 
+	@Override
+	public boolean isAutoRead() {
+		return channel.config().isAutoRead();
+	}
+
+	@Override
+	public void setAutoRead(boolean autoRead) {
+		channel.config().setAutoRead(autoRead);
+	}
+
 	@Override
 	public void sendMessage(ByteBuf message) {
 		if (!channel.isActive()) {
@@ -117,6 +128,8 @@ public class NettyConnection implements Connection {
 	public void sendProtocol(Protocol protocol) {
 		if (!channel.isActive()) {
 			logger.info("Id[{}] Identity[{}] not active.protocol[{}]", getId(), getIdentity(), protocol.getId());
+			// 引用计数的协议(转发切片)未写出 需要在此释放
+			ReferenceCountUtil.release(protocol);
 			return;
 		}
 		channel.writeAndFlush(protocol);
@@ -126,6 +139,8 @@ public class NettyConnection implements Connection {
 	public void sendProtocolAndClose(Protocol protocol, int reason) {
 		if (!channel.isActive()) {
 			logger.info("Id[{}] Identity[{}] not active.protocol[{}]", getId(), getIdentity(), protocol.getId());
+			// 引用计数的协议(转发切片)未写出 需要在此释放
+			ReferenceCountUtil.release(protocol);
 			close(reason);
 			return;
 		}
@@ -21,6 +21,14 @@ public abstract class InnerClientConnectionListener<T extends InnerClient> exten
 		rpcCallbackCache = client.getRpcAddon().getCallbackCache();
 	}
 
+	/**
+	 * 内网连接承载多个实体的消息 不按单个实体的邮箱暂停读取
+	 */
+	@Override
+	protected boolean isFlowControlEnabled() {
+		return false;
+	}
+
 	@Override
 	public void init() {
 		ResInnerAuthenticateHandler authHandler = new ResInnerAuthenticateHandler(client);
@@ -65,6 +73,7 @@ public abstract class InnerClientConnectionListener<T extends InnerClient> exten
 				response.setSeq(-seq);
 				connection.sendProtocol(response);
 			}
+			return;
 		}
 		// FIXME 线程池
 		CommunicationTaskManager.CLIENT.scheduleTask(() -> {
@@ -26,6 +26,14 @@ public abstract class InnerServerConnectionListener<T extends InnerServer> exten
 		super(server);
 	}
 
+	/**
+	 * 内网连接承载多个实体的消息 不按单个实体的邮箱暂停读取
+	 */
+	@Override
+	protected boolean isFlowControlEnabled() {
+		return false;
+	}
+
 	@Override
 	public void init() {
 		registerInnerBasicHandlers();
@@ -9,7 +9,6 @@ import gleam.communication.Protocol;
 import gleam.communication.inner.InnerCommunicationService;
 import gleam.communication.inner.InnerServer;
 import gleam.communication.inner.protocol.ReqInnerForward;
-import gleam.communication.protocol.EncodedProtocol;
 import gleam.core.service.Context;
 
 /**
@@ -67,8 +66,8 @@ public class ReqInnerForwardHandler implements MessageDirectHandler<ReqInnerForw
 			return null;
 		}
 		int forwardMsgSeq = protocol.getForwardMsgSeq();
-		byte[] forwardMsgData = protocol.getForwardMsgData();
-		EncodedProtocol forwardMsg = new EncodedProtocol(forwardMsgId, forwardMsgSeq, forwardMsgData);
+		// 直接转发收到的消息体切片
+		Protocol forwardMsg = protocol.buildEncodedForwardMsg(forwardMsgId, forwardMsgSeq);
 		dstConnection.sendProtocol(forwardMsg);
 		return null;
 	}
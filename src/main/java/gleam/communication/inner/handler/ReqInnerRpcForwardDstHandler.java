@@ -10,7 +10,6 @@ import gleam.communication.inner.InnerClient;
 import gleam.communication.inner.InnerClientConnectionListener;
 import gleam.communication.inner.protocol.ReqInnerRpcForward;
 import gleam.communication.inner.protocol.ResInnerReturnCode;
-import gleam.communication.protocol.ProtocolUtil;
 import gleam.core.service.Context;
 
 /**
@@ -48,10 +47,9 @@ public class ReqInnerRpcForwardDstHandler implements MessageDirectHandler<ReqInn
 
 		int forwardMsgId = protocol.getForwardMsgId();
 		int forwardMsgSeq = protocol.getForwardMsgSeq();
-		byte[] forwardMsgData = protocol.getForwardMsgData();
 		Protocol forwardMessage = null;
 		try {
-			forwardMessage = ProtocolUtil.decodeMessage(forwardMsgId, forwardMsgSeq, forwardMsgData);
+			forwardMessage = protocol.decodeForwardMsg(forwardMsgId, forwardMsgSeq);
 		} catch (Exception e) {
 			logger.error("src[{}_{}] forward rpcMsg[{}] to dst[{}_{}] error.forwardMsg cant decode.", srcServerType,
 					srcServerId, forwardMsgId, dstServerType, dstServerId, e);
@@ -56,6 +56,8 @@ public class ReqInnerRpcForwardRelayHandler implements MessageDirectHandler<ReqI
 			response.setSeq(-protocol.getForwardMsgSeq());
 			return response;
 		}
+		// 消息体切片在本次处理后释放 发送前额外持有1次引用 写出后释放
+		protocol.retain();
 		dstConnection.sendProtocol(protocol);
 		return null;
 	}
@@ -10,7 +10,6 @@ import gleam.communication.MessageDirectHandler;
 import gleam.communication.Protocol;
 import gleam.communication.inner.InnerServer;
 import gleam.communication.inner.protocol.ReqMultipleServerForward;
-import gleam.communication.protocol.EncodedProtocol;
 
 /**
  * 内网把消息转发给多个服务器 转发节点处理类<br>
@@ -38,11 +37,10 @@ public class ReqMultipleServerForwardHandler implements MessageDirectHandler<Req
 		int srcServerId = protocol.getSrcServerId();
 		List<Integer> dstServerIds = protocol.getDstServerIds();
 		int forwardMsgId = protocol.getForwardMsgId();
-		byte[] forwardMsgData = protocol.getForwardMsgData();
-		EncodedProtocol forwardMsg = new EncodedProtocol(forwardMsgId, forwardMsgData);
 		List<Connection> connections = server.getConnections(srcServerId, dstServerIds);
 		for (Connection c : connections) {
-			c.sendProtocol(forwardMsg);
+			// 每个链接各自持有消息体切片的引用 写出后释放
+			c.sendProtocol(protocol.buildEncodedForwardMsg(forwardMsgId, 0));
 		}
 		return null;
 	}
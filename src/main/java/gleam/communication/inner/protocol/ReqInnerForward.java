@@ -1,6 +1,6 @@
 package gleam.communication.inner.protocol;
 
-import gleam.communication.protocol.AbstractProtocol;
+import gleam.communication.protocol.AbstractForwardProtocol;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -23,7 +23,7 @@ import io.netty.buffer.ByteBuf;
  * @author hdh
  *
  */
-public class ReqInnerForward extends AbstractProtocol {
+public class ReqInnerForward extends AbstractForwardProtocol {
 
 	public final static int ID = 901111;
 
@@ -51,10 +51,6 @@ public class ReqInnerForward extends AbstractProtocol {
 	 * 转发的消息id
 	 */
 	private int forwardMsgId;
-	/**
-	 * 转发的消息体
-	 */
-	private byte[] forwardMsgData;
 
 	@Override
 	public void decode(ByteBuf buffer) throws Exception {
@@ -64,25 +60,17 @@ public class ReqInnerForward extends AbstractProtocol {
 		dstServerId = buffer.readInt();
 		forwardMsgSeq = buffer.readInt();
 		forwardMsgId = buffer.readInt();
-		int forwardMsgDataLength = buffer.readInt();
-		forwardMsgData = new byte[forwardMsgDataLength];
-		buffer.readBytes(forwardMsgData);
+		readForwardMsgSlice(buffer);
 	}
 
 	@Override
-	public void encode(ByteBuf buffer) {
+	protected void encodeHeader(ByteBuf buffer) {
 		buffer.writeInt(srcServerType);
 		buffer.writeInt(srcServerId);
 		buffer.writeInt(dstServerType);
 		buffer.writeInt(dstServerId);
 		buffer.writeInt(forwardMsgSeq);
 		buffer.writeInt(forwardMsgId);
-		if (forwardMsgData != null) {
-			buffer.writeInt(forwardMsgData.length);
-			buffer.writeBytes(forwardMsgData);
-		} else {
-			buffer.writeInt(0);
-		}
 	}
 
 	@Override
@@ -122,14 +110,6 @@ public class ReqInnerForward extends AbstractProtocol {
 		this.forwardMsgSeq = forwardMsgSeq;
 	}
 
-	public byte[] getForwardMsgData() {
-		return forwardMsgData;
-	}
-
-	public void setForwardMsgData(byte[] forwardMsgData) {
-		this.forwardMsgData = forwardMsgData;
-	}
-
 	public int getSrcServerType() {
 		return srcServerType;
 	}
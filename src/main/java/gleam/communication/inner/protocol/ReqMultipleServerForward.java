@@ -5,14 +5,14 @@ import io.netty.buffer.ByteBuf;
 import java.util.ArrayList;
 import java.util.List;
 
-import gleam.communication.protocol.AbstractProtocol;
+import gleam.communication.protocol.AbstractForwardProtocol;
 
 /**
  * 批量转发协议
  * 
  * @author lijr
  */
-public class ReqMultipleServerForward extends AbstractProtocol {
+public class ReqMultipleServerForward extends AbstractForwardProtocol {
 
 	public final static int ID = 901121;
 
@@ -36,10 +36,6 @@ public class ReqMultipleServerForward extends AbstractProtocol {
 	 * 转发的消息id
 	 */
 	private int forwardMsgId;
-	/**
-	 * 转发的消息体
-	 */
-	private byte[] forwardMsgData;
 
 	@Override
 	public void decode(ByteBuf buffer) throws Exception {
@@ -57,13 +53,11 @@ public class ReqMultipleServerForward extends AbstractProtocol {
 			}
 		}
 		forwardMsgId = buffer.readInt();
-		int forwardMsgDataLength = buffer.readInt();
-		forwardMsgData = new byte[forwardMsgDataLength];
-		buffer.readBytes(forwardMsgData);
+		readForwardMsgSlice(buffer);
 	}
 
 	@Override
-	public void encode(ByteBuf buffer) {
+	protected void encodeHeader(ByteBuf buffer) {
 		buffer.writeInt(srcServerType);
 		buffer.writeInt(srcServerId);
 		buffer.writeInt(dstServerType);
@@ -76,12 +70,6 @@ public class ReqMultipleServerForward extends AbstractProtocol {
 			}
 		}
 		buffer.writeInt(forwardMsgId);
-		if (forwardMsgData != null) {
-			buffer.writeInt(forwardMsgData.length);
-			buffer.writeBytes(forwardMsgData);
-		} else {
-			buffer.writeInt(0);
-		}
 	}
 
 	@Override
@@ -113,14 +101,6 @@ public class ReqMultipleServerForward extends AbstractProtocol {
 		this.forwardMsgId = forwardMsgId;
 	}
 
-	public byte[] getForwardMsgData() {
-		return forwardMsgData;
-	}
-
-	public void setForwardMsgData(byte[] forwardMsgData) {
-		this.forwardMsgData = forwardMsgData;
-	}
-
 	public int getSrcServerType() {
 		return srcServerType;
 	}
@@ -0,0 +1,228 @@
+package gleam.communication.protocol;
+
+import gleam.communication.Protocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * 转发协议基类<br>
+ * 转发的消息体有3种来源:本地协议编码的缓存/已编码的字节/收到的帧中的切片<br>
+ * 切片持有原始帧的引用 由netty在处理完成后释放<br>
+ * 本地协议在设置时立即编码到池化缓存 与切片一样由编码器写出后释放 未写出时需要调用{@link #release()}<br>
+ * 转发节点直接把切片写到目标链接 不解码不拷贝<br>
+ * 经{@link ZeroCopyProtocol#encodeTo(CompositeByteBuf)}写出时消息体不拷贝
+ * 
+ * @author hdh
+ *
+ */
+public abstract class AbstractForwardProtocol extends AbstractProtocol implements ZeroCopyProtocol, ReferenceCounted {
+	/**
+	 * 转发的消息体
+	 */
+	private byte[] forwardMsgData;
+	/**
+	 * 收到的帧中转发消息体的切片 或本地协议编码后的池化缓存
+	 */
+	private transient ByteBuf forwardMsgBuf;
+
+	/**
+	 * 读取转发的消息体 保留为原始帧的切片<br>
+	 * 只适用于在netty线程中同步处理的协议
+	 * 
+	 * @param buffer
+	 */
+	protected void readForwardMsgSlice(ByteBuf buffer) {
+		int forwardMsgDataLength = buffer.readInt();
+		forwardMsgBuf = buffer.readRetainedSlice(forwardMsgDataLength);
+	}
+
+	/**
+	 * 读取转发的消息体 拷贝为字节数组<br>
+	 * 用于需要交给其他线程处理的协议
+	 * 
+	 * @param buffer
+	 */
+	protected void readForwardMsgData(ByteBuf buffer) {
+		int forwardMsgDataLength = buffer.readInt();
+		forwardMsgData = new byte[forwardMsgDataLength];
+		buffer.readBytes(forwardMsgData);
+	}
+
+	@Override
+	public void encode(ByteBuf buffer) {
+		encodeHeader(buffer);
+		writeForwardMsg(buffer);
+	}
+
+	/**
+	 * 编码转发的消息体之前的字段
+	 * 
+	 * @param buffer
+	 */
+	protected abstract void encodeHeader(ByteBuf buffer);
+
+	@Override
+	public void encodeTo(CompositeByteBuf out) {
+		ByteBuf header = out.alloc().buffer();
+		boolean success = false;
+		try {
+			encodeHeader(header);
+			if (forwardMsgBuf != null) {
+				header.writeInt(forwardMsgBuf.readableBytes());
+			} else {
+				writeForwardMsg(header);
+			}
+			success = true;
+		} finally {
+			if (!success) {
+				header.release();
+			}
+		}
+		out.addComponent(true, header);
+		if (forwardMsgBuf != null) {
+			out.addComponent(true, forwardMsgBuf.retainedSlice());
+		}
+	}
+
+	/**
+	 * 写入转发的消息体 长度+内容<br>
+	 * 会拷贝消息体 只用于不支持组合缓存的编码
+	 * 
+	 * @param buffer
+	 */
+	protected void writeForwardMsg(ByteBuf buffer) {
+		if (forwardMsgBuf != null) {
+			int length = forwardMsgBuf.readableBytes();
+			buffer.writeInt(length);
+			buffer.writeBytes(forwardMsgBuf, forwardMsgBuf.readerIndex(), length);
+		} else if (forwardMsgData != null) {
+			buffer.writeInt(forwardMsgData.length);
+			buffer.writeBytes(forwardMsgData);
+		} else {
+			buffer.writeInt(0);
+		}
+	}
+
+	/**
+	 * 构建发往目标链接的已编码协议<br>
+	 * 切片额外持有1次引用 写出后释放
+	 * 
+	 * @param msgId
+	 * @param msgSeq
+	 * @return
+	 */
+	public Protocol buildEncodedForwardMsg(int msgId, int msgSeq) {
+		if (forwardMsgBuf != null) {
+			return new SlicedProtocol(msgId, msgSeq, forwardMsgBuf.retainedDuplicate());
+		}
+		return new EncodedProtocol(msgId, msgSeq, getForwardMsgData());
+	}
+
+	/**
+	 * 解析转发的消息
+	 * 
+	 * @param msgId
+	 * @param msgSeq
+	 * @return
+	 * @throws Exception
+	 */
+	public Protocol decodeForwardMsg(int msgId, int msgSeq) throws Exception {
+		if (forwardMsgBuf != null) {
+			return ProtocolUtil.decodeMessage(msgId, msgSeq, forwardMsgBuf.duplicate());
+		}
+		return ProtocolUtil.decodeMessage(msgId, msgSeq, getForwardMsgData());
+	}
+
+	public byte[] getForwardMsgData() {
+		if (forwardMsgData == null) {
+			if (forwardMsgBuf != null) {
+				forwardMsgData = ByteBufUtil.getBytes(forwardMsgBuf);
+			}
+		}
+		return forwardMsgData;
+	}
+
+	public void setForwardMsgData(byte[] forwardMsgData) {
+		this.forwardMsgData = forwardMsgData;
+	}
+
+	/**
+	 * 设置转发的消息<br>
+	 * 在调用线程立即编码到池化缓存 之后修改该消息不影响发送内容<br>
+	 * 编码出错时直接抛出 不会发送
+	 * 
+	 * @param forwardMsg
+	 */
+	public void setForwardMsg(Protocol forwardMsg) {
+		ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+		boolean success = false;
+		try {
+			forwardMsg.encode(buffer);
+			success = true;
+		} finally {
+			if (!success) {
+				buffer.release();
+			}
+		}
+		if (forwardMsgBuf != null) {
+			forwardMsgBuf.release();
+		}
+		forwardMsgBuf = buffer;
+		forwardMsgData = null;
+	}
+
+	public ByteBuf getForwardMsgBuf() {
+		return forwardMsgBuf;
+	}
+
+	@Override
+	public int refCnt() {
+		return forwardMsgBuf != null ? forwardMsgBuf.refCnt() : 1;
+	}
+
+	@Override
+	public AbstractForwardProtocol retain() {
+		if (forwardMsgBuf != null) {
+			forwardMsgBuf.retain();
+		}
+		return this;
+	}
+
+	@Override
+	public AbstractForwardProtocol retain(int increment) {
+		if (forwardMsgBuf != null) {
+			forwardMsgBuf.retain(increment);
+		}
+		return this;
+	}
+
+	@Override
+	public AbstractForwardProtocol touch() {
+		if (forwardMsgBuf != null) {
+			forwardMsgBuf.touch();
+		}
+		return this;
+	}
+
+	@Override
+	public AbstractForwardProtocol touch(Object hint) {
+		if (forwardMsgBuf != null) {
+			forwardMsgBuf.touch(hint);
+		}
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return forwardMsgBuf != null && forwardMsgBuf.release();
+	}
+
+	@Override
+	public boolean release(int decrement) {
+		return forwardMsgBuf != null && forwardMsgBuf.release(decrement);
+	}
+
+}
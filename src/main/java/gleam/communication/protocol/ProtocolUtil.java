@@ -6,6 +6,7 @@ import gleam.communication.Protocol;
 import gleam.communication.protocol.factory.ProtocolFactory;
 import gleam.util.compress.impl.GzipCompressor;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 
 public class ProtocolUtil {
@@ -26,9 +27,29 @@ public class ProtocolUtil {
 		}
 		protocol.setSeq(msgSeq);
 		if (msgData != null && msgData.length > 0) {
-			ByteBuf tmpBuffer = UnpooledByteBufAllocator.DEFAULT.heapBuffer(msgData.length);
-			tmpBuffer.writeBytes(msgData);
-			protocol.decode(tmpBuffer);
+			protocol.decode(Unpooled.wrappedBuffer(msgData));
+		}
+		return protocol;
+	}
+
+	/**
+	 * 解析协议<br>
+	 * 直接从缓存中读取 不拷贝
+	 * 
+	 * @param msgId
+	 * @param msgSeq
+	 * @param msgData
+	 * @return
+	 * @throws Exception
+	 */
+	public static Protocol decodeMessage(int msgId, int msgSeq, ByteBuf msgData) throws Exception {
+		Protocol protocol = ProtocolFactory.getProtocol(msgId);
+		if (protocol == null) {
+			return null;
+		}
+		protocol.setSeq(msgSeq);
+		if (msgData != null && msgData.isReadable()) {
+			protocol.decode(msgData);
 		}
 		return protocol;
 	}
@@ -0,0 +1,102 @@
+package gleam.communication.protocol;
+
+import java.io.IOException;
+
+import gleam.exception.UnsupportedMethodException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * 已编码的协议 内容为收到的帧中的切片<br>
+ * 只适用于发送端 每个实例只能发送1次<br>
+ * 编码器把切片直接组合到输出 不拷贝 写出后释放<br>
+ * 发送多个链接时每个链接使用各自的retainedDuplicate
+ * 
+ * @author hdh
+ *
+ */
+public class SlicedProtocol extends AbstractProtocol implements ZeroCopyProtocol, ReferenceCounted {
+
+	/**
+	 * 协议id
+	 */
+	private final int id;
+	/**
+	 * 协议已编译的内容
+	 */
+	private final ByteBuf data;
+
+	public SlicedProtocol(int id, int seq, ByteBuf data) {
+		this.id = id;
+		this.seq = seq;
+		this.data = data;
+	}
+
+	@Override
+	public void decode(ByteBuf buffer) throws IOException {
+		throw new UnsupportedMethodException();
+	}
+
+	/**
+	 * 会拷贝切片 只用于不支持组合缓存的编码
+	 */
+	@Override
+	public void encode(ByteBuf buffer) {
+		buffer.writeBytes(data, data.readerIndex(), data.readableBytes());
+	}
+
+	@Override
+	public void encodeTo(CompositeByteBuf out) {
+		out.addComponent(true, data.retainedSlice());
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	public ByteBuf getData() {
+		return data;
+	}
+
+	@Override
+	public int refCnt() {
+		return data.refCnt();
+	}
+
+	@Override
+	public SlicedProtocol retain() {
+		data.retain();
+		return this;
+	}
+
+	@Override
+	public SlicedProtocol retain(int increment) {
+		data.retain(increment);
+		return this;
+	}
+
+	@Override
+	public SlicedProtocol touch() {
+		data.touch();
+		return this;
+	}
+
+	@Override
+	public SlicedProtocol touch(Object hint) {
+		data.touch(hint);
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return data.release();
+	}
+
+	@Override
+	public boolean release(int decrement) {
+		return data.release(decrement);
+	}
+
+}
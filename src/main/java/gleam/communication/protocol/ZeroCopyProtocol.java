@@ -0,0 +1,26 @@
+package gleam.communication.protocol;
+
+import gleam.communication.Protocol;
+import gleam.communication.protocol.codec.ProtocolEncoder;
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * 可零拷贝发送的协议<br>
+ * 消息体为已编码的缓存 {@link ProtocolEncoder}把头部和消息体切片组合后写出 不拷贝消息体<br>
+ * 若同时实现了引用计数 编码器组合完成后释放该协议
+ * 
+ * @author hdh
+ *
+ */
+public interface ZeroCopyProtocol extends Protocol {
+
+	/**
+	 * 编码追加到组合缓存<br>
+	 * 定长字段写入新分配的缓存 消息体以retainedSlice加入<br>
+	 * 加入的组件由组合缓存持有 不影响该协议自身的引用
+	 * 
+	 * @param out
+	 */
+	void encodeTo(CompositeByteBuf out);
+
+}
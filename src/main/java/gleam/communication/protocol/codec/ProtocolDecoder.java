@@ -13,6 +13,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.util.Attribute;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * 协议解析类<br>
@@ -47,6 +48,8 @@ public class ProtocolDecoder extends ByteToMessageDecoder {
             protocol.decode(in);
             out.add(protocol);
         } catch (Exception e) {
+            // 解码出错时释放已持有的切片
+            ReferenceCountUtil.release(protocol);
             Channel channel = ctx.channel();
             Attribute<Connection> connectionAttr = channel.attr(Connection.ATTR_KEY);
             Connection connection = connectionAttr.get();
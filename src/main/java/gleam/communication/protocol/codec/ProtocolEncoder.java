@@ -1,14 +1,19 @@
 package gleam.communication.protocol.codec;
 
 import gleam.communication.Protocol;
+import gleam.communication.protocol.ZeroCopyProtocol;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * 协议编码器<br>
- * 把协议转为byte数组写入缓存中
+ * 把协议转为byte数组写入缓存中<br>
+ * {@link ZeroCopyProtocol}组合头部和消息体切片后写出 不拷贝消息体
  * 
  * @author hdh
  *
@@ -20,6 +25,31 @@ public class ProtocolEncoder extends MessageToByteEncoder<Protocol> {
     // PooledByteBufAllocator(
     // PlatformDependent.directBufferPreferred());
 
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof ZeroCopyProtocol protocol)) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+        CompositeByteBuf out = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+        boolean success = false;
+        try {
+            ByteBuf header = ctx.alloc().buffer(8);
+            header.writeInt(protocol.getSeq());
+            header.writeInt(protocol.getId());
+            out.addComponent(true, header);
+            protocol.encodeTo(out);
+            success = true;
+        } finally {
+            // 组合缓存已持有消息体的引用
+            ReferenceCountUtil.release(protocol);
+            if (!success) {
+                out.release();
+            }
+        }
+        ctx.write(out, promise);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, Protocol protocol, ByteBuf out) throws Exception {
 //        BufferWrapper outBuffer = new DefaultBufferWrapper(out);
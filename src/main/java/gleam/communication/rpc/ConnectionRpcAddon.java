@@ -9,7 +9,6 @@ import gleam.communication.Connection;
 import gleam.communication.Protocol;
 import gleam.communication.authenticate.IdentityType;
 import gleam.communication.inner.protocol.ReqInnerRpcForward;
-import gleam.communication.protocol.ProtocolUtil;
 import gleam.communication.rpc.impl.RpcCallbackHandler;
 import gleam.communication.rpc.impl.RpcFutureResult;
 import gleam.core.define.BasicErrorCode;
@@ -179,8 +178,7 @@ public class ConnectionRpcAddon {
 		protocol.setDstServerId(dstServerId);
 		protocol.setForwardMsgSeq(seq);
 		protocol.setForwardMsgId(forwardMsg.getId());
-		byte[] forwardMsgData = ProtocolUtil.encodeMessage(forwardMsg);
-		protocol.setForwardMsgData(forwardMsgData);
+		protocol.setForwardMsg(forwardMsg);
 		return protocol;
 	}
 
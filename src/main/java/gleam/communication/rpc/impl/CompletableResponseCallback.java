@@ -0,0 +1,45 @@
+package gleam.communication.rpc.impl;
+
+import java.util.concurrent.CompletableFuture;
+
+import gleam.communication.Protocol;
+import gleam.communication.rpc.ResponseCallback;
+import gleam.exception.ErrorCodeException;
+
+/**
+ * 将rpc回调转换为{@link CompletableFuture}<br>
+ * 返回错误码(&gt;0)时以{@link ErrorCodeException}异常完成<br>
+ * future在收到返回的线程完成 需要回到actor线程时使用{@link gleam.core.actor.AbstractActor#resume}
+ * 
+ * @author hdh
+ *
+ * @param <T>
+ */
+public class CompletableResponseCallback<T extends Protocol> implements ResponseCallback<T> {
+
+	private final CompletableFuture<T> future = new CompletableFuture<>();
+
+	@Override
+	public void receiveResponse(T response) {
+		future.complete(response);
+	}
+
+	@Override
+	public void receiveReturnCode(int returnCode) {
+		if (returnCode > 0) {
+			future.completeExceptionally(new ErrorCodeException(returnCode));
+		} else {
+			future.complete(null);
+		}
+	}
+
+	@Override
+	public void handleException(Exception ex) {
+		future.completeExceptionally(ex);
+	}
+
+	public CompletableFuture<T> getFuture() {
+		return future;
+	}
+
+}
@@ -4,6 +4,7 @@ import java.util.concurrent.Executor;
 
 import gleam.communication.Protocol;
 import gleam.communication.rpc.ResponseCallback;
+import gleam.task.TaskPriority;
 import gleam.task.token.TokenTaskQueueExecutor;
 
 public class RpcCallbackHandler<T extends Protocol> extends AbstractRpcCallback<T> {
@@ -33,7 +34,8 @@ public class RpcCallbackHandler<T extends Protocol> extends AbstractRpcCallback<
 		this.seq = seq;
 		this.expiredTime = expiredTime;
 		this.callback = callback;
-		this.executor = queueExecutor.getTokenExecutor(token);
+		// rpc返回优先处理 避免排在大量客户端消息之后导致超时
+		this.executor = queueExecutor.getTokenExecutor(token, TaskPriority.SYSTEM);
 	}
 
 	@Override
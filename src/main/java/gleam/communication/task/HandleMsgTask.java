@@ -48,6 +48,11 @@ public class HandleMsgTask implements Task, Recoverable {
 		protocol = null;
 	}
 
+	@Override
+	public void discard() {
+		POOL.recycle(this);
+	}
+
 	@Override
 	public String toDesc() {
 		StringBuffer sb = new StringBuffer();
@@ -1,12 +1,14 @@
 package gleam.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,9 +17,21 @@ import gleam.communication.MessageHandler;
 import gleam.communication.Protocol;
 import gleam.core.event.GameEvent;
 import gleam.core.event.GameEventListener;
+import gleam.core.event.GameEventTypes;
+import gleam.util.collection.IntObjectMap;
 
 public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 
+	/**
+	 * 按类查找组件时 未找到的缓存标记
+	 */
+	private final static Object NO_COMPONENT = new Object();
+	/**
+	 * 监听器执行顺序 优先级高的在前
+	 */
+	private final static Comparator<ListenerRegistration> LISTENER_ORDER = (r1, r2) -> Integer.compare(r2.priority,
+			r1.priority);
+
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 	/**
 	 * 标签,组件<br>
@@ -25,14 +39,26 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 	 */
 	protected final Map<String, C> components = new HashMap<>();
 	/**
-	 * 消息id,处理类
+	 * 组件类型槽位,按类查找的组件 {@link ComponentTypes}<br>
+	 * 首次按类查找时解析并缓存 未找到时缓存为{@link #NO_COMPONENT}<br>
+	 * 注册/移除组件时清空
+	 */
+	private volatile Object[] componentSlots = new Object[0];
+	/**
+	 * 消息id,处理类<br>
+	 * 以int为key 处理消息时不装箱
 	 */
-	protected final Map<Integer, MessageHandler<?, ?>> messageHandlers = new HashMap<>();
+	protected final IntObjectMap<MessageHandler<?, ?>> messageHandlers = new IntObjectMap<>();
 	/**
-	 * 事件id,监听器<br>
-	 * 默认实现并不保证监听类处理顺序
+	 * 事件类型索引,编译好的监听链 {@link GameEventTypes}<br>
+	 * 按优先级从高到低排好序 注册变化时整体替换 派发时只读 不加锁
 	 */
-	protected final ConcurrentMap<String, List<GameEventListener>> listeners = new ConcurrentHashMap<>();
+	protected volatile GameEventListener[][] listeners = new GameEventListener[0][];
+	/**
+	 * 事件类型索引,监听器注册信息<br>
+	 * 只在注册/移除时加锁访问
+	 */
+	private final Map<Integer, List<ListenerRegistration>> registrations = new HashMap<>();
 
 	@Override
 	public void destroy() {
@@ -48,25 +74,67 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 
 	/**
 	 * 根据类获取指定的服务<br>
+	 * 可按接口或父类查找 首次查找后缓存在该类的槽位中<br>
 	 * 若有多个同类对象 返回的结果可能不确定
 	 * 
 	 * @param <T>
 	 * @param clazz
 	 * @return
 	 */
+	@SuppressWarnings("unchecked")
 	public <T extends C> T getComponent(Class<T> clazz) {
-		String defaultTag = clazz.getSimpleName();
-		Component component = components.get(defaultTag);
-		if (component != null) {
-			return clazz.cast(component);
+		int slot = ComponentTypes.slotOf(clazz);
+		Object[] slots = componentSlots;
+		if (slot < slots.length) {
+			Object component = slots[slot];
+			if (component == NO_COMPONENT) {
+				return null;
+			}
+			if (component != null) {
+				return (T) component;
+			}
 		}
-		for (C tmp : components.values()) {
-			Class<?> tmpClazz = tmp.getClass();
-			if (tmpClazz.equals(clazz)) {
-				return clazz.cast(tmp);
+		return (T) resolveComponent(slot, clazz);
+	}
+
+	/**
+	 * 按类解析组件 并缓存到槽位<br>
+	 * 依次按默认标签 类相同 类兼容查找
+	 * 
+	 * @param slot
+	 * @param clazz
+	 * @return
+	 */
+	private synchronized C resolveComponent(int slot, Class<?> clazz) {
+		C component = components.get(clazz.getSimpleName());
+		if (component == null || !clazz.isInstance(component)) {
+			component = null;
+			for (C tmp : components.values()) {
+				if (tmp.getClass().equals(clazz)) {
+					component = tmp;
+					break;
+				}
+				if (component == null && clazz.isInstance(tmp)) {
+					component = tmp;
+				}
 			}
 		}
-		return null;
+		Object[] slots = componentSlots;
+		if (slot >= slots.length) {
+			slots = Arrays.copyOf(slots, Math.max(slot + 1, ComponentTypes.size()));
+		} else {
+			slots = slots.clone();
+		}
+		slots[slot] = component != null ? component : NO_COMPONENT;
+		componentSlots = slots;
+		return component;
+	}
+
+	/**
+	 * 清空按类查找的缓存
+	 */
+	private synchronized void clearComponentSlots() {
+		componentSlots = new Object[0];
 	}
 
 	@SuppressWarnings("unchecked")
@@ -79,6 +147,11 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 		return (T) component;
 	}
 
+	/**
+	 * 只读 直接修改不会清空按类查找的缓存
+	 * 
+	 * @return
+	 */
 	public Map<String, C> getComponents() {
 		return components;
 	}
@@ -88,23 +161,28 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 		if (gameEvent == null) {
 			throw new NullPointerException("handleEvent error.event is null.");
 		}
-		String eventId = gameEvent.getId();
-		List<GameEventListener> list = listeners.get(eventId);
-		if (list == null || list.isEmpty()) {
+		GameEventListener[][] table = listeners;
+		int index = gameEvent.getIndex();
+		if (index >= table.length) {
 			return;
 		}
-		long beginTime = System.currentTimeMillis();
-		for (GameEventListener listener : list) {
+		GameEventListener[] array = table[index];
+		if (array == null) {
+			return;
+		}
+		long beginTime = System.nanoTime();
+		for (GameEventListener listener : array) {
 			try {
 				listener.handleGameEvent(gameEvent);
 			} catch (Exception e) {
-				logger.error("[{}] handle event[{}] error.", listener.getClass().getName(), eventId, e);
+				logger.error("[{}] handle event[{}] error.", listener.getClass().getName(), gameEvent.getId(), e);
 			}
 		}
-		long costTime = System.currentTimeMillis() - beginTime;
-		if (costTime > 100) {
-			logger.warn("{}[{}] handle event[{}],costTime={}ms", getClass().getSimpleName(), getId(), eventId,
-					costTime);
+		long costTime = System.nanoTime() - beginTime;
+		HandlerMetrics.getInstance().recordEvent(index, gameEvent.getId(), costTime);
+		if (costTime > HandlerMetrics.SLOW_HANDLE_NANOS) {
+			logger.warn("{}[{}] handle event[{}],costTime={}ms", getClass().getSimpleName(), getId(),
+					gameEvent.getId(), TimeUnit.NANOSECONDS.toMillis(costTime));
 		}
 	}
 
@@ -121,12 +199,13 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 			logger.warn("receive message[{}],but handler is null.", msgId);
 			return null;
 		}
-		long beginTime = System.currentTimeMillis();
+		long beginTime = System.nanoTime();
 		Protocol response = handler.handleMessage(message);
-		long costTime = System.currentTimeMillis() - beginTime;
-		if (costTime > 100) {
+		long costTime = System.nanoTime() - beginTime;
+		HandlerMetrics.getInstance().recordMessage(msgId, costTime);
+		if (costTime > HandlerMetrics.SLOW_HANDLE_NANOS) {
 			logger.warn("{}[{}] handle message[{}],costTime={}ms", getClass().getSimpleName(), getId(), msgId,
-					costTime);
+					TimeUnit.NANOSECONDS.toMillis(costTime));
 		}
 		return response;
 	}
@@ -150,6 +229,7 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 			throw new IllegalArgumentException("register component error.tag[" + tag + "] is repeated.");
 		}
 		components.put(tag, component);
+		clearComponentSlots();
 		if (component instanceof ConcreteComponent cc) {
 			cc.setOwner(this);
 		}
@@ -157,27 +237,121 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 
 	@Override
 	public void registerEventListener(String eventId, GameEventListener listener) {
+		registerEventListener(eventId, listener, GameEventListener.EVENT_PRIORITY_NORMAL);
+	}
+
+	@Override
+	public void registerEventListener(Class<? extends GameEvent> eventClass, GameEventListener listener) {
+		registerEventListener(eventClass, listener, GameEventListener.EVENT_PRIORITY_NORMAL);
+	}
+
+	@Override
+	public void registerEventListener(String eventId, GameEventListener listener, int priority) {
 		if (eventId == null) {
 			throw new NullPointerException("registerListener error.eventId is null.");
 		}
 		if (listener == null) {
 			throw new NullPointerException("registerListener error.listener is null.");
 		}
-		List<GameEventListener> list = listeners.get(eventId);
+		if (addEventListener(GameEventTypes.indexOf(eventId), listener, priority)) {
+			logger.debug("registerListener eventId[{}] listener[{}] priority[{}] success.", eventId,
+					listener.getClass().getName(), priority);
+		} else {
+			logger.warn("registerListener error.eventId[{}] listener[{}] registerd.", eventId,
+					listener.getClass().getName());
+		}
+	}
+
+	@Override
+	public void registerEventListener(Class<? extends GameEvent> eventClass, GameEventListener listener,
+			int priority) {
+		if (eventClass == null) {
+			throw new NullPointerException("registerListener error.eventClass is null.");
+		}
+		if (listener == null) {
+			throw new NullPointerException("registerListener error.listener is null.");
+		}
+		if (addEventListener(GameEventTypes.indexOf(eventClass), listener, priority)) {
+			logger.debug("registerListener event[{}] listener[{}] priority[{}] success.", eventClass.getName(),
+					listener.getClass().getName(), priority);
+		} else {
+			logger.warn("registerListener error.event[{}] listener[{}] registerd.", eventClass.getName(),
+					listener.getClass().getName());
+		}
+	}
+
+	/**
+	 * 添加监听器 并重新编译该事件的监听链
+	 * 
+	 * @param index
+	 * @param listener
+	 * @param priority
+	 * @return 已注册时返回false
+	 */
+	private synchronized boolean addEventListener(int index, GameEventListener listener, int priority) {
+		List<ListenerRegistration> list = registrations.get(index);
 		if (list == null) {
-			list = new CopyOnWriteArrayList<>();
-			List<GameEventListener> oldList = listeners.putIfAbsent(eventId, list);
-			if (oldList != null) {
-				list = oldList;
+			list = new ArrayList<>();
+			registrations.put(index, list);
+		}
+		for (ListenerRegistration registration : list) {
+			if (registration.listener.equals(listener)) {
+				return false;
 			}
 		}
-		if (list.contains(listener)) {
-			logger.warn("registerListener error.eventId[{}] listener[{}] registerd.", eventId,
-					listener.getClass().getName());
-			return;
+		list.add(new ListenerRegistration(listener, priority));
+		// 稳定排序 同优先级保持注册顺序
+		list.sort(LISTENER_ORDER);
+		compileEventListeners(index, list);
+		return true;
+	}
+
+	/**
+	 * 移除监听器 并重新编译该事件的监听链
+	 * 
+	 * @param index
+	 * @param listener
+	 * @return 未注册时返回false
+	 */
+	private synchronized boolean deleteEventListener(int index, GameEventListener listener) {
+		List<ListenerRegistration> list = registrations.get(index);
+		if (list == null) {
+			return false;
 		}
-		list.add(listener);
-		logger.debug("registerListener eventId[{}] listener[{}] success.", eventId, listener.getClass().getName());
+		boolean remove = list.removeIf(registration -> registration.listener.equals(listener));
+		if (!remove) {
+			return false;
+		}
+		if (list.isEmpty()) {
+			registrations.remove(index);
+		}
+		compileEventListeners(index, list);
+		return true;
+	}
+
+	/**
+	 * 将排好序的注册信息编译为监听器数组 复制后整体替换监听表<br>
+	 * 派发中的线程继续使用旧表
+	 * 
+	 * @param index
+	 * @param list
+	 */
+	private void compileEventListeners(int index, List<ListenerRegistration> list) {
+		GameEventListener[][] table = listeners;
+		if (index >= table.length) {
+			table = Arrays.copyOf(table, Math.max(index + 1, GameEventTypes.size()));
+		} else {
+			table = table.clone();
+		}
+		GameEventListener[] array = null;
+		if (!list.isEmpty()) {
+			array = new GameEventListener[list.size()];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = list.get(i).listener;
+			}
+		}
+		table[index] = array;
+		listeners = table;
 	}
 
 	@Override
@@ -189,10 +363,30 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 		}
 	}
 
+	/**
+	 * 批量注册 处理表只重建1次
+	 */
+	@Override
+	public void registerMessageHandlers(int[] msgIds, MessageHandler<?, ?> handler) {
+		Map<Integer, MessageHandler<?, ?>> handlers = new LinkedHashMap<>();
+		for (int msgId : msgIds) {
+			MessageHandler<?, ?> otherHandler = messageHandlers.get(msgId);
+			if (otherHandler == null) {
+				otherHandler = handlers.putIfAbsent(msgId, handler);
+			}
+			if (otherHandler != null) {
+				logger.warn("msgId[{}] register handler repeated.handler1[{}],handler2[{}]", msgId,
+						otherHandler.getClass().getName(), handler.getClass().getName());
+			}
+		}
+		messageHandlers.putAll(handlers);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public void removeComponent(String tag) {
 		C component = components.remove(tag);
+		clearComponentSlots();
 		if (component != null) {
 			if (component instanceof ConcreteComponent cc) {
 				cc.setOwner(null);
@@ -208,16 +402,25 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 		if (listener == null) {
 			throw new NullPointerException("removeListener error.listener is null.");
 		}
-		List<GameEventListener> list = listeners.get(eventId);
-		if (list == null) {
-			return;
-		}
-		boolean remove = list.remove(listener);
-		if (remove) {
+		if (deleteEventListener(GameEventTypes.indexOf(eventId), listener)) {
 			logger.debug("removeListener eventId[{}] listener[{}] success.", eventId, listener.getClass().getName());
 		}
 	}
 
+	@Override
+	public void removeEventListener(Class<? extends GameEvent> eventClass, GameEventListener listener) {
+		if (eventClass == null) {
+			throw new NullPointerException("removeListener error.eventClass is null.");
+		}
+		if (listener == null) {
+			throw new NullPointerException("removeListener error.listener is null.");
+		}
+		if (deleteEventListener(GameEventTypes.indexOf(eventClass), listener)) {
+			logger.debug("removeListener event[{}] listener[{}] success.", eventClass.getName(),
+					listener.getClass().getName());
+		}
+	}
+
 	@Override
 	public void removeMessageHandler(int msgId, MessageHandler<?, ?> handler) {
 		messageHandlers.remove(msgId);
@@ -247,4 +450,19 @@ public abstract class AbstractEntity<C extends Component> implements Entity<C> {
 		}
 	}
 
+	/**
+	 * 监听器注册信息
+	 */
+	private static class ListenerRegistration {
+
+		private final GameEventListener listener;
+
+		private final int priority;
+
+		private ListenerRegistration(GameEventListener listener, int priority) {
+			this.listener = listener;
+			this.priority = priority;
+		}
+	}
+
 }
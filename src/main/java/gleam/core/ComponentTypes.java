@@ -0,0 +1,47 @@
+package gleam.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 组件类型槽位<br>
+ * 为每个按类查找的组件类型(包括接口和父类)分配连续的整数槽位<br>
+ * 实体以槽位为下标缓存查找结果 {@link AbstractEntity#getComponent(Class)}
+ *
+ * @author hdh
+ *
+ */
+public final class ComponentTypes {
+
+	private final static AtomicInteger NEXT_SLOT = new AtomicInteger();
+
+	private final static ClassValue<Integer> SLOTS = new ClassValue<Integer>() {
+		@Override
+		protected Integer computeValue(Class<?> type) {
+			return NEXT_SLOT.getAndIncrement();
+		}
+	};
+
+	private ComponentTypes() {
+	}
+
+	/**
+	 * 获取组件类型的槽位<br>
+	 * 首次获取时分配
+	 *
+	 * @param clazz
+	 * @return
+	 */
+	public static int slotOf(Class<?> clazz) {
+		return SLOTS.get(clazz);
+	}
+
+	/**
+	 * 已分配的槽位个数
+	 *
+	 * @return
+	 */
+	public static int size() {
+		return NEXT_SLOT.get();
+	}
+
+}
@@ -3,6 +3,9 @@ package gleam.core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gleam.core.event.GameEvent;
+import gleam.core.event.GameEventListener;
+
 /**
  * 抽象组件<br>
  * 
@@ -37,6 +40,25 @@ public abstract class ConcreteComponent<T extends Entity<?>> implements Componen
 		owner.registerEventListener(eventId, this);
 	}
 
+	/**
+	 * 按事件类注册事件监听到拥有者实体上
+	 * 
+	 * @param eventClass
+	 */
+	protected void registerEventListener(Class<? extends GameEvent> eventClass) {
+		owner.registerEventListener(eventClass, this);
+	}
+
+	/**
+	 * 按优先级注册事件监听到拥有者实体上
+	 * 
+	 * @param eventClass
+	 * @param priority   {@link GameEventListener#EVENT_PRIORITY_NORMAL}
+	 */
+	protected void registerEventListener(Class<? extends GameEvent> eventClass, int priority) {
+		owner.registerEventListener(eventClass, this, priority);
+	}
+
 	/**
 	 * 注册消息处理到拥有者实体上
 	 * 
@@ -46,6 +68,15 @@ public abstract class ConcreteComponent<T extends Entity<?>> implements Componen
 		owner.registerMessageHandler(msgId, this);
 	}
 
+	/**
+	 * 批量注册消息处理到拥有者实体上
+	 * 
+	 * @param msgIds
+	 */
+	protected void registerMessageHandlers(int... msgIds) {
+		owner.registerMessageHandlers(msgIds, this);
+	}
+
 	/**
 	 * 移除事件监听
 	 * 
@@ -55,6 +86,15 @@ public abstract class ConcreteComponent<T extends Entity<?>> implements Componen
 		owner.removeEventListener(eventId, this);
 	}
 
+	/**
+	 * 按事件类移除事件监听
+	 * 
+	 * @param eventClass
+	 */
+	protected void removeEventListener(Class<? extends GameEvent> eventClass) {
+		owner.removeEventListener(eventClass, this);
+	}
+
 	/**
 	 * 移除消息处理
 	 * 
@@ -76,6 +76,34 @@ public interface Entity<C extends Component> extends Component {
 	 */
 	void registerEventListener(String eventId, GameEventListener listener);
 
+	/**
+	 * 按事件类注册事件监听
+	 * 
+	 * @param eventClass
+	 * @param listener
+	 */
+	void registerEventListener(Class<? extends GameEvent> eventClass, GameEventListener listener);
+
+	/**
+	 * 按优先级注册事件监听<br>
+	 * 优先级高的先执行 相同时按注册顺序执行
+	 * 
+	 * @param eventId
+	 * @param listener
+	 * @param priority {@link GameEventListener#EVENT_PRIORITY_NORMAL}
+	 */
+	void registerEventListener(String eventId, GameEventListener listener, int priority);
+
+	/**
+	 * 按事件类和优先级注册事件监听<br>
+	 * 优先级高的先执行 相同时按注册顺序执行
+	 * 
+	 * @param eventClass
+	 * @param listener
+	 * @param priority {@link GameEventListener#EVENT_PRIORITY_NORMAL}
+	 */
+	void registerEventListener(Class<? extends GameEvent> eventClass, GameEventListener listener, int priority);
+
 	/**
 	 * 注册协议处理
 	 * 
@@ -84,6 +112,19 @@ public interface Entity<C extends Component> extends Component {
 	 */
 	void registerMessageHandler(int protocolId, MessageHandler<?, ?> handler);
 
+	/**
+	 * 批量注册协议处理<br>
+	 * 同1个处理类处理多个协议时使用
+	 * 
+	 * @param protocolIds
+	 * @param handler
+	 */
+	default void registerMessageHandlers(int[] protocolIds, MessageHandler<?, ?> handler) {
+		for (int protocolId : protocolIds) {
+			registerMessageHandler(protocolId, handler);
+		}
+	}
+
 	/**
 	 * 移除组件
 	 * 
@@ -99,6 +140,14 @@ public interface Entity<C extends Component> extends Component {
 	 */
 	void removeEventListener(String eventId, GameEventListener listener);
 
+	/**
+	 * 按事件类移除事件监听
+	 * 
+	 * @param eventClass
+	 * @param listener
+	 */
+	void removeEventListener(Class<? extends GameEvent> eventClass, GameEventListener listener);
+
 	/**
 	 * 移除协议处理
 	 * 
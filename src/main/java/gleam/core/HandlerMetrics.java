@@ -0,0 +1,142 @@
+package gleam.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import gleam.util.collection.ConcurrentLongObjectMap;
+import gleam.util.metric.Histogram;
+
+/**
+ * 实体处理耗时统计<br>
+ * 按消息id和事件类型分别记录处理耗时(纳秒)的分布<br>
+ * 所有实体共用 用于定位占用处理时间最多的协议和事件
+ * 
+ * @author hdh
+ *
+ */
+public class HandlerMetrics {
+
+	private final static HandlerMetrics INSTANCE = new HandlerMetrics();
+	/**
+	 * 处理耗时超过该值时打印警告
+	 */
+	public final static long SLOW_HANDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private volatile boolean enabled = true;
+	/**
+	 * 消息id,统计
+	 */
+	private final ConcurrentLongObjectMap<HandlerStat> messageStats = new ConcurrentLongObjectMap<>();
+	/**
+	 * 事件类型索引,统计
+	 */
+	private final ConcurrentLongObjectMap<HandlerStat> eventStats = new ConcurrentLongObjectMap<>();
+
+	public static HandlerMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * 记录消息处理耗时
+	 * 
+	 * @param msgId
+	 * @param nanos
+	 */
+	public void recordMessage(int msgId, long nanos) {
+		if (!enabled) {
+			return;
+		}
+		HandlerStat stat = messageStats.get(msgId);
+		if (stat == null) {
+			stat = messageStats.computeIfAbsent(msgId, k -> new HandlerStat("message[" + k + "]"));
+		}
+		stat.histogram.record(nanos);
+	}
+
+	/**
+	 * 记录事件处理耗时
+	 * 
+	 * @param eventIndex
+	 * @param eventId
+	 * @param nanos
+	 */
+	public void recordEvent(int eventIndex, String eventId, long nanos) {
+		if (!enabled) {
+			return;
+		}
+		HandlerStat stat = eventStats.get(eventIndex);
+		if (stat == null) {
+			stat = eventStats.computeIfAbsent(eventIndex, k -> new HandlerStat("event[" + eventId + "]"));
+		}
+		stat.histogram.record(nanos);
+	}
+
+	public void reset() {
+		for (HandlerStat stat : messageStats.values()) {
+			stat.histogram.reset();
+		}
+		for (HandlerStat stat : eventStats.values()) {
+			stat.histogram.reset();
+		}
+	}
+
+	/**
+	 * 打印统计数据<br>
+	 * 按总耗时倒序
+	 * 
+	 * @return
+	 */
+	public String printStatistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("==== message ====\r\n");
+		printStats(sb, messageStats.values());
+		sb.append("==== event ====\r\n");
+		printStats(sb, eventStats.values());
+		return sb.toString();
+	}
+
+	private void printStats(StringBuilder sb, List<HandlerStat> stats) {
+		List<HandlerStat> list = new ArrayList<>(stats);
+		Collections.sort(list, Comparator.comparingLong((HandlerStat s) -> s.histogram.getSum()).reversed());
+		for (HandlerStat stat : list) {
+			if (stat.histogram.getCount() <= 0) {
+				continue;
+			}
+			sb.append(stat.name).append(" total=").append(TimeUnit.NANOSECONDS.toMillis(stat.histogram.getSum()))
+					.append("ms ").append(stat.histogram.printNanos()).append("\r\n");
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Histogram getMessageHistogram(int msgId) {
+		HandlerStat stat = messageStats.get(msgId);
+		return stat != null ? stat.histogram : null;
+	}
+
+	public Histogram getEventHistogram(int eventIndex) {
+		HandlerStat stat = eventStats.get(eventIndex);
+		return stat != null ? stat.histogram : null;
+	}
+
+	private static class HandlerStat {
+
+		private final String name;
+
+		private final Histogram histogram = new Histogram();
+
+		private HandlerStat(String name) {
+			this.name = name;
+		}
+	}
+
+}
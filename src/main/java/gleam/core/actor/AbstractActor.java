@@ -1,30 +1,106 @@
 package gleam.core.actor;
 
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
+import gleam.communication.Protocol;
 import gleam.core.AbstractEntity;
 import gleam.core.Component;
 import gleam.core.event.GameEvent;
 import gleam.core.executor.ActorTaskExecutor;
-import gleam.core.executor.task.EntityHandleEventTask;
+import gleam.core.executor.task.ActorTimerTask;
+import gleam.core.ref.EntityRef;
 import gleam.task.Task;
+import gleam.task.TaskHandle;
 
 public abstract class AbstractActor<C extends Component> extends AbstractEntity<C> implements Actor<C> {
+	/**
+	 * 未完成的定时任务<br>
+	 * 销毁时全部取消
+	 */
+	protected final Set<ActorTimerTask> timers = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public void start() {
+		ActorTaskExecutor.getInstance().registerActor(this);
+		super.start();
+	}
+
+	@Override
+	public void destroy() {
+		cancelTimers();
+		super.destroy();
+		ActorTaskExecutor.getInstance().removeActor(this);
+	}
+
+	/**
+	 * 在actor线程中销毁<br>
+	 * 作为系统任务提交 不排在邮箱中的普通消息之后
+	 */
+	public void submitDestroy() {
+		submitSystemTask(this::destroy);
+	}
+
+	@Override
+	public TaskHandle schedule(long delay, Task task) {
+		return ActorTaskExecutor.getInstance().schedule(this, task, delay, timers);
+	}
+
+	@Override
+	public TaskHandle scheduleAtFixedRate(long delay, long period, Task task) {
+		return ActorTaskExecutor.getInstance().scheduleAtFixedRate(this, task, delay, period, timers);
+	}
+
+	/**
+	 * 异步询问实体<br>
+	 * 等待期间不占用线程 返回后的回调在该actor线程执行
+	 * 
+	 * @param <R>
+	 * @param ref
+	 * @param request
+	 * @param timeout
+	 * @return
+	 */
+	public <R extends Protocol> ActorFuture<R> ask(EntityRef ref, Protocol request, long timeout) {
+		return resume(ref.<R>askAsync(request, timeout));
+	}
+
+	/**
+	 * 在其他线程完成的异步操作(如存储加载) 回到该actor线程继续处理
+	 * 
+	 * @param <T>
+	 * @param stage
+	 * @return
+	 */
+	public <T> ActorFuture<T> resume(CompletionStage<T> stage) {
+		return ActorTaskExecutor.getInstance().resumeOn(this, stage);
+	}
+
+	/**
+	 * 取消所有定时任务
+	 */
+	public void cancelTimers() {
+		for (ActorTimerTask timer : timers) {
+			timer.cancel();
+		}
+		timers.clear();
+	}
 
 	@Override
 	public <V> Future<V> submitCallback(long token, Callable<V> callable) {
-		return ActorTaskExecutor.getInstance().submit(getId(), callable);
+		return ActorTaskExecutor.getInstance().handleCallback(this, callable);
 	}
 
 	@Override
 	public void submitTask(Task task) {
-		ActorTaskExecutor.getInstance().submit(getId(), task);
+		ActorTaskExecutor.getInstance().handleTask(this, task);
 	}
 
 	@Override
 	public void submitHandleEvent(GameEvent event) {
-		EntityHandleEventTask task = EntityHandleEventTask.get(this, event);
-		ActorTaskExecutor.getInstance().submit(getId(), task);
+		ActorTaskExecutor.getInstance().handleGameEvent(this, event);
 	}
 }
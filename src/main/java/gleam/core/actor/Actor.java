@@ -2,6 +2,9 @@ package gleam.core.actor;
 
 import gleam.core.Component;
 import gleam.core.Entity;
+import gleam.core.executor.ActorTaskExecutor;
+import gleam.task.Task;
+import gleam.task.TaskHandle;
 import gleam.task.token.TokenTaskQueue;
 
 /**
@@ -16,4 +19,63 @@ import gleam.task.token.TokenTaskQueue;
  */
 public interface Actor<T extends Component> extends Entity<T> {
 
+	/**
+	 * 该actor消息队列的容量<br>
+	 * 超出容量的任务会被抛弃<br>
+	 * 繁忙的actor类型(如联盟 跨服房间)可重写该方法 使用更大的队列<br>
+	 * 只在队列创建时生效
+	 * 
+	 * @return
+	 */
+	default int getMailboxCapacity() {
+		return ActorTaskExecutor.getInstance().getQueueCapacity();
+	}
+
+	/**
+	 * 提交系统任务(关闭 存储 断线等)<br>
+	 * 优先于队列中的普通任务执行 不受邮箱容量限制
+	 * 
+	 * @param task
+	 */
+	default void submitSystemTask(Task task) {
+		ActorTaskExecutor.getInstance().handleSystemTask(this, task);
+	}
+
+	/**
+	 * 提交可合并的任务<br>
+	 * 若同键的任务还在队列中等待 只替换为新任务 不占用新的队列位置<br>
+	 * 适合重算战力 同步属性 标记存储等频繁重复提交的任务
+	 * 
+	 * @param key
+	 * @param task
+	 */
+	default void submitCoalescedTask(Object key, Task task) {
+		ActorTaskExecutor.getInstance().handleCoalescedTask(this, key, task);
+	}
+
+	/**
+	 * delay毫秒后 在该actor线程执行任务<br>
+	 * actor销毁时自动取消(默认实现不记录定时任务 需自行取消)
+	 * 
+	 * @param delay
+	 * @param task
+	 * @return
+	 */
+	default TaskHandle schedule(long delay, Task task) {
+		return ActorTaskExecutor.getInstance().schedule(this, task, delay, null);
+	}
+
+	/**
+	 * delay毫秒后 每period毫秒在该actor线程执行一次任务<br>
+	 * actor销毁时自动取消(默认实现不记录定时任务 需自行取消)
+	 * 
+	 * @param delay
+	 * @param period
+	 * @param task
+	 * @return
+	 */
+	default TaskHandle scheduleAtFixedRate(long delay, long period, Task task) {
+		return ActorTaskExecutor.getInstance().scheduleAtFixedRate(this, task, delay, period, null);
+	}
+
 }
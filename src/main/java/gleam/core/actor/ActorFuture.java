@@ -0,0 +1,83 @@
+package gleam.core.actor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import gleam.task.token.TokenTaskQueue;
+
+/**
+ * 在actor线程完成的future<br>
+ * 结果由actor的任务队列投递 后续的回调(包括*Async方法)都在该actor线程执行<br>
+ * 等待期间不占用线程 回调中可以安全读写actor的数据<br>
+ * 不能在该actor线程(包括同分片的其他actor线程)中调用{@link #get()}/{@link #join()}阻塞等待<br>
+ * 完成结果要由该actor队列投递 会永久卡住该actor 此时抛出{@link IllegalStateException} 应使用thenXXX回调
+ * 
+ * @author hdh
+ *
+ * @param <T>
+ */
+public class ActorFuture<T> extends CompletableFuture<T> {
+	/**
+	 * 投递到actor任务队列的执行器
+	 */
+	private final Executor actorExecutor;
+	/**
+	 * actor的任务队列 用于检查是否在actor线程阻塞等待 可为null
+	 */
+	private final TokenTaskQueue actorQueue;
+
+	public ActorFuture(Executor actorExecutor) {
+		this(actorExecutor, null);
+	}
+
+	public ActorFuture(Executor actorExecutor, TokenTaskQueue actorQueue) {
+		this.actorExecutor = actorExecutor;
+		this.actorQueue = actorQueue;
+	}
+
+	@Override
+	public Executor defaultExecutor() {
+		return actorExecutor;
+	}
+
+	@Override
+	public <U> CompletableFuture<U> newIncompleteFuture() {
+		return new ActorFuture<>(actorExecutor, actorQueue);
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		checkBlocking();
+		return super.get();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		checkBlocking();
+		return super.get(timeout, unit);
+	}
+
+	@Override
+	public T join() {
+		checkBlocking();
+		return super.join();
+	}
+
+	/**
+	 * 在actor线程(或同分片的工作线程)中阻塞等待未完成的结果会死锁
+	 */
+	private void checkBlocking() {
+		if (actorQueue != null && !isDone() && actorQueue.isQueueThread()) {
+			throw new IllegalStateException(
+					"can not block on ActorFuture in actor thread.token:" + actorQueue.getToken());
+		}
+	}
+
+	public Executor getActorExecutor() {
+		return actorExecutor;
+	}
+
+}
@@ -0,0 +1,27 @@
+package gleam.core.ecs;
+
+/**
+ * 批量系统<br>
+ * 对1个分片中所有实体的同类组件数据做批量更新<br>
+ * 直接取列数组按行循环 不要在更新中增删行
+ *
+ * @author hdh
+ *
+ */
+@FunctionalInterface
+public interface BatchSystem {
+
+	/**
+	 * 更新1个分片<br>
+	 * 不同分片可能在不同线程并行调用<br>
+	 * 执行时持有该分片表的锁 只能读写该表的行 不能访问其他分片的行(并行的分片互相等待对方的锁会死锁)
+	 *
+	 * @param table
+	 */
+	void update(ComponentTable table);
+
+	default String getName() {
+		return getClass().getSimpleName();
+	}
+
+}
@@ -0,0 +1,34 @@
+package gleam.core.ecs;
+
+/**
+ * 列类型<br>
+ * 基础类型列使用基础类型数组存储 不装箱
+ * 
+ * @author hdh
+ *
+ */
+public enum ColumnType {
+
+	INT,
+
+	LONG,
+
+	DOUBLE,
+
+	OBJECT,
+	;
+
+	Object newArray(int capacity) {
+		switch (this) {
+		case INT:
+			return new int[capacity];
+		case LONG:
+			return new long[capacity];
+		case DOUBLE:
+			return new double[capacity];
+		default:
+			return new Object[capacity];
+		}
+	}
+
+}
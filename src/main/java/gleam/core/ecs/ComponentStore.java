@@ -0,0 +1,225 @@
+package gleam.core.ecs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongToIntFunction;
+
+import gleam.core.executor.ActorTaskExecutor;
+import gleam.task.token.TaskQueueDispatcher;
+
+/**
+ * 列式组件存储<br>
+ * 将同类组件的数据从各实体中抽出 按列存放在分片的{@link ComponentTable}中<br>
+ * 用于需要批量遍历所有实体的数据(每日重置 buff过期 体力恢复等) 由{@link BatchSystem}按分片批量更新<br>
+ * 使用方式:先定义列 再添加实体 定义列需在添加第1个实体之前<br>
+ * 行数据只能在系统遍历中 或通过{@link #update(long, RowAction)}持有表锁时读写
+ *
+ * @author hdh
+ *
+ */
+public class ComponentStore {
+
+	private final String name;
+
+	private final int shardNum;
+	/**
+	 * 实体id对应的分片
+	 */
+	private final LongToIntFunction shardFunction;
+
+	private final List<String> columnNames = new ArrayList<>();
+
+	private final List<ColumnType> columnTypeList = new ArrayList<>();
+
+	private volatile ColumnType[] columnTypes;
+
+	private volatile ComponentTable[] tables;
+
+	public ComponentStore(String name, int shardNum) {
+		this(name, shardNum, entityId -> Math.floorMod(entityId, shardNum));
+	}
+
+	public ComponentStore(String name, int shardNum, LongToIntFunction shardFunction) {
+		if (shardNum <= 0) {
+			throw new IllegalArgumentException("shardNum too small:" + shardNum);
+		}
+		this.name = name;
+		this.shardNum = shardNum;
+		this.shardFunction = shardFunction;
+	}
+
+	/**
+	 * 与actor执行器分片一致的存储<br>
+	 * 同一actor的数据与其任务队列在同一分片
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static ComponentStore forActors(String name) {
+		TaskQueueDispatcher dispatcher = ActorTaskExecutor.getInstance().getDispatcher();
+		return new ComponentStore(name, dispatcher.getShardNum(), dispatcher::getShardIndex);
+	}
+
+	/**
+	 * 定义列
+	 *
+	 * @param columnName
+	 * @param type
+	 * @return 列下标 用于{@link ComponentTable#getInts(int)}等
+	 */
+	public synchronized int addColumn(String columnName, ColumnType type) {
+		if (tables != null) {
+			throw new IllegalStateException("store[" + name + "] add column[" + columnName + "] error.store in use.");
+		}
+		if (columnNames.contains(columnName)) {
+			throw new IllegalArgumentException("store[" + name + "] column[" + columnName + "] repeated.");
+		}
+		columnNames.add(columnName);
+		columnTypeList.add(type);
+		return columnNames.size() - 1;
+	}
+
+	/**
+	 * 列下标
+	 *
+	 * @param columnName
+	 * @return 不存在时返回-1
+	 */
+	public int getColumn(String columnName) {
+		return columnNames.indexOf(columnName);
+	}
+
+	ColumnType[] getColumnTypes() {
+		return columnTypes;
+	}
+
+	/**
+	 * 首次使用时固定列定义 创建各分片的表
+	 *
+	 * @return
+	 */
+	private ComponentTable[] getTables() {
+		ComponentTable[] tmpTables = tables;
+		if (tmpTables == null) {
+			synchronized (this) {
+				tmpTables = tables;
+				if (tmpTables == null) {
+					columnTypes = columnTypeList.toArray(new ColumnType[0]);
+					tmpTables = new ComponentTable[shardNum];
+					for (int i = 0; i < shardNum; i++) {
+						tmpTables[i] = new ComponentTable(this, i);
+					}
+					tables = tmpTables;
+				}
+			}
+		}
+		return tmpTables;
+	}
+
+	/**
+	 * 实体所在分片的表
+	 *
+	 * @param entityId
+	 * @return
+	 */
+	public ComponentTable getTableOf(long entityId) {
+		return getTables()[shardFunction.applyAsInt(entityId)];
+	}
+
+	public ComponentTable getTable(int shardIndex) {
+		return getTables()[shardIndex];
+	}
+
+	/**
+	 * 添加实体 列数据为默认值
+	 *
+	 * @param entityId
+	 */
+	public void add(long entityId) {
+		ComponentTable table = getTableOf(entityId);
+		synchronized (table) {
+			table.add(entityId);
+		}
+	}
+
+	/**
+	 * 添加实体 并初始化列数据
+	 *
+	 * @param entityId
+	 * @param initializer
+	 */
+	public void add(long entityId, RowAction initializer) {
+		ComponentTable table = getTableOf(entityId);
+		synchronized (table) {
+			int row = table.add(entityId);
+			initializer.accept(table, row);
+		}
+	}
+
+	/**
+	 * 移除实体
+	 *
+	 * @param entityId
+	 * @return 是否存在
+	 */
+	public boolean remove(long entityId) {
+		ComponentTable table = getTableOf(entityId);
+		synchronized (table) {
+			return table.remove(entityId);
+		}
+	}
+
+	/**
+	 * 持有表锁读写实体的行数据<br>
+	 * 不能在{@link BatchSystem#update(ComponentTable)}中调用其他分片的实体 会与并行的分片互相等锁
+	 *
+	 * @param entityId
+	 * @param action
+	 * @return 实体不存在时返回false
+	 */
+	public boolean update(long entityId, RowAction action) {
+		ComponentTable table = getTableOf(entityId);
+		synchronized (table) {
+			int row = table.rowOf(entityId);
+			if (row < 0) {
+				return false;
+			}
+			action.accept(table, row);
+			return true;
+		}
+	}
+
+	/**
+	 * 所有分片的实体数
+	 *
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+		for (ComponentTable table : getTables()) {
+			synchronized (table) {
+				size += table.size();
+			}
+		}
+		return size;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getShardNum() {
+		return shardNum;
+	}
+
+	/**
+	 * 行操作
+	 */
+	@FunctionalInterface
+	public interface RowAction {
+
+		void accept(ComponentTable table, int row);
+
+	}
+
+}
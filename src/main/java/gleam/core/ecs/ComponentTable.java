@@ -0,0 +1,173 @@
+package gleam.core.ecs;
+
+import java.util.Arrays;
+
+import gleam.util.collection.LongIntMap;
+
+/**
+ * 列式组件表<br>
+ * {@link ComponentStore}中1个分片的数据 按列(struct of arrays)存储<br>
+ * 每个实体占1行 行号连续 删除时用最后1行填补<br>
+ * 遍历时直接取列数组按行号循环 数据连续 缓存友好<br>
+ * 结构修改(增删行)和系统遍历都需持有该表的锁 {@link ComponentStore}
+ *
+ * @author hdh
+ *
+ */
+public class ComponentTable {
+
+	private final static int DEFAULT_CAPACITY = 16;
+
+	private final static int NO_ROW = -1;
+
+	private final ComponentStore store;
+
+	private final int shardIndex;
+	/**
+	 * 实体id,行号
+	 */
+	private final LongIntMap rows = new LongIntMap(NO_ROW);
+	/**
+	 * 行号,实体id
+	 */
+	private long[] entityIds = new long[DEFAULT_CAPACITY];
+	/**
+	 * 列下标,列数组
+	 */
+	private final Object[] columns;
+
+	private int size;
+
+	ComponentTable(ComponentStore store, int shardIndex) {
+		this.store = store;
+		this.shardIndex = shardIndex;
+		ColumnType[] types = store.getColumnTypes();
+		this.columns = new Object[types.length];
+		for (int i = 0; i < types.length; i++) {
+			columns[i] = types[i].newArray(DEFAULT_CAPACITY);
+		}
+	}
+
+	/**
+	 * 添加实体
+	 *
+	 * @param entityId
+	 * @return 行号 已存在时返回原行号
+	 */
+	int add(long entityId) {
+		int row = rows.get(entityId);
+		if (row != NO_ROW) {
+			return row;
+		}
+		if (size == entityIds.length) {
+			grow();
+		}
+		row = size++;
+		entityIds[row] = entityId;
+		rows.put(entityId, row);
+		return row;
+	}
+
+	/**
+	 * 移除实体<br>
+	 * 最后1行移到被删除的行 行号会变化
+	 *
+	 * @param entityId
+	 * @return 是否存在
+	 */
+	boolean remove(long entityId) {
+		int row = rows.remove(entityId);
+		if (row == NO_ROW) {
+			return false;
+		}
+		int last = --size;
+		ColumnType[] types = store.getColumnTypes();
+		if (row != last) {
+			long lastId = entityIds[last];
+			entityIds[row] = lastId;
+			for (Object column : columns) {
+				System.arraycopy(column, last, column, row, 1);
+			}
+			rows.put(lastId, row);
+		}
+		for (int i = 0; i < columns.length; i++) {
+			if (types[i] == ColumnType.OBJECT) {
+				// 释放引用
+				((Object[]) columns[i])[last] = null;
+			}
+		}
+		return true;
+	}
+
+	private void grow() {
+		int capacity = entityIds.length << 1;
+		entityIds = Arrays.copyOf(entityIds, capacity);
+		ColumnType[] types = store.getColumnTypes();
+		for (int i = 0; i < columns.length; i++) {
+			Object column = types[i].newArray(capacity);
+			System.arraycopy(columns[i], 0, column, 0, size);
+			columns[i] = column;
+		}
+	}
+
+	/**
+	 * 实体所在行号
+	 *
+	 * @param entityId
+	 * @return 不存在时返回-1
+	 */
+	public int rowOf(long entityId) {
+		return rows.get(entityId);
+	}
+
+	/**
+	 * 行数 有效行号为[0, size)
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	public ComponentStore getStore() {
+		return store;
+	}
+
+	/**
+	 * 行号,实体id<br>
+	 * 长度可能大于行数 增加行后需重新获取
+	 *
+	 * @return
+	 */
+	public long[] getEntityIds() {
+		return entityIds;
+	}
+
+	/**
+	 * int列<br>
+	 * 长度可能大于行数 增加行后需重新获取
+	 *
+	 * @param column {@link ComponentStore#addColumn(String, ColumnType)}
+	 * @return
+	 */
+	public int[] getInts(int column) {
+		return (int[]) columns[column];
+	}
+
+	public long[] getLongs(int column) {
+		return (long[]) columns[column];
+	}
+
+	public double[] getDoubles(int column) {
+		return (double[]) columns[column];
+	}
+
+	public Object[] getObjects(int column) {
+		return (Object[]) columns[column];
+	}
+
+}
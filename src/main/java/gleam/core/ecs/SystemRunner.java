@@ -0,0 +1,112 @@
+package gleam.core.ecs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 批量系统执行器<br>
+ * 各分片作为1个任务在fork-join线程池中并行执行 全部完成后返回<br>
+ * 执行分片时持有该分片表的锁 期间该分片不能增删行
+ *
+ * @author hdh
+ *
+ */
+public class SystemRunner {
+
+	private final static Logger logger = LoggerFactory.getLogger(SystemRunner.class);
+
+	private static volatile SystemRunner instance = new SystemRunner("ecs-system",
+			Runtime.getRuntime().availableProcessors());
+
+	private final ForkJoinPool pool;
+
+	public static SystemRunner getInstance() {
+		return instance;
+	}
+
+	/**
+	 * 替换默认的执行器<br>
+	 * 原执行器会被关闭 已提交的分片任务执行完后线程退出
+	 *
+	 * @param runner
+	 */
+	public static void setInstance(SystemRunner runner) {
+		if (runner == null) {
+			throw new NullPointerException("setInstance error.runner is null.");
+		}
+		SystemRunner oldInstance;
+		synchronized (SystemRunner.class) {
+			oldInstance = instance;
+			instance = runner;
+		}
+		if (oldInstance != null && oldInstance != runner) {
+			oldInstance.shutdown();
+		}
+	}
+
+	public SystemRunner(String threadPreName, int parallelism) {
+		this.pool = new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(threadPreName + "-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * 在所有分片上执行系统 等待全部完成<br>
+	 * 不能在actor线程调用:期间阻塞该线程 分片内的{@link ComponentStore#update(long, RowAction)}若等待该actor会死锁<br>
+	 * 应在独立的定时线程调用
+	 *
+	 * @param store
+	 * @param system
+	 */
+	public void run(ComponentStore store, BatchSystem system) {
+		long beginTime = System.currentTimeMillis();
+		int shardNum = store.getShardNum();
+		if (shardNum == 1) {
+			runShard(store.getTable(0), system);
+		} else {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(shardNum);
+			for (int i = 0; i < shardNum; i++) {
+				ComponentTable table = store.getTable(i);
+				tasks.add(pool.submit(() -> runShard(table, system)));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+		long costTime = System.currentTimeMillis() - beginTime;
+		if (costTime > 100) {
+			logger.warn("store[{}] run system[{}],costTime={}ms", store.getName(), system.getName(), costTime);
+		}
+	}
+
+	private void runShard(ComponentTable table, BatchSystem system) {
+		synchronized (table) {
+			if (table.size() == 0) {
+				return;
+			}
+			try {
+				system.update(table);
+			} catch (Exception e) {
+				logger.error("store[{}] shard[{}] run system[{}] error.", table.getStore().getName(),
+						table.getShardIndex(), system.getName(), e);
+			}
+		}
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+}
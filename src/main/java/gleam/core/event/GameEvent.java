@@ -14,12 +14,25 @@ public interface GameEvent {
 
 	/**
 	 * 事件id<br>
-	 * 目前直接用class.getSimpleName();
+	 * 目前直接用class.getSimpleName();<br>
+	 * 派发按{@link #getIndex()}查找监听器 返回与类名不同的id时 须同时重写{@link #getIndex()}
 	 * 
 	 * @return
 	 */
 	String getId();
 
+	/**
+	 * 事件类型索引<br>
+	 * 用于派发时直接按数组下标查找监听器<br>
+	 * 默认按事件类分配 与类名同名的事件id共用索引<br>
+	 * {@link #getId()}与类名不同时抛出{@link IllegalStateException}
+	 * 
+	 * @return
+	 */
+	default int getIndex() {
+		return GameEventTypes.indexOf(this);
+	}
+
 	/**
 	 * 判断该事件id是否属于该事件
 	 * 
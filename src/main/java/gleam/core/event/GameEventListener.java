@@ -1,7 +1,8 @@
 package gleam.core.event;
 
 /**
- * 事件监听类接口
+ * 事件监听类接口<br>
+ * 同一事件的监听器按注册时的优先级从高到低执行 优先级相同时按注册顺序执行
  * 
  * @author hdh
  *
@@ -9,6 +10,12 @@ package gleam.core.event;
 @FunctionalInterface
 public interface GameEventListener {
 
+    int EVENT_PRIORITY_LOWEST = 10;
+    int EVENT_PRIORITY_LOW = 30;
+    int EVENT_PRIORITY_NORMAL = 50;
+    int EVENT_PRIORITY_HIGH = 70;
+    int EVENT_PRIORITY_HIGHEST = 90;
+
     /**
      * 处理事件
      * 
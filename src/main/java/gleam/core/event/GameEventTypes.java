@@ -0,0 +1,125 @@
+package gleam.core.event;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 事件类型索引<br>
+ * 为每个事件类分配连续的整数索引 派发时按索引直接取监听器数组 不再对事件id做字符串哈希<br>
+ * 按类分配 不同包下的同名事件类也不会冲突<br>
+ * 按事件id(类名)注册的监听器 与第一个同名事件类共用索引<br>
+ * 索引只按类名分配 事件id与类名不同时 {@link #indexOf(GameEvent)}直接抛出异常
+ *
+ * @author hdh
+ *
+ */
+public final class GameEventTypes {
+
+	private final static Logger logger = LoggerFactory.getLogger(GameEventTypes.class);
+
+	/**
+	 * 事件id,索引
+	 */
+	private final static Map<String, Integer> ID_INDEXES = new HashMap<>();
+	/**
+	 * 事件id,占用该id的事件类
+	 */
+	private final static Map<String, Class<?>> CLAIMANTS = new HashMap<>();
+
+	private final static ClassValue<EventType> CLASS_TYPES = new ClassValue<EventType>() {
+		@Override
+		protected EventType computeValue(Class<?> type) {
+			return new EventType(type.getSimpleName(), register(type));
+		}
+	};
+
+	private static int nextIndex;
+
+	private GameEventTypes() {
+	}
+
+	/**
+	 * 获取事件类的索引<br>
+	 * 首次获取时分配
+	 *
+	 * @param eventClass
+	 * @return
+	 */
+	public static int indexOf(Class<? extends GameEvent> eventClass) {
+		return CLASS_TYPES.get(eventClass).index;
+	}
+
+	/**
+	 * 获取事件的索引<br>
+	 * 按事件类分配 事件id与类名不同时 按id注册的监听器会收不到该事件 直接抛出异常<br>
+	 * 需要自定义id的事件应同时重写{@link GameEvent#getIndex()} 如返回{@link #indexOf(String)}
+	 *
+	 * @param event
+	 * @return
+	 */
+	public static int indexOf(GameEvent event) {
+		EventType type = CLASS_TYPES.get(event.getClass());
+		String eventId = event.getId();
+		if (eventId != type.id && !type.id.equals(eventId)) {
+			throw new IllegalStateException("event[" + event.getClass().getName() + "] id[" + eventId
+					+ "] differs from class name.override getIndex().");
+		}
+		return type.index;
+	}
+
+	/**
+	 * 获取事件id的索引<br>
+	 * 首次获取时分配 之后同名的事件类使用该索引
+	 *
+	 * @param eventId
+	 * @return
+	 */
+	public static synchronized int indexOf(String eventId) {
+		Integer index = ID_INDEXES.get(eventId);
+		if (index == null) {
+			index = nextIndex++;
+			ID_INDEXES.put(eventId, index);
+		}
+		return index;
+	}
+
+	/**
+	 * 已分配的索引个数
+	 *
+	 * @return
+	 */
+	public static synchronized int size() {
+		return nextIndex;
+	}
+
+	private static synchronized int register(Class<?> type) {
+		String eventId = type.getSimpleName();
+		Class<?> claimant = CLAIMANTS.putIfAbsent(eventId, type);
+		if (claimant == null || claimant == type) {
+			// ClassValue可能对同一个类并发计算多次 同一个类总是返回同一索引
+			return indexOf(eventId);
+		}
+		// 同名事件类已占用该id 分配独立索引 按事件id注册的监听器收不到该事件
+		logger.warn("event class[{}] simpleName repeated.allocate an independent index.", type.getName());
+		return nextIndex++;
+	}
+
+	/**
+	 * 事件类的id和索引
+	 */
+	private static class EventType {
+
+		private final String id;
+
+		private final int index;
+
+		private EventType(String id, int index) {
+			this.id = id;
+			this.index = index;
+		}
+	}
+
+}
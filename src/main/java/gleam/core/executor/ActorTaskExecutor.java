@@ -1,14 +1,34 @@
 package gleam.core.executor;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import gleam.communication.Protocol;
 import gleam.core.actor.Actor;
+import gleam.core.actor.ActorFuture;
 import gleam.core.event.GameEvent;
 import gleam.core.executor.task.EntityHandleEventTask;
+import gleam.core.executor.task.ActorTimerTask;
 import gleam.core.executor.task.EntityHandleMsgTask;
+import gleam.task.HashedWheelScheduledExecutor;
 import gleam.task.Task;
+import gleam.task.TaskPriority;
 import gleam.task.token.DefaultTokenTaskQueueExecutor;
+import gleam.task.token.RunnableTask;
+import gleam.task.token.ShardedTaskQueueDispatcher;
+import gleam.task.token.TaskQueueDispatcher;
+import gleam.task.token.TaskQueueWatchdog;
+import gleam.task.token.TokenTaskQueue;
+import gleam.task.token.VirtualThreadTaskQueueDispatcher;
 
 /**
  * actor任务执行器
@@ -18,47 +38,391 @@ import gleam.task.token.DefaultTokenTaskQueueExecutor;
  */
 public class ActorTaskExecutor extends DefaultTokenTaskQueueExecutor {
 
-	private static ActorTaskExecutor instance = new ActorTaskExecutor();
+	/**
+	 * 首次使用时创建默认执行器 已调用{@link #setInstance(ActorTaskExecutor)}时不再创建
+	 */
+	private static volatile ActorTaskExecutor instance;
+	/**
+	 * 批量发送事件时 actor数达到该值才按分片分组投递
+	 */
+	protected final static int FIRE_EVENT_BATCH_MIN = 64;
+	/**
+	 * actor定时器的tick(毫秒)<br>
+	 * 时间轮有任务时每个tick唤醒一次 actor定时任务不需要1ms的精度
+	 */
+	protected final static long ACTOR_TIMER_TICK_MILLIS = 10;
 
 	public static ActorTaskExecutor getInstance() {
-		return instance;
+		ActorTaskExecutor tmpInstance = instance;
+		if (tmpInstance == null) {
+			synchronized (ActorTaskExecutor.class) {
+				tmpInstance = instance;
+				if (tmpInstance == null) {
+					tmpInstance = new ActorTaskExecutor();
+					tmpInstance.start();
+					instance = tmpInstance;
+				}
+			}
+		}
+		return tmpInstance;
+	}
+
+	/**
+	 * 替换默认的执行器<br>
+	 * 需在任何actor提交任务之前调用(如服务器启动时)<br>
+	 * 被替换的执行器会被关闭 新执行器会被启动
+	 * 
+	 * @param executor
+	 */
+	public static void setInstance(ActorTaskExecutor executor) {
+		if (executor == null) {
+			throw new NullPointerException("setInstance error.executor is null.");
+		}
+		executor.start();
+		ActorTaskExecutor oldInstance;
+		synchronized (ActorTaskExecutor.class) {
+			oldInstance = instance;
+			instance = executor;
+		}
+		if (oldInstance != null && oldInstance != executor) {
+			oldInstance.shutdown();
+		}
 	}
 
+	/**
+	 * 使用线程绑定的分片执行器<br>
+	 * 每个actor固定在同1线程执行<br>
+	 * 同分片的actor共用1个线程 不要在actor任务中阻塞等待其他actor<br>
+	 * 在actor任务中对同分片的actor调用submitCallback(...).get()会抛出{@link IllegalStateException} 应改用回调
+	 * 
+	 * @param shardNum
+	 * @return
+	 */
+	public static ActorTaskExecutor buildShardedInstance(int shardNum) {
+		return new ActorTaskExecutor(new ShardedTaskQueueDispatcher("actor", shardNum));
+	}
+
+	/**
+	 * 使用虚拟线程的执行器<br>
+	 * 适合actor中有较多阻塞操作的情况
+	 * 
+	 * @return
+	 */
+	public static ActorTaskExecutor buildVirtualThreadInstance() {
+		return new ActorTaskExecutor(new VirtualThreadTaskQueueDispatcher("actor"));
+	}
+
+	/**
+	 * actor定时任务共用的时间轮<br>
+	 * 到期直接在tick线程投递到actor的任务队列 首次使用时创建
+	 */
+	private volatile HashedWheelScheduledExecutor timer;
+
 	public ActorTaskExecutor() {
 		super("actor");
 	}
 
+	public ActorTaskExecutor(TaskQueueDispatcher dispatcher) {
+		super(dispatcher);
+	}
+
+	/**
+	 * 创建actor对应的任务队列<br>
+	 * actor启动时调用
+	 * 
+	 * @param actor
+	 */
+	public void registerActor(Actor<?> actor) {
+		registerQueue(actor.getId(), actor.getMailboxCapacity(), actor.getClass().getSimpleName());
+	}
+
+	/**
+	 * 移除actor对应的任务队列<br>
+	 * actor销毁时调用
+	 * 
+	 * @param actor
+	 */
+	public void removeActor(Actor<?> actor) {
+		removeQueue(actor.getId());
+	}
+
+	/**
+	 * 获取actor对应的任务队列<br>
+	 * 不存在则按该actor的邮箱容量创建 队列类型为actor类名
+	 * 
+	 * @param actor
+	 * @return
+	 */
+	protected TokenTaskQueue getActorQueue(Actor<?> actor) {
+		return getQueue(actor.getId(), actor.getMailboxCapacity(), actor.getClass().getSimpleName());
+	}
+
+	/**
+	 * actor的任务队列(邮箱)
+	 * 
+	 * @param actor
+	 * @return
+	 */
+	public TokenTaskQueue getActorMailbox(Actor<?> actor) {
+		return getActorQueue(actor);
+	}
+
 	public void handleProtocol(Actor<?> actor, Protocol request) {
-		long actorId = actor.getId();
 		EntityHandleMsgTask task = EntityHandleMsgTask.get(actor, request);
-		submit(actorId, task);
+		submit(getActorQueue(actor), task);
 	}
 
 	public void handleGameEvent(Actor<?> actor, GameEvent event) {
-		long actorId = actor.getId();
 		EntityHandleEventTask task = EntityHandleEventTask.get(actor, event);
-		submit(actorId, task);
+		submit(getActorQueue(actor), task);
 	}
 
 	public void handleTask(Actor<?> actor, Task task) {
-		long actorId = actor.getId();
-		submit(actorId, task);
+		submit(getActorQueue(actor), task);
+	}
+
+	/**
+	 * 同时独占多个actor执行任务<br>
+	 * 如2个玩家交易 玩家和联盟的操作 任务中可直接读写这些actor的数据<br>
+	 * 不阻塞线程 不会死锁
+	 * 
+	 * @param task
+	 * @param actors
+	 */
+	public void handleMultiTask(Task task, Actor<?>... actors) {
+		long[] tokens = new long[actors.length];
+		for (int i = 0; i < actors.length; i++) {
+			// 按actor的容量和类型创建队列
+			getActorQueue(actors[i]);
+			tokens[i] = actors[i].getId();
+		}
+		submit(tokens, task);
+	}
+
+	/**
+	 * 提交可合并的任务<br>
+	 * 同键的任务还未执行时 只替换为新任务
+	 * 
+	 * @param actor
+	 * @param key
+	 * @param task
+	 * @return 是否新入队
+	 */
+	public boolean handleCoalescedTask(Actor<?> actor, Object key, Task task) {
+		return submitCoalesced(getActorQueue(actor), key, task);
 	}
 
 	/**
-	 * 发送事件给所有actor
+	 * 提交系统任务<br>
+	 * 优先于actor队列中的普通任务执行
+	 * 
+	 * @param actor
+	 * @param task
+	 */
+	public void handleSystemTask(Actor<?> actor, Task task) {
+		submit(getActorQueue(actor), task, TaskPriority.SYSTEM);
+	}
+
+	public <V> Future<V> handleCallback(Actor<?> actor, Callable<V> callable) {
+		return submit(getActorQueue(actor), callable);
+	}
+
+	/**
+	 * 投递到actor任务队列的执行器<br>
+	 * 作为系统任务 不被大量客户端消息阻塞
+	 * 
+	 * @param actor
+	 * @return
+	 */
+	public Executor getActorExecutor(Actor<?> actor) {
+		return command -> submit(getActorQueue(actor), RunnableTask.get(command, TaskPriority.SYSTEM));
+	}
+
+	/**
+	 * stage完成后 在actor线程完成返回的future<br>
+	 * 即使stage已完成 也会投递到队列中 保证回调总在actor线程执行<br>
+	 * 不能在该actor线程中get/join等待返回的future 结果要由该actor队列投递 会死锁(抛出{@link IllegalStateException})
+	 * 
+	 * @param <T>
+	 * @param actor
+	 * @param stage
+	 * @return
+	 */
+	public <T> ActorFuture<T> resumeOn(Actor<?> actor, CompletionStage<T> stage) {
+		Executor actorExecutor = getActorExecutor(actor);
+		ActorFuture<T> future = new ActorFuture<>(actorExecutor, getActorQueue(actor));
+		stage.whenComplete((value, ex) -> {
+			actorExecutor.execute(() -> {
+				if (ex != null) {
+					future.completeExceptionally(ex);
+				} else {
+					future.complete(value);
+				}
+			});
+		});
+		return future;
+	}
+
+	/**
+	 * delay毫秒后 在actor线程执行任务
+	 * 
+	 * @param actor
+	 * @param task
+	 * @param delay
+	 * @param timers actor的定时任务集合 可为null
+	 * @return
+	 */
+	public ActorTimerTask schedule(Actor<?> actor, Task task, long delay, Set<ActorTimerTask> timers) {
+		if (task == null) {
+			throw new NullPointerException("schedule error.task is null.");
+		}
+		ActorTimerTask timerTask = new ActorTimerTask(this, actor, task, false, timers);
+		if (timers != null) {
+			timers.add(timerTask);
+		}
+		ScheduledFuture<?> future = getTimer().schedule(timerTask, delay, TimeUnit.MILLISECONDS);
+		timerTask.setFuture(future);
+		return timerTask;
+	}
+
+	/**
+	 * delay毫秒后 每period毫秒在actor线程执行一次任务
+	 * 
+	 * @param actor
+	 * @param task
+	 * @param delay
+	 * @param period
+	 * @param timers actor的定时任务集合 可为null
+	 * @return
+	 */
+	public ActorTimerTask scheduleAtFixedRate(Actor<?> actor, Task task, long delay, long period,
+			Set<ActorTimerTask> timers) {
+		if (task == null) {
+			throw new NullPointerException("scheduleAtFixedRate error.task is null.");
+		}
+		if (period <= 0) {
+			throw new IllegalArgumentException("period too small:" + period);
+		}
+		ActorTimerTask timerTask = new ActorTimerTask(this, actor, task, true, timers);
+		if (timers != null) {
+			timers.add(timerTask);
+		}
+		ScheduledFuture<?> future = getTimer().scheduleAtFixedRate(timerTask, delay, period, TimeUnit.MILLISECONDS);
+		timerTask.setFuture(future);
+		return timerTask;
+	}
+
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		HashedWheelScheduledExecutor tmpTimer;
+		synchronized (this) {
+			tmpTimer = timer;
+			timer = null;
+		}
+		if (tmpTimer != null) {
+			tmpTimer.shutdown();
+		}
+	}
+
+	protected HashedWheelScheduledExecutor getTimer() {
+		HashedWheelScheduledExecutor tmpTimer = timer;
+		if (tmpTimer == null) {
+			synchronized (this) {
+				tmpTimer = timer;
+				if (tmpTimer == null) {
+					tmpTimer = new HashedWheelScheduledExecutor("actor-timer", ACTOR_TIMER_TICK_MILLIS);
+					timer = tmpTimer;
+				}
+			}
+		}
+		return tmpTimer;
+	}
+
+	/**
+	 * 发送事件给所有actor<br>
+	 * 分片线程调度且actor较多时按分片分组 每个分片只调度1次<br>
+	 * 在分片线程中将事件加入各actor的任务队列 空闲的队列直接执行
 	 * 
 	 * @param actors
 	 * @param event
 	 */
+	@SuppressWarnings("unchecked")
 	public void fireGameEvent(Collection<? extends Actor<?>> actors, GameEvent event) {
 		if (actors == null || actors.isEmpty()) {
 			return;
 		}
+		int shardNum = dispatcher.getShardNum();
+		if (shardNum <= 1 || !dispatcher.isThreadAffine() || actors.size() < FIRE_EVENT_BATCH_MIN) {
+			for (Actor<?> actor : actors) {
+				EntityHandleEventTask task = EntityHandleEventTask.get(actor, event);
+				submit(getActorQueue(actor), task);
+			}
+			return;
+		}
+		List<List<Actor<?>>> shardActors = new ArrayList<>(Collections.nCopies(shardNum, null));
+		int initCapacity = actors.size() / shardNum + 1;
 		for (Actor<?> actor : actors) {
-			long playerId = actor.getId();
-			EntityHandleEventTask task = EntityHandleEventTask.get(actor, event);
-			submit(playerId, task);
+			int shardIndex = dispatcher.getShardIndex(actor.getId());
+			List<Actor<?>> list = shardActors.get(shardIndex);
+			if (list == null) {
+				list = new ArrayList<>(initCapacity);
+				shardActors.set(shardIndex, list);
+			}
+			list.add(actor);
+		}
+		for (int i = 0; i < shardNum; i++) {
+			List<Actor<?>> list = shardActors.get(i);
+			if (list != null) {
+				dispatcher.execute(i, () -> fireGameEventOnShard(list, event));
+			}
+		}
+	}
+
+	/**
+	 * 在分片线程中将事件投递给该分片的actor
+	 * 
+	 * @param actors
+	 * @param event
+	 */
+	protected void fireGameEventOnShard(List<Actor<?>> actors, GameEvent event) {
+		for (Actor<?> actor : actors) {
+			try {
+				EntityHandleEventTask task = EntityHandleEventTask.get(actor, event);
+				if (!submitOnShard(getActorQueue(actor), task)) {
+					EntityHandleEventTask.recycle(task);
+				}
+			} catch (Exception e) {
+				logger.error("{}[{}] fire event[{}] error.", actor.getClass().getSimpleName(), actor.getId(),
+						event.getId(), e);
+			}
+		}
+	}
+
+	/**
+	 * 打印任务队列统计数据
+	 * 
+	 * @return
+	 */
+	public String printStatistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("queues:").append(tokenQueues.size()).append("\r\n");
+		sb.append(metrics.printStatistics());
+		TaskQueueWatchdog tmpWatchdog = watchdog;
+		if (tmpWatchdog != null) {
+			sb.append(tmpWatchdog.printStatistics());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 清空统计数据
+	 */
+	public void resetStatistics() {
+		metrics.reset();
+		TaskQueueWatchdog tmpWatchdog = watchdog;
+		if (tmpWatchdog != null) {
+			tmpWatchdog.reset();
 		}
 	}
 
@@ -0,0 +1,124 @@
+package gleam.core.executor.task;
+
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gleam.core.actor.Actor;
+import gleam.core.executor.ActorTaskExecutor;
+import gleam.task.Task;
+import gleam.task.TaskHandle;
+
+/**
+ * actor定时任务<br>
+ * 到期时由时间轮直接投递到actor的任务队列 在actor线程执行<br>
+ * 取消后 已投递到队列中的任务也不再执行
+ *
+ * @author hdh
+ *
+ */
+public class ActorTimerTask implements Task, TaskHandle, Runnable {
+	private final static Logger logger = LoggerFactory.getLogger(ActorTimerTask.class);
+
+	private final ActorTaskExecutor executor;
+
+	private final Actor<?> actor;
+
+	private final Task task;
+	/**
+	 * 是否周期执行
+	 */
+	private final boolean periodic;
+	/**
+	 * 所属actor的定时任务集合<br>
+	 * 取消或执行完成后移除
+	 */
+	private final Set<ActorTimerTask> timers;
+
+	private volatile ScheduledFuture<?> future;
+
+	private volatile boolean cancelled;
+
+	public ActorTimerTask(ActorTaskExecutor executor, Actor<?> actor, Task task, boolean periodic,
+			Set<ActorTimerTask> timers) {
+		this.executor = executor;
+		this.actor = actor;
+		this.task = task;
+		this.periodic = periodic;
+		this.timers = timers;
+	}
+
+	/**
+	 * 到期 在时间轮线程调用<br>
+	 * 投递到actor的任务队列
+	 */
+	@Override
+	public void run() {
+		if (cancelled) {
+			return;
+		}
+		executor.handleTask(actor, this);
+	}
+
+	@Override
+	public void execute() throws Exception {
+		if (cancelled) {
+			return;
+		}
+		if (!periodic) {
+			cancelled = true;
+			if (timers != null) {
+				timers.remove(this);
+			}
+		}
+		try {
+			task.execute();
+		} catch (Exception e) {
+			logger.error("{}[{}] execute timer[{}] error.", actor.getClass().getSimpleName(), actor.getId(),
+					task.toDesc(), e);
+		}
+	}
+
+	@Override
+	public void cancel() {
+		cancelled = true;
+		ScheduledFuture<?> tmpFuture = future;
+		if (tmpFuture != null) {
+			tmpFuture.cancel(false);
+		}
+		if (timers != null) {
+			timers.remove(this);
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public Actor<?> getActor() {
+		return actor;
+	}
+
+	public Task getTask() {
+		return task;
+	}
+
+	public ScheduledFuture<?> getFuture() {
+		return future;
+	}
+
+	public void setFuture(ScheduledFuture<?> future) {
+		this.future = future;
+		if (cancelled) {
+			// 设置前已被取消
+			future.cancel(false);
+		}
+	}
+
+	@Override
+	public String toDesc() {
+		return getClass().getSimpleName() + ":" + task.toDesc();
+	}
+}
@@ -33,6 +33,15 @@ public class EntityHandleEventTask implements Task, Recoverable {
 		return task;
 	}
 
+	/**
+	 * 回收未执行的任务(如入队失败)
+	 * 
+	 * @param task
+	 */
+	public static void recycle(EntityHandleEventTask task) {
+		POOL.recycle(task);
+	}
+
 	private Entity<?> entity;
 
 	private GameEvent event;
@@ -46,6 +55,11 @@ public class EntityHandleEventTask implements Task, Recoverable {
 		this.event = null;
 	}
 
+	@Override
+	public void discard() {
+		POOL.recycle(this);
+	}
+
 	@Override
 	public void execute() throws Exception {
 		try {
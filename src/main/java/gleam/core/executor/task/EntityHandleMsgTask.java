@@ -49,6 +49,11 @@ public class EntityHandleMsgTask implements Task, Recoverable {
 		this.request = null;
 	}
 
+	@Override
+	public void discard() {
+		POOL.recycle(this);
+	}
+
 	@Override
 	public void execute() throws Exception {
 		Protocol response = null;
@@ -0,0 +1,158 @@
+package gleam.core.ref;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gleam.communication.Connection;
+import gleam.core.ref.protocol.ReqEntityForward;
+import gleam.core.ref.protocol.ReqEntityForwardBatch;
+import gleam.util.collection.ConcurrentLongObjectMap;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * 实体转发消息批量发送<br>
+ * 按目标服务器累积{@link ReqEntityForward} 达到批量大小或定时刷新时合并为1个{@link ReqEntityForwardBatch}发送<br>
+ * 同一目标服务器同一时间只有1个线程在发送 保证消息顺序
+ *
+ * @author hdh
+ *
+ */
+public class EntityForwardBatcher {
+
+	private final static Logger logger = LoggerFactory.getLogger(EntityForwardBatcher.class);
+
+	private final EntityRefManager manager;
+	/**
+	 * 每批最多消息数 累积到该值时立即发送
+	 */
+	private final int batchSize;
+	/**
+	 * 目标服务器,等待发送的消息
+	 */
+	private final ConcurrentLongObjectMap<ForwardBuffer> buffers = new ConcurrentLongObjectMap<>();
+
+	public EntityForwardBatcher(EntityRefManager manager, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize too small:" + batchSize);
+		}
+		this.manager = manager;
+		this.batchSize = batchSize;
+	}
+
+	private static long serverKey(int serverType, int serverId) {
+		return ((long) serverType << 32) | (serverId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * 添加待发送的转发消息
+	 *
+	 * @param forward
+	 */
+	public void add(ReqEntityForward forward) {
+		int dstServerType = forward.getDstServerType();
+		int dstServerId = forward.getDstServerId();
+		long key = serverKey(dstServerType, dstServerId);
+		ForwardBuffer buffer = buffers.get(key);
+		if (buffer == null) {
+			buffer = buffers.computeIfAbsent(key, k -> new ForwardBuffer(dstServerType, dstServerId));
+		}
+		buffer.messages.offer(forward);
+		if (buffer.size.incrementAndGet() >= batchSize) {
+			buffer.flush();
+		}
+	}
+
+	/**
+	 * 发送所有目标服务器累积的消息<br>
+	 * 由定时任务调用
+	 */
+	public void flushAll() {
+		buffers.forEach((key, buffer) -> {
+			if (buffer.size.get() > 0) {
+				buffer.flush();
+			}
+		});
+	}
+
+	/**
+	 * 1个目标服务器的发送缓冲
+	 */
+	private class ForwardBuffer {
+
+		private final int dstServerType;
+
+		private final int dstServerId;
+
+		private final Queue<ReqEntityForward> messages = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger size = new AtomicInteger();
+		/**
+		 * 是否有线程在发送
+		 */
+		private final AtomicBoolean flushing = new AtomicBoolean();
+
+		private ForwardBuffer(int dstServerType, int dstServerId) {
+			this.dstServerType = dstServerType;
+			this.dstServerId = dstServerId;
+		}
+
+		private void flush() {
+			while (true) {
+				if (!flushing.compareAndSet(false, true)) {
+					// 其他线程正在发送 由其负责发送剩余消息
+					return;
+				}
+				try {
+					flushOnce();
+				} catch (Exception e) {
+					logger.error("flush forward to server[{}_{}] error.", dstServerType, dstServerId, e);
+				} finally {
+					flushing.set(false);
+				}
+				if (size.get() < batchSize) {
+					// 不足1批的留到下次定时发送
+					return;
+				}
+			}
+		}
+
+		private void flushOnce() {
+			List<ReqEntityForward> list = new ArrayList<>(Math.min(size.get(), batchSize));
+			ReqEntityForward forward;
+			while (list.size() < batchSize && (forward = messages.poll()) != null) {
+				list.add(forward);
+			}
+			if (list.isEmpty()) {
+				return;
+			}
+			size.addAndGet(-list.size());
+			Connection connection = manager.getServerConnection(dstServerType, dstServerId);
+			if (connection == null || !connection.isActive()) {
+				logger.warn("flush forward to server[{}_{}] error.connection inactive.drop[{}]", dstServerType,
+						dstServerId, list.size());
+				// 未写出 释放消息体缓存
+				for (ReqEntityForward dropped : list) {
+					ReferenceCountUtil.release(dropped);
+				}
+				return;
+			}
+			if (list.size() == 1) {
+				connection.sendProtocol(list.get(0));
+				return;
+			}
+			ReqEntityForwardBatch batch = new ReqEntityForwardBatch();
+			batch.setDstServerType(dstServerType);
+			batch.setDstServerId(dstServerId);
+			batch.composeForwards(list);
+			connection.sendProtocol(batch);
+		}
+	}
+
+}
@@ -1,9 +1,11 @@
 package gleam.core.ref;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import gleam.communication.Protocol;
 import gleam.communication.rpc.ResponseCallback;
+import gleam.communication.rpc.impl.CompletableResponseCallback;
 import gleam.communication.rpc.impl.RpcFutureResult;
 import gleam.core.ref.define.EntityType;
 import gleam.exception.RpcException;
@@ -66,4 +68,20 @@ public interface EntityRef {
 	 */
 	<R extends Protocol> void ask(Protocol request, long timeout, ResponseCallback<R> callback);
 
+	/**
+	 * 询问指向的实体<br>
+	 * 不阻塞等待 返回的future在收到返回的线程完成<br>
+	 * 在actor中使用时 通过{@link gleam.core.actor.AbstractActor#ask(EntityRef, Protocol, long)}回到actor线程
+	 * 
+	 * @param <R>
+	 * @param request
+	 * @param timeout
+	 * @return
+	 */
+	default <R extends Protocol> CompletableFuture<R> askAsync(Protocol request, long timeout) {
+		CompletableResponseCallback<R> callback = new CompletableResponseCallback<>();
+		ask(request, timeout, callback);
+		return callback.getFuture();
+	}
+
 }
@@ -15,6 +15,7 @@ import gleam.communication.inner.InnerCommunicationService;
 import gleam.communication.inner.protocol.ResInnerReturnCode;
 import gleam.communication.protocol.ProtocolUtil;
 import gleam.communication.rpc.RpcCallbackCache;
+import gleam.config.ServerSettings;
 import gleam.core.Entity;
 import gleam.core.define.BasicErrorCode;
 import gleam.core.ref.callback.EntityFowardAskCallback;
@@ -25,6 +26,7 @@ import gleam.core.ref.impl.SimpleEntityAddressFinder;
 import gleam.core.ref.impl.SimpleLocalEntityFinder;
 import gleam.core.ref.protocol.ReqEntityCheck;
 import gleam.core.ref.protocol.ReqEntityForward;
+import gleam.core.ref.protocol.ReqEntityForwardBatch;
 import gleam.core.ref.protocol.ResEntityCheck;
 import gleam.core.ref.protocol.ResEntityForward;
 import gleam.core.service.AbstractService;
@@ -49,6 +51,19 @@ public class EntityRefManager extends AbstractService {
 	}
 
 	public final static long TICK_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+	/**
+	 * 是否批量发送实体转发消息<br>
+	 * 开启后目标服务器需注册{@link ReqEntityForwardBatch}协议
+	 */
+	public final static String FORWARD_BATCH_KEY = "entityref.forward.batch";
+	/**
+	 * 每批最多转发消息数
+	 */
+	public final static int FORWARD_BATCH_SIZE = 64;
+	/**
+	 * 批量转发的刷新间隔(毫秒)
+	 */
+	public final static long FORWARD_FLUSH_INTERVAL = 5;
 
 	/**
 	 * 类型,id,引用
@@ -69,10 +84,21 @@ public class EntityRefManager extends AbstractService {
 	private LocalEntityFinder localEntityFinder;
 
 	private TaskManager taskManager;
+	/**
+	 * 转发消息批量发送 未开启时为空
+	 */
+	private EntityForwardBatcher forwardBatcher;
+	/**
+	 * 定时任务 发送累积的转发消息
+	 */
+	private TaskHandle forwardFlushTask;
 
 	@Override
 	protected void onInitialize() throws Exception {
 		taskManager = TaskManager.buildSmallInstance("entityRef");
+		if (ServerSettings.getBooleanProperty(FORWARD_BATCH_KEY, false)) {
+			forwardBatcher = new EntityForwardBatcher(this, FORWARD_BATCH_SIZE);
+		}
 		List<EntityAddressFinder> tmpAddressFinders = ClazzUtil.scanImplAndNewInstances(ClazzUtil.GAME_PACKAGE_NAME,
 				EntityAddressFinder.class);
 		if (tmpAddressFinders != null) {
@@ -95,7 +121,9 @@ public class EntityRefManager extends AbstractService {
 	protected void onStart() throws Exception {
 		startTickTask();
 		startCallbackTimerTask();
+		startForwardFlushTask();
 		registerMessageHandler(ReqEntityForward.ID);
+		registerMessageHandler(ReqEntityForwardBatch.ID);
 		registerMessageHandler(ReqEntityCheck.ID);
 		registerMessageHandler(ResEntityForward.ID);
 	}
@@ -103,10 +131,35 @@ public class EntityRefManager extends AbstractService {
 	@Override
 	protected void onStop() {
 		removeMessageHandler(ReqEntityForward.ID);
+		removeMessageHandler(ReqEntityForwardBatch.ID);
 		removeMessageHandler(ReqEntityCheck.ID);
 		removeMessageHandler(ResEntityForward.ID);
 		cancelTickTask();
 		cancelCallbackTimerTask();
+		cancelForwardFlushTask();
+		if (forwardBatcher != null) {
+			forwardBatcher.flushAll();
+		}
+	}
+
+	private void cancelForwardFlushTask() {
+		if (forwardFlushTask != null) {
+			forwardFlushTask.cancel();
+		}
+		forwardFlushTask = null;
+	}
+
+	/**
+	 * 启动批量转发刷新定时器
+	 */
+	private void startForwardFlushTask() {
+		cancelForwardFlushTask();
+		if (forwardBatcher == null) {
+			return;
+		}
+		forwardFlushTask = taskManager.scheduleTask(() -> {
+			forwardBatcher.flushAll();
+		}, FORWARD_FLUSH_INTERVAL, FORWARD_FLUSH_INTERVAL);
 	}
 
 	private void cancelTickTask() {
@@ -297,6 +350,8 @@ public class EntityRefManager extends AbstractService {
 		int id = message.getId();
 		if (id == ReqEntityForward.ID) {
 			return reqEntityForward((ReqEntityForward) message);
+		} else if (id == ReqEntityForwardBatch.ID) {
+			return reqEntityForwardBatch((ReqEntityForwardBatch) message);
 		} else if (id == ReqEntityCheck.ID) {
 			return reqEntityCheck((ReqEntityCheck) message);
 		} else if (id == ResEntityForward.ID) {
@@ -376,6 +431,63 @@ public class EntityRefManager extends AbstractService {
 		return null;
 	}
 
+	/**
+	 * 发送转发消息到目标服务器<br>
+	 * 开启批量发送时先累积 否则直接发送
+	 * 
+	 * @param forward
+	 */
+	public void sendForward(ReqEntityForward forward) {
+		if (forwardBatcher != null) {
+			forwardBatcher.add(forward);
+			return;
+		}
+		Connection connection = getServerConnection(forward.getDstServerType(), forward.getDstServerId());
+		if (connection == null || !connection.isActive()) {
+			// 未写出 释放消息体缓存
+			forward.release();
+			return;
+		}
+		connection.sendProtocol(forward);
+	}
+
+	/**
+	 * 批量转发消息<br>
+	 * 非当前服时整批继续转发 否则逐条分发到目标实体
+	 * 
+	 * @param request
+	 * @return
+	 */
+	private Protocol reqEntityForwardBatch(ReqEntityForwardBatch request) {
+		int dstServerType = request.getDstServerType();
+		int dstServerId = request.getDstServerId();
+		Connection connection = request.getConnection();
+		if (!isThisServer(dstServerType, dstServerId)) {
+			// 继续转发
+			boolean success = sendMessage2DstServer(dstServerType, dstServerId, request);
+			if (!success) {
+				// 找不到目标服务器 返回来源服务器
+				for (ReqEntityForward forward : request.getForwards()) {
+					if (forward.getForwardMsgSeq() > 0) {
+						connection.sendProtocol(
+								buildFowardErrorResponse(forward, BasicErrorCode.DST_SERVER_CANT_REACH));
+					}
+				}
+			}
+			return null;
+		}
+		for (ReqEntityForward forward : request.getForwards()) {
+			forward.setConnection(connection);
+			try {
+				reqEntityForward(forward);
+			} catch (Exception e) {
+				logger.error("reqEntityForwardBatch forward msg[{}] to entity[{}_{}] error.", forward.getForwardMsgId(),
+						forward.getDstEntityType(), forward.getDstEntityId(), e);
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * 请求转发消息到目标实体
 	 * 
@@ -455,10 +567,9 @@ public class EntityRefManager extends AbstractService {
 		response.setDstEntityId(request.getDstEntityId());
 		ResInnerReturnCode rc = new ResInnerReturnCode();
 		rc.setCode(errorCode);
-		byte[] forwardMsgData = ProtocolUtil.encodeMessage(rc);
 		response.setForwardMsgSeq(-request.getForwardMsgSeq());
 		response.setForwardMsgId(rc.getId());
-		response.setForwardMsgData(forwardMsgData);
+		response.setForwardMsg(rc);
 		return response;
 	}
 
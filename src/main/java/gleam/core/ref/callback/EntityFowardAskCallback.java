@@ -3,7 +3,6 @@ package gleam.core.ref.callback;
 import gleam.communication.Connection;
 import gleam.communication.Protocol;
 import gleam.communication.inner.protocol.ResInnerReturnCode;
-import gleam.communication.protocol.ProtocolUtil;
 import gleam.communication.rpc.ResponseCallback;
 import gleam.core.define.BasicErrorCode;
 import gleam.core.ref.protocol.ReqEntityForward;
@@ -72,8 +71,7 @@ public class EntityFowardAskCallback implements ResponseCallback<Protocol> {
 		response.setDstEntityId(request.getDstEntityId());
 		response.setForwardMsgSeq(-request.getForwardMsgSeq());
 		response.setForwardMsgId(protocol.getId());
-		byte[] forwardMsgData = ProtocolUtil.encodeMessage(protocol);
-		response.setForwardMsgData(forwardMsgData);
+		response.setForwardMsg(protocol);
 		return response;
 	}
 }
@@ -10,7 +10,6 @@ import org.slf4j.LoggerFactory;
 
 import gleam.communication.Connection;
 import gleam.communication.Protocol;
-import gleam.communication.protocol.ProtocolUtil;
 import gleam.communication.rpc.ResponseCallback;
 import gleam.communication.rpc.RpcCallback;
 import gleam.communication.rpc.RpcCallbackCache;
@@ -137,25 +136,28 @@ public class RemoteEntityRef implements EntityRef {
 	}
 
 	private void sendProtocol(Protocol forwardMsg) {
-		int dstServerType = address.getType().getType();
-		int dstServerId = address.getId();
-		Connection connection = EntityRefManager.getInstance().getServerConnection(dstServerType, dstServerId);
-		if (connection == null || !connection.isActive()) {
-			return;
-		}
+		EntityRefManager.getInstance().sendForward(buildForward(forwardMsg));
+	}
+
+	/**
+	 * 构建发往该实体的转发消息
+	 * 
+	 * @param forwardMsg
+	 * @return
+	 */
+	private ReqEntityForward buildForward(Protocol forwardMsg) {
 		Context context = EntityRefManager.getInstance().getOwner();
 		ReqEntityForward protocol = new ReqEntityForward();
 		protocol.setSrcServerType(context.getServerType().getType());
 		protocol.setSrcServerId(context.getServerId());
-		protocol.setDstServerType(dstServerType);
-		protocol.setDstServerId(dstServerId);
+		protocol.setDstServerType(address.getType().getType());
+		protocol.setDstServerId(address.getId());
 		protocol.setDstEntityType(type);
 		protocol.setDstEntityId(id);
 		protocol.setForwardMsgId(forwardMsg.getId());
 		protocol.setForwardMsgSeq(forwardMsg.getSeq());
-		byte[] forwardMsgData = ProtocolUtil.encodeMessage(forwardMsg);
-		protocol.setForwardMsgData(forwardMsgData);
-		connection.sendProtocol(protocol);
+		protocol.setForwardMsg(forwardMsg);
+		return protocol;
 	}
 
 	public EntityAddress getAddress() {
@@ -250,11 +252,8 @@ public class RemoteEntityRef implements EntityRef {
 			waitSendMsgs.clear();
 			return;
 		}
-		Context context = EntityRefManager.getInstance().getOwner();
-		int srcServerType = context.getServerType().getType();
-		int srcServerId = context.getServerId();
-		while (!waitSendMsgs.isEmpty()) {
-			Protocol forwardMsg = waitSendMsgs.peek();
+		Protocol forwardMsg;
+		while ((forwardMsg = waitSendMsgs.poll()) != null) {
 			int seq = forwardMsg.getSeq();
 			if (seq != 0) {
 				RpcCallback<?> callback = callbackCache.getCallback(-seq);
@@ -263,19 +262,7 @@ public class RemoteEntityRef implements EntityRef {
 					continue;
 				}
 			}
-			ReqEntityForward protocol = new ReqEntityForward();
-			protocol.setSrcServerType(srcServerType);
-			protocol.setSrcServerId(srcServerId);
-			protocol.setDstServerType(dstServerType);
-			protocol.setDstServerId(dstServerId);
-			protocol.setDstEntityType(type);
-			protocol.setDstEntityId(id);
-			protocol.setForwardMsgId(forwardMsg.getId());
-			protocol.setForwardMsgSeq(forwardMsg.getSeq());
-			byte[] forwardMsgData = ProtocolUtil.encodeMessage(forwardMsg);
-			protocol.setForwardMsgData(forwardMsgData);
-			connection.sendProtocol(protocol);
-
+			sendProtocol(forwardMsg);
 		}
 	}
 }
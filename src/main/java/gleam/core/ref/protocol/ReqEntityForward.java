@@ -1,6 +1,6 @@
 package gleam.core.ref.protocol;
 
-import gleam.communication.protocol.AbstractProtocol;
+import gleam.communication.protocol.AbstractForwardProtocol;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -9,7 +9,7 @@ import io.netty.buffer.ByteBuf;
  * @author hdh
  *
  */
-public class ReqEntityForward extends AbstractProtocol {
+public class ReqEntityForward extends AbstractForwardProtocol {
 
 	public final static int ID = 902102;
 	/**
@@ -45,10 +45,6 @@ public class ReqEntityForward extends AbstractProtocol {
 	 * 转发的消息id
 	 */
 	private int forwardMsgId;
-	/**
-	 * 转发的消息体
-	 */
-	private byte[] forwardMsgData;
 
 	@Override
 	public void decode(ByteBuf buffer) throws Exception {
@@ -60,13 +56,11 @@ public class ReqEntityForward extends AbstractProtocol {
 		dstEntityId = buffer.readLong();
 		forwardMsgSeq = buffer.readInt();
 		forwardMsgId = buffer.readInt();
-		int forwardMsgDataLength = buffer.readInt();
-		forwardMsgData = new byte[forwardMsgDataLength];
-		buffer.readBytes(forwardMsgData);
+		readForwardMsgData(buffer);
 	}
 
 	@Override
-	public void encode(ByteBuf buffer) {
+	protected void encodeHeader(ByteBuf buffer) {
 		buffer.writeInt(srcServerType);
 		buffer.writeInt(srcServerId);
 		buffer.writeInt(dstServerType);
@@ -75,12 +69,6 @@ public class ReqEntityForward extends AbstractProtocol {
 		buffer.writeLong(dstEntityId);
 		buffer.writeInt(forwardMsgSeq);
 		buffer.writeInt(forwardMsgId);
-		if (forwardMsgData != null) {
-			buffer.writeInt(forwardMsgData.length);
-			buffer.writeBytes(forwardMsgData);
-		} else {
-			buffer.writeInt(0);
-		}
 	}
 
 	@Override
@@ -120,14 +108,6 @@ public class ReqEntityForward extends AbstractProtocol {
 		this.forwardMsgSeq = forwardMsgSeq;
 	}
 
-	public byte[] getForwardMsgData() {
-		return forwardMsgData;
-	}
-
-	public void setForwardMsgData(byte[] forwardMsgData) {
-		this.forwardMsgData = forwardMsgData;
-	}
-
 	public int getSrcServerType() {
 		return srcServerType;
 	}
@@ -0,0 +1,216 @@
+package gleam.core.ref.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gleam.communication.protocol.AbstractProtocol;
+import gleam.communication.protocol.ZeroCopyProtocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * 批量转发消息到目标服务器的实体中<br>
+ * 同一来源服务器发往同一目标服务器的多条{@link ReqEntityForward}合并为1帧<br>
+ * 目标服务器逐条拆出后分发到各实体<br>
+ * 发送端把各转发消息组合到1个缓存{@link #composeForwards(List)} 引用计数即该缓存的引用计数 编码器写出后释放<br>
+ * 接收端不持有缓存 与非池化对象一样引用计数恒为1
+ *
+ * @author hdh
+ *
+ */
+public class ReqEntityForwardBatch extends AbstractProtocol implements ZeroCopyProtocol, ReferenceCounted {
+
+	public final static int ID = 902103;
+	/**
+	 * 目标服务器类型
+	 */
+	private int dstServerType;
+	/**
+	 * 目标服务器id
+	 */
+	private int dstServerId;
+	/**
+	 * 接收端 拆出的转发消息
+	 */
+	private List<ReqEntityForward> forwards = new ArrayList<>();
+	/**
+	 * 发送端 各转发消息编码后的组合缓存<br>
+	 * 每条为头部+消息体切片 消息体不拷贝
+	 */
+	private transient CompositeByteBuf forwardsBuf;
+	/**
+	 * 发送端 组合的转发消息数
+	 */
+	private int forwardNum;
+
+	@Override
+	public void decode(ByteBuf buffer) throws Exception {
+		dstServerType = buffer.readInt();
+		dstServerId = buffer.readInt();
+		int size = buffer.readInt();
+		forwards = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ReqEntityForward forward = new ReqEntityForward();
+			forward.decode(buffer);
+			forwards.add(forward);
+		}
+	}
+
+	@Override
+	public void encode(ByteBuf buffer) {
+		buffer.writeInt(dstServerType);
+		buffer.writeInt(dstServerId);
+		if (forwardsBuf != null) {
+			buffer.writeInt(forwardNum);
+			buffer.writeBytes(forwardsBuf, forwardsBuf.readerIndex(), forwardsBuf.readableBytes());
+		} else if (forwards == null || forwards.isEmpty()) {
+			buffer.writeInt(0);
+		} else {
+			buffer.writeInt(forwards.size());
+			for (ReqEntityForward forward : forwards) {
+				forward.encode(buffer);
+			}
+		}
+	}
+
+	@Override
+	public void encodeTo(CompositeByteBuf out) {
+		ByteBuf header = out.alloc().buffer(12);
+		header.writeInt(dstServerType);
+		header.writeInt(dstServerId);
+		if (forwardsBuf != null) {
+			header.writeInt(forwardNum);
+			out.addComponent(true, header);
+			out.addComponent(true, forwardsBuf.retainedSlice());
+			return;
+		}
+		// 接收端整批继续转发
+		if (forwards == null || forwards.isEmpty()) {
+			header.writeInt(0);
+			out.addComponent(true, header);
+			return;
+		}
+		header.writeInt(forwards.size());
+		out.addComponent(true, header);
+		for (ReqEntityForward forward : forwards) {
+			forward.encodeTo(out);
+		}
+	}
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	public int getDstServerType() {
+		return dstServerType;
+	}
+
+	public void setDstServerType(int dstServerType) {
+		this.dstServerType = dstServerType;
+	}
+
+	public int getDstServerId() {
+		return dstServerId;
+	}
+
+	public void setDstServerId(int dstServerId) {
+		this.dstServerId = dstServerId;
+	}
+
+	public List<ReqEntityForward> getForwards() {
+		return forwards;
+	}
+
+	public void setForwards(List<ReqEntityForward> forwards) {
+		this.forwards = forwards;
+	}
+
+	/**
+	 * 发送端 组合要发送的转发消息<br>
+	 * 各转发消息的消息体以切片加入组合缓存 之后释放转发消息自身的引用<br>
+	 * 调用后不能再使用这些转发消息 无论是否成功
+	 * 
+	 * @param forwards
+	 */
+	public void composeForwards(List<ReqEntityForward> forwards) {
+		CompositeByteBuf buffer = PooledByteBufAllocator.DEFAULT.compositeBuffer(Integer.MAX_VALUE);
+		boolean success = false;
+		try {
+			for (ReqEntityForward forward : forwards) {
+				forward.encodeTo(buffer);
+			}
+			success = true;
+		} finally {
+			for (ReqEntityForward forward : forwards) {
+				forward.release();
+			}
+			if (!success) {
+				buffer.release();
+			}
+		}
+		if (forwardsBuf != null) {
+			forwardsBuf.release();
+		}
+		forwardsBuf = buffer;
+		forwardNum = forwards.size();
+	}
+
+	public CompositeByteBuf getForwardsBuf() {
+		return forwardsBuf;
+	}
+
+	public int getForwardNum() {
+		return forwardNum;
+	}
+
+	@Override
+	public int refCnt() {
+		return forwardsBuf != null ? forwardsBuf.refCnt() : 1;
+	}
+
+	@Override
+	public ReqEntityForwardBatch retain() {
+		if (forwardsBuf != null) {
+			forwardsBuf.retain();
+		}
+		return this;
+	}
+
+	@Override
+	public ReqEntityForwardBatch retain(int increment) {
+		if (forwardsBuf != null) {
+			forwardsBuf.retain(increment);
+		}
+		return this;
+	}
+
+	@Override
+	public ReqEntityForwardBatch touch() {
+		if (forwardsBuf != null) {
+			forwardsBuf.touch();
+		}
+		return this;
+	}
+
+	@Override
+	public ReqEntityForwardBatch touch(Object hint) {
+		if (forwardsBuf != null) {
+			forwardsBuf.touch(hint);
+		}
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return forwardsBuf != null && forwardsBuf.release();
+	}
+
+	@Override
+	public boolean release(int decrement) {
+		return forwardsBuf != null && forwardsBuf.release(decrement);
+	}
+
+}
@@ -48,6 +48,11 @@ public class EntityHandleMsgCallbackTask implements Task, Recoverable {
 		this.futureResult = null;
 	}
 
+	@Override
+	public void discard() {
+		POOL.recycle(this);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public void execute() throws Exception {
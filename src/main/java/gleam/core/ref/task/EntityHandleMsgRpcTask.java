@@ -48,6 +48,11 @@ public class EntityHandleMsgRpcTask implements Task, Recoverable {
 		this.callback = null;
 	}
 
+	@Override
+	public void discard() {
+		POOL.recycle(this);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public void execute() throws Exception {
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import gleam.communication.MessageHandler;
 import gleam.communication.Protocol;
@@ -16,6 +17,7 @@ import gleam.communication.inner.InnerCommunicationService;
 import gleam.communication.inner.auth.InnerIdentity;
 import gleam.config.ServerSettings;
 import gleam.core.AbstractEntity;
+import gleam.core.HandlerMetrics;
 import gleam.core.define.ServiceStatus;
 import gleam.core.event.GameEvent;
 import gleam.core.executor.task.EntityHandleEventTask;
@@ -224,12 +226,13 @@ public abstract class Context extends AbstractEntity<Service> implements Zone<Se
 			logger.warn("receive message[{}],but handler is null.", msgId);
 			throw new NullPointerException("handleProtocol error.msgHandler is null.");
 		}
-		long beginTime = System.currentTimeMillis();
+		long beginTime = System.nanoTime();
 		Protocol response = handler.handleMessage(message);
-		long costTime = System.currentTimeMillis() - beginTime;
-		if (costTime > 100) {
+		long costTime = System.nanoTime() - beginTime;
+		HandlerMetrics.getInstance().recordMessage(msgId, costTime);
+		if (costTime > HandlerMetrics.SLOW_HANDLE_NANOS) {
 			logger.warn("{}[{}] handle message[{}],costTime={}ms", getClass().getSimpleName(), getId(), msgId,
-					costTime);
+					TimeUnit.NANOSECONDS.toMillis(costTime));
 		}
 		return response;
 	}
@@ -5,7 +5,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import gleam.core.actor.Actor;
+import gleam.core.actor.ActorFuture;
+import gleam.core.executor.ActorTaskExecutor;
 import gleam.core.service.AbstractService;
 import gleam.task.TaskManager;
 
@@ -159,6 +164,38 @@ public class SaverManager extends AbstractService implements SaverService {
         return bean;
     }
 
+    /**
+     * 在存储线程池中加载数据 不阻塞调用线程
+     * 
+     * @param <T>
+     * @param beanClazz
+     * @param key
+     * @return
+     */
+    public <T> CompletableFuture<T> loadBeanAsync(Class<T> beanClazz, Object key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadBean(beanClazz, key);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, taskManager.getExecutor());
+    }
+
+    /**
+     * 在存储线程池中加载数据<br>
+     * 加载完成后的回调在该actor线程执行
+     * 
+     * @param <T>
+     * @param actor
+     * @param beanClazz
+     * @param key
+     * @return
+     */
+    public <T> ActorFuture<T> loadBeanAsync(Actor<?> actor, Class<T> beanClazz, Object key) {
+        return ActorTaskExecutor.getInstance().resumeOn(actor, loadBeanAsync(beanClazz, key));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T> void save(T bean, boolean block) throws Exception {
@@ -0,0 +1,561 @@
+package gleam.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gleam.util.ThreadFactoryImpl;
+
+/**
+ * 分层时间轮定时器<br>
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}的延迟队列是加锁的二叉堆 添加/取消为O(log n)<br>
+ * 时间轮添加/取消为O(1) 适合大量短时定时器(buff 冷却 rpc超时)<br>
+ * 4层 每层256格 第0层每格1个tick 上层每格为下层1圈 到期前逐层下沉<br>
+ * 只有1个tick线程推进时间轮 到期的任务交给工作线程池执行<br>
+ * 不使用工作线程池时 到期任务直接在tick线程执行 只适合非常轻量的任务(如投递到其他任务队列)<br>
+ * 精度为1个tick 任务不会早于指定时间执行
+ *
+ * @author hdh
+ *
+ */
+public class HashedWheelScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+	private final static Logger logger = LoggerFactory.getLogger(HashedWheelScheduledExecutor.class);
+
+	private final static int SLOT_BITS = 8;
+
+	private final static int SLOT_NUM = 1 << SLOT_BITS;
+
+	private final static int SLOT_MASK = SLOT_NUM - 1;
+
+	private final static int LEVEL_NUM = 4;
+	/**
+	 * 时间轮可容纳的最大tick数<br>
+	 * 超出的任务先放在最高层 下沉时重新计算位置
+	 */
+	private final static long MAX_TICKS = 1L << (SLOT_BITS * LEVEL_NUM);
+
+	private final static int STATE_RUNNING = 0;
+
+	private final static int STATE_SHUTDOWN = 1;
+
+	private final long tickNanos;
+
+	private final long startTime = System.nanoTime();
+	/**
+	 * 执行到期任务的线程池<br>
+	 * 为null时直接在tick线程执行
+	 */
+	private final ExecutorService workerPool;
+
+	private final String threadPreName;
+	/**
+	 * tick线程<br>
+	 * 第1次添加任务时启动 避免构造中泄露this
+	 */
+	private volatile Thread tickThread;
+
+	private final AtomicInteger state = new AtomicInteger(STATE_RUNNING);
+	/**
+	 * 等待加入时间轮的任务<br>
+	 * 只由tick线程放入时间轮
+	 */
+	private final Queue<WheelTask<?>> pendingAdds = new ConcurrentLinkedQueue<>();
+	/**
+	 * 等待从时间轮移除的已取消任务
+	 */
+	private final Queue<WheelTask<?>> pendingCancels = new ConcurrentLinkedQueue<>();
+	/**
+	 * [层][格]
+	 */
+	private final Bucket[][] wheels = new Bucket[LEVEL_NUM][SLOT_NUM];
+	/**
+	 * 下一个要处理的tick<br>
+	 * 只有tick线程读写
+	 */
+	private long currentTick;
+	/**
+	 * 时间轮中的任务数<br>
+	 * 只有tick线程读写 为0时tick线程休眠到有新任务
+	 */
+	private int wheelTaskNum;
+	/**
+	 * tick线程是否在无限期休眠
+	 */
+	private volatile boolean idle;
+
+	public HashedWheelScheduledExecutor(int poolSize, String threadPreName, long tickMillis) {
+		this(Executors.newFixedThreadPool(poolSize, new ThreadFactoryImpl(threadPreName)), threadPreName, tickMillis);
+	}
+
+	/**
+	 * 到期任务直接在tick线程执行
+	 * 
+	 * @param threadPreName
+	 * @param tickMillis
+	 */
+	public HashedWheelScheduledExecutor(String threadPreName, long tickMillis) {
+		this(null, threadPreName, tickMillis);
+	}
+
+	private HashedWheelScheduledExecutor(ExecutorService workerPool, String threadPreName, long tickMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tickMillis too small:" + tickMillis);
+		}
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		for (int i = 0; i < LEVEL_NUM; i++) {
+			for (int j = 0; j < SLOT_NUM; j++) {
+				wheels[i][j] = new Bucket();
+			}
+		}
+		this.workerPool = workerPool;
+		this.threadPreName = threadPreName;
+	}
+
+	// ---------------------------------------------------------------------
+	// ScheduledExecutorService
+
+	@Override
+	public void execute(Runnable command) {
+		if (workerPool == null) {
+			schedule(command, 0, TimeUnit.MILLISECONDS);
+			return;
+		}
+		workerPool.execute(command);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		WheelTask<Void> task = new WheelTask<>(Executors.callable(command, null), triggerTime(delay, unit), 0);
+		addTask(task);
+		return task;
+	}
+
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+		WheelTask<V> task = new WheelTask<>(callable, triggerTime(delay, unit), 0);
+		addTask(task);
+		return task;
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("period too small:" + period);
+		}
+		WheelTask<Void> task = new WheelTask<>(Executors.callable(command, null), triggerTime(initialDelay, unit),
+				unit.toNanos(period));
+		addTask(task);
+		return task;
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+		if (delay <= 0) {
+			throw new IllegalArgumentException("delay too small:" + delay);
+		}
+		WheelTask<Void> task = new WheelTask<>(Executors.callable(command, null), triggerTime(initialDelay, unit),
+				-unit.toNanos(delay));
+		addTask(task);
+		return task;
+	}
+
+	@Override
+	public void shutdown() {
+		if (state.compareAndSet(STATE_RUNNING, STATE_SHUTDOWN)) {
+			Thread thread = tickThread;
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+		}
+		if (workerPool != null) {
+			workerPool.shutdown();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown();
+		List<Runnable> list = new ArrayList<>();
+		if (workerPool != null) {
+			list.addAll(workerPool.shutdownNow());
+		}
+		return list;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return state.get() != STATE_RUNNING;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return isShutdown() && !isTickAlive() && (workerPool == null || workerPool.isTerminated());
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		Thread thread = tickThread;
+		if (thread != null) {
+			thread.join(Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1));
+		}
+		if (workerPool == null) {
+			return !isTickAlive();
+		}
+		return workerPool.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+	}
+
+	// ---------------------------------------------------------------------
+
+	private long triggerTime(long delay, TimeUnit unit) {
+		return System.nanoTime() + unit.toNanos(Math.max(delay, 0));
+	}
+
+	private void addTask(WheelTask<?> task) {
+		if (isShutdown()) {
+			throw new RejectedExecutionException("executor is shutdown.");
+		}
+		pendingAdds.offer(task);
+		Thread thread = startTickThread();
+		if (idle) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * 启动tick线程<br>
+	 * 已启动时直接返回
+	 * 
+	 * @return
+	 */
+	private Thread startTickThread() {
+		Thread thread = tickThread;
+		if (thread != null) {
+			return thread;
+		}
+		synchronized (this) {
+			thread = tickThread;
+			if (thread == null) {
+				thread = new ThreadFactoryImpl(threadPreName + "-tick").newThread(this::tickLoop);
+				thread.start();
+				tickThread = thread;
+			}
+		}
+		return thread;
+	}
+
+	private boolean isTickAlive() {
+		Thread thread = tickThread;
+		return thread != null && thread.isAlive();
+	}
+
+	/**
+	 * 到期时间对应的tick<br>
+	 * 向上取整 保证不会提前执行
+	 *
+	 * @param time
+	 * @return
+	 */
+	private long toTick(long time) {
+		long elapsed = time - startTime;
+		if (elapsed <= 0) {
+			return 0;
+		}
+		return (elapsed + tickNanos - 1) / tickNanos;
+	}
+
+	private void tickLoop() {
+		while (state.get() == STATE_RUNNING) {
+			try {
+				waitForNextTick();
+				transferCancels();
+				transferAdds();
+				long nowTick = (System.nanoTime() - startTime) / tickNanos;
+				while (currentTick <= nowTick) {
+					processTick(currentTick);
+					currentTick++;
+				}
+			} catch (Throwable e) {
+				logger.error("tick error.", e);
+			}
+		}
+	}
+
+	private void waitForNextTick() {
+		if (wheelTaskNum <= 0 && pendingAdds.isEmpty()) {
+			// 时间轮为空 休眠到有新任务
+			idle = true;
+			if (pendingAdds.isEmpty() && state.get() == STATE_RUNNING) {
+				LockSupport.park(this);
+			}
+			idle = false;
+			if (wheelTaskNum <= 0) {
+				// 没有任务 直接跳过空闲期间的tick
+				currentTick = Math.max(currentTick, (System.nanoTime() - startTime) / tickNanos);
+			}
+			return;
+		}
+		long wakeTime = startTime + currentTick * tickNanos;
+		long sleepTime = wakeTime - System.nanoTime();
+		if (sleepTime > 0) {
+			LockSupport.parkNanos(this, sleepTime);
+		}
+	}
+
+	private void transferAdds() {
+		while (true) {
+			WheelTask<?> task = pendingAdds.poll();
+			if (task == null) {
+				break;
+			}
+			if (task.isCancelled()) {
+				continue;
+			}
+			place(task);
+		}
+	}
+
+	private void transferCancels() {
+		while (true) {
+			WheelTask<?> task = pendingCancels.poll();
+			if (task == null) {
+				break;
+			}
+			Bucket bucket = task.bucket;
+			if (bucket != null) {
+				bucket.remove(task);
+				wheelTaskNum--;
+			}
+		}
+	}
+
+	/**
+	 * 将任务放入对应的层和格
+	 *
+	 * @param task
+	 */
+	private void place(WheelTask<?> task) {
+		long deadline = Math.max(task.deadlineTick, currentTick);
+		long delta = deadline - currentTick;
+		if (delta >= MAX_TICKS) {
+			deadline = currentTick + MAX_TICKS - 1;
+			delta = MAX_TICKS - 1;
+		}
+		int level = 0;
+		while (level < LEVEL_NUM - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+			level++;
+		}
+		int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+		wheels[level][slot].add(task);
+		wheelTaskNum++;
+	}
+
+	private void processTick(long tick) {
+		// 第0层转完1圈时 上层对应格的任务下沉
+		for (int level = 1; level < LEVEL_NUM; level++) {
+			if (((tick >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+				break;
+			}
+			int slot = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+			cascade(wheels[level][slot]);
+		}
+		Bucket bucket = wheels[0][(int) (tick & SLOT_MASK)];
+		WheelTask<?> task = bucket.head;
+		while (task != null) {
+			WheelTask<?> next = task.next;
+			if (task.deadlineTick <= tick) {
+				bucket.remove(task);
+				wheelTaskNum--;
+				if (!task.isCancelled()) {
+					fire(task);
+				}
+			}
+			task = next;
+		}
+	}
+
+	/**
+	 * 将格内的任务重新放置到下层
+	 *
+	 * @param bucket
+	 */
+	private void cascade(Bucket bucket) {
+		WheelTask<?> task = bucket.head;
+		while (task != null) {
+			WheelTask<?> next = task.next;
+			bucket.remove(task);
+			wheelTaskNum--;
+			if (!task.isCancelled()) {
+				place(task);
+			}
+			task = next;
+		}
+	}
+
+	private void fire(WheelTask<?> task) {
+		if (workerPool == null) {
+			// FutureTask会捕获任务异常
+			task.run();
+			return;
+		}
+		try {
+			workerPool.execute(task);
+		} catch (RejectedExecutionException e) {
+			logger.warn("task[{}] rejected.executor is shutdown.", task);
+		}
+	}
+
+	/**
+	 * 周期任务执行完后 重新加入时间轮
+	 *
+	 * @param task
+	 */
+	private void reschedule(WheelTask<?> task) {
+		if (isShutdown()) {
+			task.cancel(false);
+			return;
+		}
+		pendingAdds.offer(task);
+		if (idle) {
+			LockSupport.unpark(tickThread);
+		}
+	}
+
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/**
+	 * 时间轮中的1格 双向链表<br>
+	 * 只有tick线程操作
+	 */
+	private static class Bucket {
+
+		private WheelTask<?> head;
+
+		private WheelTask<?> tail;
+
+		private void add(WheelTask<?> task) {
+			task.bucket = this;
+			task.prev = tail;
+			task.next = null;
+			if (tail == null) {
+				head = task;
+			} else {
+				tail.next = task;
+			}
+			tail = task;
+		}
+
+		private void remove(WheelTask<?> task) {
+			WheelTask<?> prev = task.prev;
+			WheelTask<?> next = task.next;
+			if (prev == null) {
+				head = next;
+			} else {
+				prev.next = next;
+			}
+			if (next == null) {
+				tail = prev;
+			} else {
+				next.prev = prev;
+			}
+			task.prev = null;
+			task.next = null;
+			task.bucket = null;
+		}
+	}
+
+	/**
+	 * 时间轮中的任务
+	 *
+	 * @param <V>
+	 */
+	private class WheelTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+		/**
+		 * 到期时间 nanoTime
+		 */
+		private volatile long time;
+		/**
+		 * 到期tick
+		 */
+		private long deadlineTick;
+		/**
+		 * 周期 纳秒<br>
+		 * &gt;0固定频率 &lt;0固定延迟 0只执行1次
+		 */
+		private final long period;
+
+		private Bucket bucket;
+
+		private WheelTask<?> prev;
+
+		private WheelTask<?> next;
+
+		private WheelTask(Callable<V> callable, long time, long period) {
+			super(callable);
+			this.time = time;
+			this.deadlineTick = toTick(time);
+			this.period = period;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			if (o == this) {
+				return 0;
+			}
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				// 由tick线程从时间轮中移除
+				pendingCancels.offer(this);
+			}
+			return cancelled;
+		}
+
+		@Override
+		public void run() {
+			if (period == 0) {
+				super.run();
+				return;
+			}
+			if (!super.runAndReset()) {
+				return;
+			}
+			if (period > 0) {
+				time += period;
+			} else {
+				time = System.nanoTime() - period;
+			}
+			deadlineTick = toTick(time);
+			reschedule(this);
+		}
+	}
+
+}
@@ -25,4 +25,21 @@ public interface Task {
 		return getClass().getSimpleName();
 	}
 
+	/**
+	 * 优先级<br>
+	 * 在任务队列中执行的先后
+	 * 
+	 * @return
+	 */
+	default TaskPriority getPriority() {
+		return TaskPriority.NORMAL;
+	}
+
+	/**
+	 * 任务未执行就被抛弃(如合并任务被替换)<br>
+	 * 池化的任务重写该方法回收到对象池
+	 */
+	default void discard() {
+	}
+
 }
@@ -23,6 +23,11 @@ public class TaskManager {
         return instance;
     }
 
+    /**
+     * 时间轮默认精度(毫秒)
+     */
+    public final static long DEFAULT_TICK_MILLIS = 1;
+
     private final ScheduledExecutorService executor;
 
     public static TaskManager buildInstance(String threadPreName) {
@@ -36,12 +41,28 @@ public class TaskManager {
     }
 
     public static TaskManager buildInstance(int poolSize, String threadPreName) {
-        return new TaskManager(poolSize, threadPreName);
+        ThreadFactory threadFactory = new ThreadFactoryImpl(threadPreName);
+        return new TaskManager(Executors.newScheduledThreadPool(poolSize, threadFactory));
     }
 
-    private TaskManager(int poolSize, String threadPreName) {
-        ThreadFactory threadFactory = new ThreadFactoryImpl(threadPreName);
-        this.executor = Executors.newScheduledThreadPool(poolSize, threadFactory);
+    /**
+     * 使用时间轮调度的任务管理器<br>
+     * 适合大量短时定时任务 精度为tickMillis
+     * 
+     * @param threadPreName
+     * @return
+     */
+    public static TaskManager buildWheelInstance(String threadPreName) {
+        int poolSize = Runtime.getRuntime().availableProcessors() + 1;
+        return buildWheelInstance(poolSize, threadPreName, DEFAULT_TICK_MILLIS);
+    }
+
+    public static TaskManager buildWheelInstance(int poolSize, String threadPreName, long tickMillis) {
+        return new TaskManager(new HashedWheelScheduledExecutor(poolSize, threadPreName, tickMillis));
+    }
+
+    private TaskManager(ScheduledExecutorService executor) {
+        this.executor = executor;
     }
 
     /**
@@ -0,0 +1,23 @@
+package gleam.task;
+
+/**
+ * 任务优先级<br>
+ * 同1任务队列中 系统任务总是先于普通任务执行
+ * 
+ * @author hdh
+ *
+ */
+public enum TaskPriority {
+	/**
+	 * 系统任务<br>
+	 * 关闭 存储 断线 rpc返回等控制类任务<br>
+	 * 不受队列容量限制 不会被抛弃
+	 */
+	SYSTEM,
+	/**
+	 * 普通任务<br>
+	 * 客户端协议处理等
+	 */
+	NORMAL,
+	;
+}
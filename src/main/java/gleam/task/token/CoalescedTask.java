@@ -0,0 +1,82 @@
+package gleam.task.token;
+
+import gleam.task.Task;
+import gleam.util.pool.ObjectPool;
+import gleam.util.pool.Recoverable;
+
+/**
+ * 合并任务在队列中的占位<br>
+ * 执行时取出该键最后提交的任务执行
+ * 
+ * @author hdh
+ *
+ */
+public class CoalescedTask implements Task, Recoverable {
+
+	private final static ObjectPool<CoalescedTask> POOL = new ObjectPool<CoalescedTask>() {
+
+		@Override
+		protected CoalescedTask newObject() {
+			return new CoalescedTask();
+		}
+	};
+
+	public static CoalescedTask get(TokenTaskQueue queue, Object key) {
+		CoalescedTask task = POOL.obtain();
+		task.setQueue(queue);
+		task.setKey(key);
+		return task;
+	}
+
+	/**
+	 * 回收未入队的占位
+	 * 
+	 * @param task
+	 */
+	public static void recycle(CoalescedTask task) {
+		POOL.recycle(task);
+	}
+
+	private TokenTaskQueue queue;
+
+	private Object key;
+
+	@Override
+	public void recycle() {
+		this.queue = null;
+		this.key = null;
+	}
+
+	@Override
+	public void execute() throws Exception {
+		try {
+			Task task = queue.pollCoalescedTask(key);
+			if (task != null) {
+				task.execute();
+			}
+		} finally {
+			POOL.recycle(this);
+		}
+	}
+
+	@Override
+	public String toDesc() {
+		return getClass().getSimpleName() + ":" + key;
+	}
+
+	public TokenTaskQueue getQueue() {
+		return queue;
+	}
+
+	public void setQueue(TokenTaskQueue queue) {
+		this.queue = queue;
+	}
+
+	public Object getKey() {
+		return key;
+	}
+
+	public void setKey(Object key) {
+		this.key = key;
+	}
+}
@@ -1,21 +1,37 @@
 package gleam.task.token;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import gleam.task.Task;
 
 /**
- * 只是{@link FutureTask}的自定义{@link Task}的实现
+ * 只是{@link FutureTask}的自定义{@link Task}的实现<br>
+ * 指定调度器时 在该标记所属分片的线程中阻塞等待未完成的结果会抛出{@link IllegalStateException}
  * 
  * @author hdh
  *
  * @param <V>
  */
 public class DefaultFutureTask<V> extends FutureTask<V> implements Task {
+    /**
+     * 线程绑定的调度器 用于检查阻塞等待 可为null
+     */
+    private final TaskQueueDispatcher dispatcher;
+
+    private final long token;
 
     public DefaultFutureTask(Callable<V> callable) {
+        this(callable, null, 0);
+    }
+
+    public DefaultFutureTask(Callable<V> callable, TaskQueueDispatcher dispatcher, long token) {
         super(callable);
+        this.dispatcher = dispatcher;
+        this.token = token;
     }
 
     @Override
@@ -23,4 +39,25 @@ public class DefaultFutureTask<V> extends FutureTask<V> implements Task {
         run();
     }
 
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        checkBlocking();
+        return super.get();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        checkBlocking();
+        return super.get(timeout, unit);
+    }
+
+    /**
+     * 该任务只会在所属分片的线程执行 在该线程阻塞等待会永久卡住该分片
+     */
+    private void checkBlocking() {
+        if (dispatcher != null && !isDone() && dispatcher.isShardThread(token)) {
+            throw new IllegalStateException("can not block on token[" + token + "] task in its shard thread.");
+        }
+    }
+
 }
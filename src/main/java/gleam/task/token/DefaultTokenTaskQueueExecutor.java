@@ -1,78 +1,325 @@
 package gleam.task.token;
 
+import java.util.Arrays;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
 import gleam.task.Task;
-import gleam.util.ThreadFactoryImpl;
+import gleam.task.TaskHandle;
+import gleam.task.TaskManager;
+import gleam.task.TaskPriority;
+import gleam.util.collection.ConcurrentLongObjectMap;
 
 public class DefaultTokenTaskQueueExecutor implements TokenTaskQueueExecutor {
 
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 
 	protected final static int DEFAULT_QUEUE_MAX_SIZE = 16;
+	/**
+	 * 默认队列类型
+	 */
+	public final static String DEFAULT_QUEUE_TYPE = "default";
+	/**
+	 * 新建任务队列的默认容量<br>
+	 * 可在提交任务时指定该标记队列的容量
+	 */
+	protected volatile int queueCapacity = DEFAULT_QUEUE_MAX_SIZE;
 
-	protected final static int CACHE_EXPIRED = 30;
 	/**
-	 * 标记,任务队列
+	 * 默认每轮最多执行任务数
+	 */
+	protected final static int DEFAULT_MAX_TASKS_PER_RUN = 64;
+	/**
+	 * 默认每轮最长执行时间
+	 */
+	protected final static long DEFAULT_MAX_NANOS_PER_RUN = TimeUnit.MILLISECONDS.toNanos(10);
+	/**
+	 * 任务队列每轮最多执行任务数<br>
+	 * 超出后让出线程 重新调度该队列 &lt;=0不限制
+	 */
+	protected volatile int maxTasksPerRun = DEFAULT_MAX_TASKS_PER_RUN;
+	/**
+	 * 任务队列每轮最长执行时间(纳秒)<br>
+	 * 超出后让出线程 重新调度该队列 &lt;=0不限制
 	 */
-	protected final Cache<Long, TokenTaskQueue> tokenQueues;
+	protected volatile long maxNanosPerRun = DEFAULT_MAX_NANOS_PER_RUN;
 
-	protected final ScheduledExecutorService executor;
+	/**
+	 * 默认空闲队列移除时间
+	 */
+	protected final static long DEFAULT_IDLE_EXPIRED = TimeUnit.MINUTES.toMillis(30);
+	/**
+	 * 标记,任务队列<br>
+	 * 通过{@link #registerQueue(long, int, String)}创建的队列(如actor的队列)只能由{@link #removeQueue(long)}移除<br>
+	 * 其他标记的队列在首次提交任务时创建 由空闲清理定时器移除
+	 */
+	protected final ConcurrentLongObjectMap<TokenTaskQueue> tokenQueues = new ConcurrentLongObjectMap<>();
+	/**
+	 * 空闲队列清理定时器
+	 */
+	protected TaskHandle idleSweeper;
+
+	/**
+	 * 任务队列统计
+	 */
+	protected final TaskQueueMetrics metrics = new TaskQueueMetrics();
+	/**
+	 * 是否记录统计数据
+	 */
+	protected volatile boolean metricsEnabled = true;
+	/**
+	 * 卡顿监控 未开启时为null
+	 */
+	protected volatile TaskQueueWatchdog watchdog;
+	/**
+	 * 卡顿监控定时器
+	 */
+	protected TaskHandle watchdogTask;
+
+	/**
+	 * 任务队列调度器<br>
+	 * 决定任务队列在哪个线程执行
+	 */
+	protected final TaskQueueDispatcher dispatcher;
 
 	public DefaultTokenTaskQueueExecutor(String threadPrefix) {
-		ThreadFactory threadFactory = new ThreadFactoryImpl(threadPrefix);
-		int cpuNum = Runtime.getRuntime().availableProcessors();
-		this.executor = Executors.newScheduledThreadPool(cpuNum + 1, threadFactory);
-		this.tokenQueues = newQueueCache();
+		this(new PoolTaskQueueDispatcher(threadPrefix));
 	}
 
 	public DefaultTokenTaskQueueExecutor(String threadPrefix, int poolSize) {
-		ThreadFactory threadFactory = new ThreadFactoryImpl(threadPrefix);
-		this.executor = Executors.newScheduledThreadPool(poolSize, threadFactory);
-		this.tokenQueues = newQueueCache();
+		this(new PoolTaskQueueDispatcher(threadPrefix, poolSize));
+	}
+
+	public DefaultTokenTaskQueueExecutor(TaskQueueDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * 启动空闲队列清理<br>
+	 * 创建执行器后由持有者调用 未启动时空闲队列不会被移除
+	 */
+	public void start() {
+		startIdleSweeper(DEFAULT_IDLE_EXPIRED);
 	}
 
 	protected TokenTaskQueue getQueue(long token) {
-		try {
-			TokenTaskQueue queue = tokenQueues.get(token, () -> {
-				return newQueue(token);
-			});
+		return getQueue(token, queueCapacity);
+	}
+
+	/**
+	 * 获取标记对应的任务队列<br>
+	 * 容量只在队列创建时生效
+	 * 
+	 * @param token
+	 * @param capacity
+	 * @return
+	 */
+	protected TokenTaskQueue getQueue(long token, int capacity) {
+		return getQueue(token, capacity, DEFAULT_QUEUE_TYPE);
+	}
+
+	/**
+	 * 获取标记对应的任务队列<br>
+	 * 容量和类型只在队列创建时生效
+	 * 
+	 * @param token
+	 * @param capacity
+	 * @param type     队列类型 用于分类统计
+	 * @return
+	 */
+	protected TokenTaskQueue getQueue(long token, int capacity, String type) {
+		TokenTaskQueue queue = tokenQueues.get(token);
+		if (queue != null) {
 			return queue;
-		} catch (ExecutionException e) {
-			logger.error("getQueue[{}] error.", token, e);
 		}
-		return newQueue(token);
+		return tokenQueues.computeIfAbsent(token, t -> newQueue(t, capacity, type));
 	}
 
-	protected TokenTaskQueue newQueue(long token) {
-		// 队列有默认大小 超出无法处理时 抛弃新任务
-		return new TokenTaskQueue(token, new LinkedBlockingQueue<>(DEFAULT_QUEUE_MAX_SIZE));
+	/**
+	 * 创建标记对应的任务队列<br>
+	 * 已存在则沿用 注册后的队列不会被空闲清理移除
+	 * 
+	 * @param token
+	 * @param capacity
+	 * @param type
+	 */
+	public void registerQueue(long token, int capacity, String type) {
+		getQueue(token, capacity, type).pin();
+	}
+
+	/**
+	 * 移除标记对应的任务队列<br>
+	 * 队列正在执行(如actor在自身任务中销毁)或还有任务时 等执行完且为空时才移除<br>
+	 * 期间该标记提交的任务仍加入该队列 不会创建与之并行执行的新队列
+	 * 
+	 * @param token
+	 */
+	public void removeQueue(long token) {
+		TokenTaskQueue queue = tokenQueues.get(token);
+		if (queue == null) {
+			return;
+		}
+		queue.markRemoving();
+		tryRemoveQueue(queue);
+	}
+
+	/**
+	 * 移除等待移除的队列<br>
+	 * 只在占用调度标记(队列未执行)且为空时移除 否则由队列执行完后再次调用
+	 * 
+	 * @param queue
+	 */
+	void tryRemoveQueue(TokenTaskQueue queue) {
+		if (!queue.markScheduled()) {
+			// 正在执行或等待执行 执行完后再移除
+			return;
+		}
+		long token = queue.getToken();
+		if (queue.isRemoving() && queue.isEmpty() && tokenQueues.remove(token, queue)) {
+			queue.retire();
+		}
+		queue.clearScheduled();
+		if (!queue.isEmpty() && queue.markScheduled()) {
+			// 移除期间又添加了任务
+			dispatcher.dispatch(token, queue);
+		}
 	}
 
-	protected Cache<Long, TokenTaskQueue> newQueueCache() {
-		return CacheBuilder.newBuilder()//
-				.expireAfterAccess(CACHE_EXPIRED, TimeUnit.MINUTES) // 指定时间内未读写过时移除
-				.build();
+	/**
+	 * 任务加入已移除的队列后 将任务转移到该标记当前的队列<br>
+	 * 已移除的队列不再执行任务 避免同标记的2个队列同时执行
+	 * 
+	 * @param tokenQueue
+	 */
+	protected void checkRetired(TokenTaskQueue tokenQueue) {
+		if (tokenQueue.isRetired()) {
+			tokenQueue.tryTransferToCurrent();
+		}
+	}
+
+	/**
+	 * 启动空闲队列清理<br>
+	 * 超过指定时间未执行任务的空队列会被移除
+	 * 
+	 * @param idleTime 毫秒
+	 */
+	public synchronized void startIdleSweeper(long idleTime) {
+		stopIdleSweeper();
+		if (idleTime <= 0) {
+			return;
+		}
+		long interval = Math.max(idleTime / 2, TimeUnit.SECONDS.toMillis(1));
+		idleSweeper = TaskManager.getInstance().scheduleTask(() -> {
+			sweepIdleQueues(idleTime);
+		}, interval, interval);
+	}
+
+	public synchronized void stopIdleSweeper() {
+		if (idleSweeper != null) {
+			idleSweeper.cancel();
+		}
+		idleSweeper = null;
+	}
+
+	/**
+	 * 启动卡顿监控<br>
+	 * 任务执行超过thresholdMillis后 每sampleMillis抓取1次执行线程堆栈
+	 * 
+	 * @param thresholdMillis
+	 * @param sampleMillis
+	 */
+	public synchronized void startWatchdog(long thresholdMillis, long sampleMillis) {
+		stopWatchdog();
+		TaskQueueWatchdog tmpWatchdog = new TaskQueueWatchdog(this, thresholdMillis, sampleMillis);
+		watchdog = tmpWatchdog;
+		watchdogTask = TaskManager.getInstance().scheduleTask(tmpWatchdog::check, sampleMillis, sampleMillis);
+	}
+
+	public synchronized void stopWatchdog() {
+		if (watchdogTask != null) {
+			watchdogTask.cancel();
+		}
+		watchdogTask = null;
+		watchdog = null;
+	}
+
+	/**
+	 * 关闭执行器<br>
+	 * 停止清理和监控定时器 已提交的任务执行完后线程退出
+	 */
+	public void shutdown() {
+		stopIdleSweeper();
+		stopWatchdog();
+		dispatcher.shutdown();
+	}
+
+	public TaskQueueWatchdog getWatchdog() {
+		return watchdog;
+	}
+
+	/**
+	 * 清理空闲队列
+	 * 
+	 * @param idleTime
+	 */
+	protected void sweepIdleQueues(long idleTime) {
+		long limitTime = System.currentTimeMillis() - idleTime;
+		tokenQueues.forEach((token, queue) -> {
+			if (queue.isPinned()) {
+				// 生命周期由actor管理
+				return;
+			}
+			if (queue.getLastRunTime() > limitTime || !queue.isEmpty()) {
+				return;
+			}
+			// 先占用调度标记 避免移除期间被调度
+			if (!queue.markScheduled()) {
+				return;
+			}
+			if (queue.isEmpty() && tokenQueues.remove(token, queue)) {
+				queue.retire();
+			}
+			queue.clearScheduled();
+			if (!queue.isEmpty() && queue.markScheduled()) {
+				// 移除期间又添加了任务
+				dispatcher.dispatch(token, queue);
+			}
+		});
+	}
+
+	protected TokenTaskQueue newQueue(long token, int capacity, String type) {
+		// 队列有默认大小 超出无法处理时 抛弃新任务
+		return new TokenTaskQueue(token, new MpscArrayQueue<>(capacity), this, type);
 	}
 
 	@Override
 	public <V> Future<V> submit(long token, Callable<V> callable) {
-		DefaultFutureTask<V> task = new DefaultFutureTask<>(callable);
-		TokenTaskQueue tokenQueue = getQueue(token);
+		return submit(token, queueCapacity, callable);
+	}
+
+	/**
+	 * 提交任务<br>
+	 * 同{@link #submit(long, Callable)} 若队列不存在 使用指定容量创建
+	 * 
+	 * @param <V>
+	 * @param token
+	 * @param capacity 任务队列容量
+	 * @param callable
+	 * @return
+	 */
+	public <V> Future<V> submit(long token, int capacity, Callable<V> callable) {
+		return submit(getQueue(token, capacity), callable);
+	}
+
+	protected <V> Future<V> submit(TokenTaskQueue tokenQueue, Callable<V> callable) {
+		// 线程绑定调度时 在所属分片线程阻塞等待结果会卡住该分片 返回的future在该线程get时直接抛错
+		DefaultFutureTask<V> task = new DefaultFutureTask<>(callable, dispatcher, tokenQueue.getToken());
 		// 判断是否当前线程正在执行该任务队列
 		Thread runThread = tokenQueue.getRunThread();
 		Thread curThread = Thread.currentThread();
@@ -83,33 +330,216 @@ public class DefaultTokenTaskQueueExecutor implements TokenTaskQueueExecutor {
 			task.execute();
 		} else {
 			tokenQueue.addTask(task);
-			if (!tokenQueue.isRunning()) {
-				executor.submit(tokenQueue);
+			if (tokenQueue.markScheduled()) {
+				dispatcher.dispatch(tokenQueue.getToken(), tokenQueue);
 			}
+			checkRetired(tokenQueue);
 		}
 		return task;
 	}
 
 	@Override
 	public void submit(long token, Task task) {
-		TokenTaskQueue tokenQueue = getQueue(token);
-		tokenQueue.addTask(task);
-		if (!tokenQueue.isRunning()) {
-			executor.submit(tokenQueue);
+		submit(token, queueCapacity, task);
+	}
+
+	/**
+	 * 提交任务<br>
+	 * 若队列不存在 使用指定容量创建
+	 * 
+	 * @param token
+	 * @param capacity 任务队列容量
+	 * @param task
+	 */
+	public void submit(long token, int capacity, Task task) {
+		submit(getQueue(token, capacity), task);
+	}
+
+	protected void submit(TokenTaskQueue tokenQueue, Task task) {
+		submit(tokenQueue, task, task.getPriority());
+	}
+
+	/**
+	 * 以指定优先级提交任务
+	 * 
+	 * @param tokenQueue
+	 * @param task
+	 * @param priority
+	 */
+	protected void submit(TokenTaskQueue tokenQueue, Task task, TaskPriority priority) {
+		tokenQueue.addTask(task, priority);
+		if (tokenQueue.markScheduled()) {
+			dispatcher.dispatch(tokenQueue.getToken(), tokenQueue);
+		}
+		checkRetired(tokenQueue);
+	}
+
+	/**
+	 * 提交多标记任务<br>
+	 * 同时独占所有标记的任务队列后执行 按标记顺序占用 不会死锁 不阻塞线程<br>
+	 * 占用期间各队列暂停执行其他任务
+	 * 
+	 * @param tokens
+	 * @param task
+	 */
+	public void submit(long[] tokens, Task task) {
+		if (tokens == null || tokens.length == 0) {
+			throw new IllegalArgumentException("submit error.tokens is empty.");
+		}
+		if (task == null) {
+			throw new NullPointerException("submit error.task is null.");
+		}
+		long[] sortedTokens = Arrays.stream(tokens).distinct().sorted().toArray();
+		if (sortedTokens.length == 1) {
+			submit(sortedTokens[0], task);
+			return;
+		}
+		TokenTaskQueue[] queues = new TokenTaskQueue[sortedTokens.length];
+		for (int i = 0; i < sortedTokens.length; i++) {
+			queues[i] = getQueue(sortedTokens[i]);
 		}
+		new MultiTokenTask(this, queues, task).start();
+	}
+
+	/**
+	 * 提交多标记任务
+	 * 
+	 * @param <V>
+	 * @param tokens
+	 * @param callable
+	 * @return
+	 * @see #submit(long[], Task)
+	 */
+	public <V> Future<V> submit(long[] tokens, Callable<V> callable) {
+		DefaultFutureTask<V> task = new DefaultFutureTask<>(callable);
+		submit(tokens, task);
+		return task;
+	}
+
+	/**
+	 * 提交可合并的任务<br>
+	 * 若该队列中同键的任务还未执行 只替换为新任务 不再入队<br>
+	 * 适合重算战力 同步属性 标记存储等短时间内重复提交的任务
+	 * 
+	 * @param token
+	 * @param key   合并键
+	 * @param task
+	 * @return 是否新入队 被合并时返回false
+	 */
+	public boolean submitCoalesced(long token, Object key, Task task) {
+		return submitCoalesced(getQueue(token), key, task);
+	}
+
+	protected boolean submitCoalesced(TokenTaskQueue tokenQueue, Object key, Task task) {
+		if (key == null) {
+			throw new NullPointerException("submitCoalesced error.key is null.");
+		}
+		boolean added = tokenQueue.addCoalescedTask(key, task, task.getPriority());
+		if (added && tokenQueue.markScheduled()) {
+			dispatcher.dispatch(tokenQueue.getToken(), tokenQueue);
+		}
+		checkRetired(tokenQueue);
+		return added;
+	}
+
+	/**
+	 * 提交系统任务<br>
+	 * 优先于该队列中的普通任务执行
+	 * 
+	 * @param token
+	 * @param task
+	 */
+	public void submitSystem(long token, Task task) {
+		submit(getQueue(token), task, TaskPriority.SYSTEM);
+	}
+
+	/**
+	 * 在该队列所属分片的线程上提交任务<br>
+	 * 队列空闲时直接在当前线程执行 省去1次调度<br>
+	 * 只能在{@link TaskQueueDispatcher#execute(int, Runnable)}对应分片的任务中调用
+	 * 
+	 * @param tokenQueue
+	 * @param task
+	 * @return 是否入队成功 失败时任务未执行 由调用方回收
+	 */
+	protected boolean submitOnShard(TokenTaskQueue tokenQueue, Task task) {
+		if (!tokenQueue.addTask(task, task.getPriority())) {
+			return false;
+		}
+		if (tokenQueue.markScheduled()) {
+			tokenQueue.run();
+		}
+		return true;
 	}
 
 	@Override
 	public Executor getTokenExecutor(long token) {
-		return new TokenExecutor(token, this);
+		return new TokenExecutor(token, this, TaskPriority.NORMAL);
+	}
+
+	@Override
+	public Executor getTokenExecutor(long token, TaskPriority priority) {
+		return new TokenExecutor(token, this, priority);
 	}
 
-	public Cache<Long, TokenTaskQueue> getTokenQueues() {
+	public ConcurrentLongObjectMap<TokenTaskQueue> getTokenQueues() {
 		return tokenQueues;
 	}
 
+	/**
+	 * 共享线程池<br>
+	 * 非线程池调度时返回null
+	 * 
+	 * @return
+	 */
 	public ScheduledExecutorService getExecutor() {
-		return executor;
+		if (dispatcher instanceof PoolTaskQueueDispatcher poolDispatcher) {
+			return poolDispatcher.getExecutor();
+		}
+		return null;
+	}
+
+	public TaskQueueDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	public TaskQueueMetrics getMetrics() {
+		return metrics;
+	}
+
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+
+	public void setMetricsEnabled(boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+	}
+
+	public int getMaxTasksPerRun() {
+		return maxTasksPerRun;
+	}
+
+	public void setMaxTasksPerRun(int maxTasksPerRun) {
+		this.maxTasksPerRun = maxTasksPerRun;
+	}
+
+	public long getMaxNanosPerRun() {
+		return maxNanosPerRun;
+	}
+
+	public void setMaxNanosPerRun(long maxNanosPerRun) {
+		this.maxNanosPerRun = maxNanosPerRun;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("queueCapacity too small:" + queueCapacity);
+		}
+		this.queueCapacity = queueCapacity;
 	}
 
 	private static class TokenExecutor implements Executor {
@@ -117,15 +547,18 @@ public class DefaultTokenTaskQueueExecutor implements TokenTaskQueueExecutor {
 
 		private TokenTaskQueueExecutor queueExecutor;
 
-		private TokenExecutor(long token, TokenTaskQueueExecutor queueExecutor) {
+		private TaskPriority priority;
+
+		private TokenExecutor(long token, TokenTaskQueueExecutor queueExecutor, TaskPriority priority) {
 			super();
 			this.token = token;
 			this.queueExecutor = queueExecutor;
+			this.priority = priority;
 		}
 
 		@Override
 		public void execute(Runnable command) {
-			RunnableTask task = RunnableTask.get(command);
+			RunnableTask task = RunnableTask.get(command, priority);
 			queueExecutor.submit(token, task);
 		}
 
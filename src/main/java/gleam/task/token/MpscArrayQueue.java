@@ -0,0 +1,184 @@
+package gleam.task.token;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 无锁有界的多生产者单消费者环形队列<br>
+ * 用作{@link TokenTaskQueue}的任务队列(actor的邮箱)<br>
+ * 生产者通过CAS抢占写入位置 消费者只有1个(当前执行该队列的线程) 无需加锁<br>
+ * 容量会向上取整到2的幂 超出容量时{@link #offer(Object)}返回false<br>
+ * 只允许1个线程调用{@link #poll()}/{@link #peek()}
+ *
+ * @author hdh
+ *
+ * @param <E>
+ */
+public class MpscArrayQueue<E> extends AbstractQueue<E> {
+
+	private final static int MAX_CAPACITY = 1 << 30;
+
+	private final int capacity;
+
+	private final int mask;
+
+	private final AtomicReferenceArray<E> buffer;
+	/**
+	 * 元素入队时附带的时间戳<br>
+	 * 在元素发布前写入 消费者读到元素后即可见
+	 */
+	private final long[] stamps;
+	/**
+	 * 最后次{@link #poll()}取出元素的时间戳<br>
+	 * 只有消费者线程读写
+	 */
+	private long lastPollStamp;
+	/**
+	 * 生产者下一个写入位置
+	 */
+	private final AtomicLong producerIndex = new AtomicLong();
+	/**
+	 * 消费者下一个读取位置<br>
+	 * 只有消费者线程修改
+	 */
+	private final AtomicLong consumerIndex = new AtomicLong();
+
+	public MpscArrayQueue(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity too small:" + capacity);
+		}
+		if (capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("capacity too large:" + capacity);
+		}
+		int actualCapacity = 1;
+		while (actualCapacity < capacity) {
+			actualCapacity <<= 1;
+		}
+		this.capacity = actualCapacity;
+		this.mask = actualCapacity - 1;
+		this.buffer = new AtomicReferenceArray<>(actualCapacity);
+		this.stamps = new long[actualCapacity];
+	}
+
+	@Override
+	public boolean offer(E e) {
+		return offer(e, 0);
+	}
+
+	/**
+	 * 入队 附带时间戳<br>
+	 * 出队后可通过{@link #getLastPollStamp()}获取
+	 * 
+	 * @param e
+	 * @param stamp
+	 * @return
+	 */
+	public boolean offer(E e, long stamp) {
+		if (e == null) {
+			throw new NullPointerException("offer error.element is null.");
+		}
+		while (true) {
+			long pIndex = producerIndex.get();
+			if (pIndex - consumerIndex.get() >= capacity) {
+				// 已满
+				return false;
+			}
+			if (producerIndex.compareAndSet(pIndex, pIndex + 1)) {
+				int offset = offset(pIndex);
+				stamps[offset] = stamp;
+				buffer.lazySet(offset, e);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public E poll() {
+		long cIndex = consumerIndex.get();
+		int offset = offset(cIndex);
+		E e = buffer.get(offset);
+		if (e == null) {
+			if (cIndex == producerIndex.get()) {
+				return null;
+			}
+			// 生产者已抢占位置 但还未写入 等待写入完成
+			do {
+				Thread.onSpinWait();
+				e = buffer.get(offset);
+			} while (e == null);
+		}
+		lastPollStamp = stamps[offset];
+		buffer.lazySet(offset, null);
+		consumerIndex.lazySet(cIndex + 1);
+		return e;
+	}
+
+	@Override
+	public E peek() {
+		long cIndex = consumerIndex.get();
+		int offset = offset(cIndex);
+		E e = buffer.get(offset);
+		if (e == null) {
+			if (cIndex == producerIndex.get()) {
+				return null;
+			}
+			do {
+				Thread.onSpinWait();
+				e = buffer.get(offset);
+			} while (e == null);
+		}
+		return e;
+	}
+
+	@Override
+	public int size() {
+		// 先读消费者位置 保证结果不为负数
+		long cIndex = consumerIndex.get();
+		long pIndex = producerIndex.get();
+		long size = pIndex - cIndex;
+		if (size < 0) {
+			return 0;
+		}
+		return (int) Math.min(size, capacity);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return consumerIndex.get() == producerIndex.get();
+	}
+
+	/**
+	 * 弱一致性的迭代器<br>
+	 * 只是当前队列内容的快照 仅用于打印日志等非关键逻辑
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		long cIndex = consumerIndex.get();
+		long pIndex = producerIndex.get();
+		List<E> snapshot = new ArrayList<>((int) Math.min(Math.max(pIndex - cIndex, 0), capacity));
+		for (long i = cIndex; i < pIndex; i++) {
+			E e = buffer.get(offset(i));
+			if (e != null) {
+				snapshot.add(e);
+			}
+		}
+		return snapshot.iterator();
+	}
+
+	public long getLastPollStamp() {
+		return lastPollStamp;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private int offset(long index) {
+		return (int) (index & mask);
+	}
+
+}
@@ -0,0 +1,96 @@
+package gleam.task.token;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gleam.task.Task;
+import gleam.task.TaskPriority;
+
+/**
+ * 多标记任务<br>
+ * 同时独占多个标记的任务队列后执行 如2个玩家交易 玩家和联盟的操作<br>
+ * 按标记从小到大依次占用各队列 保证不会死锁:<br>
+ * 在第i个队列中执行时 暂停该队列 再投递到第i+1个队列<br>
+ * 到达最后1个队列时 其他队列都已暂停 直接执行任务 然后释放并重新调度其他队列<br>
+ * 占用期间不阻塞任何线程<br>
+ * 任务中可直接读写各标记的数据 但不要再向这些标记提交任务并等待结果
+ * 
+ * @author hdh
+ *
+ */
+public class MultiTokenTask implements Task {
+
+	private final static Logger logger = LoggerFactory.getLogger(MultiTokenTask.class);
+
+	private final DefaultTokenTaskQueueExecutor executor;
+	/**
+	 * 按标记排序的任务队列
+	 */
+	private final TokenTaskQueue[] queues;
+
+	private final Task task;
+	/**
+	 * 当前占用到的队列<br>
+	 * 只在当前执行的队列线程中修改 投递到下个队列前写入
+	 */
+	private int index;
+
+	public MultiTokenTask(DefaultTokenTaskQueueExecutor executor, TokenTaskQueue[] queues, Task task) {
+		this.executor = executor;
+		this.queues = queues;
+		this.task = task;
+	}
+
+	/**
+	 * 投递到第1个队列 开始占用
+	 */
+	public void start() {
+		executor.submit(queues[0], this, TaskPriority.SYSTEM);
+	}
+
+	@Override
+	public void execute() throws Exception {
+		if (index < queues.length - 1) {
+			// 暂停当前队列 继续占用下1个队列
+			queues[index].suspend();
+			index++;
+			executor.submit(queues[index], this, TaskPriority.SYSTEM);
+			return;
+		}
+		try {
+			task.execute();
+		} catch (Exception e) {
+			logger.error("tokens[{}] execute task[{}] error.", printTokens(), task.toDesc(), e);
+		} finally {
+			for (int i = 0; i < queues.length - 1; i++) {
+				queues[i].resume();
+			}
+		}
+	}
+
+	private String printTokens() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < queues.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(queues[i].getToken());
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public TaskPriority getPriority() {
+		return TaskPriority.SYSTEM;
+	}
+
+	@Override
+	public String toDesc() {
+		return getClass().getSimpleName() + ":" + task.toDesc();
+	}
+
+	public Task getTask() {
+		return task;
+	}
+
+}
@@ -0,0 +1,67 @@
+package gleam.task.token;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import gleam.util.ThreadFactoryImpl;
+
+/**
+ * 共享线程池调度<br>
+ * 所有任务队列提交到同1个线程池中执行<br>
+ * 同标记的队列不保证每次在同1线程执行
+ * 
+ * @author hdh
+ *
+ */
+public class PoolTaskQueueDispatcher implements TaskQueueDispatcher {
+
+	private final ScheduledExecutorService executor;
+
+	private final int poolSize;
+
+	public PoolTaskQueueDispatcher(String threadPrefix) {
+		this(threadPrefix, Runtime.getRuntime().availableProcessors() + 1);
+	}
+
+	public PoolTaskQueueDispatcher(String threadPrefix, int poolSize) {
+		ThreadFactory threadFactory = new ThreadFactoryImpl(threadPrefix);
+		this.executor = Executors.newScheduledThreadPool(poolSize, threadFactory);
+		this.poolSize = poolSize;
+	}
+
+	@Override
+	public void dispatch(long token, TaskQueue queue) {
+		executor.execute(queue);
+	}
+
+	@Override
+	public void execute(int shardIndex, Runnable command) {
+		executor.execute(command);
+	}
+
+	/**
+	 * 批量投递时按线程数分组 每组由1个线程处理
+	 */
+	@Override
+	public int getShardNum() {
+		return poolSize;
+	}
+
+	@Override
+	public int getShardIndex(long token) {
+		int h = Long.hashCode(token);
+		h ^= (h >>> 16);
+		return Math.floorMod(h, poolSize);
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	public ScheduledExecutorService getExecutor() {
+		return executor;
+	}
+
+}
@@ -1,6 +1,7 @@
 package gleam.task.token;
 
 import gleam.task.Task;
+import gleam.task.TaskPriority;
 import gleam.util.pool.ObjectPool;
 import gleam.util.pool.Recoverable;
 
@@ -15,19 +16,32 @@ public class RunnableTask implements Task, Recoverable {
 	};
 
 	public static RunnableTask get(Runnable runnable) {
+		return get(runnable, TaskPriority.NORMAL);
+	}
+
+	public static RunnableTask get(Runnable runnable, TaskPriority priority) {
 		RunnableTask task = POOL.obtain();
 		task.setRunnable(runnable);
+		task.setPriority(priority);
 		return task;
 	}
 
 	private Runnable runnable;
 
+	private TaskPriority priority = TaskPriority.NORMAL;
+
 	@Override
 	public void recycle() {
 		this.runnable = null;
+		this.priority = TaskPriority.NORMAL;
 
 	}
 
+	@Override
+	public void discard() {
+		POOL.recycle(this);
+	}
+
 	@Override
 	public void execute() throws Exception {
 		runnable.run();
@@ -46,4 +60,13 @@ public class RunnableTask implements Task, Recoverable {
 	public void setRunnable(Runnable runnable) {
 		this.runnable = runnable;
 	}
+
+	@Override
+	public TaskPriority getPriority() {
+		return priority;
+	}
+
+	public void setPriority(TaskPriority priority) {
+		this.priority = priority;
+	}
 }
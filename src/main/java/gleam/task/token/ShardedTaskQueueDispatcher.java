@@ -0,0 +1,150 @@
+package gleam.task.token;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gleam.util.ThreadFactoryImpl;
+
+/**
+ * 线程绑定的分片调度<br>
+ * 根据标记hash到固定的工作线程 每个工作线程有自己的执行循环<br>
+ * 同标记的任务队列总是在同1线程执行 该actor的组件数据能保留在对应核心的缓存中<br>
+ * 代价是同1分片内的actor互相影响 单个actor阻塞会拖慢整个分片
+ * 
+ * @author hdh
+ *
+ */
+public class ShardedTaskQueueDispatcher implements TaskQueueDispatcher {
+
+	private final static Logger logger = LoggerFactory.getLogger(ShardedTaskQueueDispatcher.class);
+
+	private final ShardWorker[] workers;
+
+	public ShardedTaskQueueDispatcher(String threadPrefix) {
+		this(threadPrefix, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ShardedTaskQueueDispatcher(String threadPrefix, int shardNum) {
+		if (shardNum <= 0) {
+			throw new IllegalArgumentException("shardNum too small:" + shardNum);
+		}
+		ThreadFactory threadFactory = new ThreadFactoryImpl(threadPrefix);
+		this.workers = new ShardWorker[shardNum];
+		for (int i = 0; i < shardNum; i++) {
+			ShardWorker worker = new ShardWorker();
+			Thread thread = threadFactory.newThread(worker);
+			worker.thread = thread;
+			workers[i] = worker;
+			thread.start();
+		}
+	}
+
+	@Override
+	public void dispatch(long token, TaskQueue queue) {
+		workers[getShardIndex(token)].addTask(queue);
+	}
+
+	@Override
+	public void execute(int shardIndex, Runnable command) {
+		workers[shardIndex].addTask(command);
+	}
+
+	@Override
+	public int getShardIndex(long token) {
+		int h = Long.hashCode(token);
+		h ^= (h >>> 16);
+		return Math.floorMod(h, workers.length);
+	}
+
+	@Override
+	public int getShardNum() {
+		return workers.length;
+	}
+
+	@Override
+	public boolean isThreadAffine() {
+		return true;
+	}
+
+	@Override
+	public boolean isShardThread(long token) {
+		return Thread.currentThread() == workers[getShardIndex(token)].thread;
+	}
+
+	@Override
+	public void shutdown() {
+		for (ShardWorker worker : workers) {
+			worker.stop();
+		}
+	}
+
+	/**
+	 * 分片对应的工作线程
+	 * 
+	 * @param shardIndex
+	 * @return
+	 */
+	public Thread getShardThread(int shardIndex) {
+		return workers[shardIndex].thread;
+	}
+
+	private static class ShardWorker implements Runnable {
+
+		/**
+		 * 待执行的任务队列或批量任务
+		 */
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private volatile Thread thread;
+		/**
+		 * 工作线程是否休眠中
+		 */
+		private volatile boolean sleeping;
+		/**
+		 * 是否已关闭 执行完剩余任务后退出
+		 */
+		private volatile boolean stopped;
+
+		private void addTask(Runnable task) {
+			tasks.offer(task);
+			if (sleeping) {
+				LockSupport.unpark(thread);
+			}
+		}
+
+		private void stop() {
+			stopped = true;
+			LockSupport.unpark(thread);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				Runnable task = tasks.poll();
+				if (task == null) {
+					if (stopped) {
+						return;
+					}
+					sleeping = true;
+					// 休眠前再检查一次 避免错过唤醒
+					if (tasks.isEmpty() && !stopped) {
+						LockSupport.park(this);
+					}
+					sleeping = false;
+					continue;
+				}
+				try {
+					task.run();
+				} catch (Throwable e) {
+					logger.error("shard[{}] run task error.", thread.getName(), e);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package gleam.task.token;
+
+/**
+ * 任务队列调度器<br>
+ * 决定有任务的队列{@link TaskQueue}由哪个线程执行<br>
+ * 由{@link DefaultTokenTaskQueueExecutor}在队列未执行时调用
+ * 
+ * @author hdh
+ *
+ */
+public interface TaskQueueDispatcher {
+
+	/**
+	 * 安排执行该任务队列
+	 * 
+	 * @param token 队列标记
+	 * @param queue
+	 */
+	void dispatch(long token, TaskQueue queue);
+
+	/**
+	 * 在分片对应的线程执行任务<br>
+	 * 用于批量投递 1次调度处理该分片的多个队列<br>
+	 * 默认在调用线程直接执行 只有1个分片时不会被调用
+	 * 
+	 * @param shardIndex {@link #getShardIndex(long)}
+	 * @param command
+	 */
+	default void execute(int shardIndex, Runnable command) {
+		command.run();
+	}
+
+	/**
+	 * 分片数<br>
+	 * 为1时不进行批量投递
+	 * 
+	 * @return
+	 */
+	default int getShardNum() {
+		return 1;
+	}
+
+	/**
+	 * 标记对应的分片
+	 * 
+	 * @param token
+	 * @return
+	 */
+	default int getShardIndex(long token) {
+		return 0;
+	}
+
+	/**
+	 * 队列是否固定在分片线程中执行<br>
+	 * 为true时在分片线程中直接执行该分片的队列 批量投递才能并行<br>
+	 * 线程池调度中分组只是把任务串行化 不应走批量投递
+	 * 
+	 * @return
+	 */
+	default boolean isThreadAffine() {
+		return false;
+	}
+
+	/**
+	 * 当前线程是否为该标记所属分片的工作线程<br>
+	 * 线程绑定的调度中 在该线程阻塞等待同分片的队列会永久卡住该分片
+	 * 
+	 * @param token
+	 * @return
+	 */
+	default boolean isShardThread(long token) {
+		return false;
+	}
+
+	/**
+	 * 关闭调度器<br>
+	 * 已提交的任务执行完后线程退出
+	 */
+	default void shutdown() {
+	}
+
+}
@@ -0,0 +1,80 @@
+package gleam.task.token;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 任务队列统计<br>
+ * 按队列类型(实体类型)统计队列长度/等待时间/执行时间<br>
+ * 按任务类统计等待时间/执行时间
+ * 
+ * @author hdh
+ *
+ */
+public class TaskQueueMetrics {
+	/**
+	 * 队列类型,统计
+	 */
+	private final ConcurrentMap<String, TaskQueueStat> typeStats = new ConcurrentHashMap<>();
+	/**
+	 * 任务类名,统计<br>
+	 * 只用于打印 执行时通过{@link #taskStats}获取
+	 */
+	private final ConcurrentMap<String, TaskQueueStat> taskNameStats = new ConcurrentHashMap<>();
+
+	private final ClassValue<TaskQueueStat> taskStats = new ClassValue<TaskQueueStat>() {
+
+		@Override
+		protected TaskQueueStat computeValue(Class<?> type) {
+			return taskNameStats.computeIfAbsent(type.getName(), TaskQueueStat::new);
+		}
+	};
+
+	public TaskQueueStat getTypeStat(String type) {
+		return typeStats.computeIfAbsent(type, TaskQueueStat::new);
+	}
+
+	public TaskQueueStat getTaskStat(Class<?> taskClass) {
+		return taskStats.get(taskClass);
+	}
+
+	public void reset() {
+		for (TaskQueueStat stat : typeStats.values()) {
+			stat.reset();
+		}
+		for (TaskQueueStat stat : taskNameStats.values()) {
+			stat.reset();
+		}
+	}
+
+	/**
+	 * 打印统计数据<br>
+	 * 按执行次数倒序
+	 * 
+	 * @return
+	 */
+	public String printStatistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("==== queue type ====\r\n");
+		printStats(sb, typeStats.values());
+		sb.append("==== task class ====\r\n");
+		printStats(sb, taskNameStats.values());
+		return sb.toString();
+	}
+
+	private void printStats(StringBuilder sb, Iterable<TaskQueueStat> stats) {
+		List<TaskQueueStat> list = new ArrayList<>();
+		for (TaskQueueStat stat : stats) {
+			list.add(stat);
+		}
+		Collections.sort(list, Comparator.comparingLong((TaskQueueStat s) -> s.getExecuteTime().getCount()).reversed());
+		for (TaskQueueStat stat : list) {
+			sb.append(stat.print());
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package gleam.task.token;
+
+import gleam.util.metric.Histogram;
+
+/**
+ * 任务队列统计数据<br>
+ * 按实体类型或任务类分别统计
+ * 
+ * @author hdh
+ *
+ */
+public class TaskQueueStat {
+
+	private final String name;
+	/**
+	 * 添加任务时的队列长度
+	 */
+	private final Histogram queueDepth = new Histogram();
+	/**
+	 * 任务从入队到开始执行的等待时间(纳秒)
+	 */
+	private final Histogram waitTime = new Histogram();
+	/**
+	 * 任务执行时间(纳秒)
+	 */
+	private final Histogram executeTime = new Histogram();
+
+	public TaskQueueStat(String name) {
+		this.name = name;
+	}
+
+	public void recordQueueDepth(int depth) {
+		queueDepth.record(depth);
+	}
+
+	public void recordExecute(long waitNanos, long executeNanos) {
+		if (waitNanos >= 0) {
+			waitTime.record(waitNanos);
+		}
+		executeTime.record(executeNanos);
+	}
+
+	public void reset() {
+		queueDepth.reset();
+		waitTime.reset();
+		executeTime.reset();
+	}
+
+	public String print() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(name).append("\r\n");
+		if (queueDepth.getCount() > 0) {
+			sb.append("  depth: ").append(queueDepth.print()).append("\r\n");
+		}
+		sb.append("  wait: ").append(waitTime.printNanos()).append("\r\n");
+		sb.append("  execute: ").append(executeTime.printNanos()).append("\r\n");
+		return sb.toString();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Histogram getQueueDepth() {
+		return queueDepth;
+	}
+
+	public Histogram getWaitTime() {
+		return waitTime;
+	}
+
+	public Histogram getExecuteTime() {
+		return executeTime;
+	}
+
+}
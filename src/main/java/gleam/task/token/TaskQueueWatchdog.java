@@ -0,0 +1,254 @@
+package gleam.task.token;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gleam.task.Task;
+
+/**
+ * 任务队列卡顿监控<br>
+ * 定时检查正在执行的队列的当前任务 执行时间超出阈值时 每隔采样间隔抓取1次执行线程的堆栈<br>
+ * 任务结束后输出日志 并保留最近的记录用于调试接口查看<br>
+ * 可以定位执行中卡顿发生的位置(锁等待 阻塞io等)
+ *
+ * @author hdh
+ *
+ */
+public class TaskQueueWatchdog {
+
+	private final static Logger logger = LoggerFactory.getLogger(TaskQueueWatchdog.class);
+	/**
+	 * 每次卡顿最多采样次数
+	 */
+	private final static int MAX_SAMPLES = 10;
+	/**
+	 * 保留的最近卡顿记录数
+	 */
+	private final static int MAX_HISTORY = 32;
+
+	private final DefaultTokenTaskQueueExecutor executor;
+	/**
+	 * 卡顿阈值(纳秒)
+	 */
+	private final long thresholdNanos;
+	/**
+	 * 采样间隔(纳秒)
+	 */
+	private final long sampleNanos;
+	/**
+	 * 执行中的卡顿<br>
+	 * 只在检查线程中读写
+	 */
+	private final Map<TokenTaskQueue, Stall> inFlight = new HashMap<>();
+	/**
+	 * 正在执行的队列<br>
+	 * 检查时只扫描该集合 不遍历全部队列
+	 */
+	private final Set<TokenTaskQueue> running = ConcurrentHashMap.newKeySet();
+	/**
+	 * 最近已结束的卡顿
+	 */
+	private final Deque<Stall> history = new ArrayDeque<>();
+
+	/**
+	 *
+	 * @param executor
+	 * @param thresholdMillis 卡顿阈值(毫秒)
+	 * @param sampleMillis    采样间隔(毫秒)
+	 */
+	public TaskQueueWatchdog(DefaultTokenTaskQueueExecutor executor, long thresholdMillis, long sampleMillis) {
+		if (thresholdMillis <= 0) {
+			throw new IllegalArgumentException("thresholdMillis too small:" + thresholdMillis);
+		}
+		if (sampleMillis <= 0) {
+			throw new IllegalArgumentException("sampleMillis too small:" + sampleMillis);
+		}
+		this.executor = executor;
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.sampleNanos = TimeUnit.MILLISECONDS.toNanos(sampleMillis);
+	}
+
+	/**
+	 * 队列开始执行
+	 * 
+	 * @param queue
+	 */
+	void register(TokenTaskQueue queue) {
+		running.add(queue);
+	}
+
+	/**
+	 * 队列执行结束
+	 * 
+	 * @param queue
+	 */
+	void unregister(TokenTaskQueue queue) {
+		running.remove(queue);
+	}
+
+	/**
+	 * 检查1次<br>
+	 * 由定时任务按采样间隔调用 不能并发调用
+	 */
+	public synchronized void check() {
+		long now = System.nanoTime();
+		for (TokenTaskQueue queue : running) {
+			long startTime = queue.getCurrentTaskStartTime();
+			if (startTime == 0 || now - startTime < thresholdNanos) {
+				continue;
+			}
+			Task task = queue.getCurrentTask();
+			Thread thread = queue.getRunThread();
+			if (task == null || thread == null || startTime != queue.getCurrentTaskStartTime()) {
+				// 读取期间任务已结束
+				continue;
+			}
+			Stall stall = inFlight.get(queue);
+			if (stall != null && stall.startTime != startTime) {
+				// 上个卡顿任务已结束 当前是新的卡顿任务
+				finish(inFlight.remove(queue));
+				stall = null;
+			}
+			if (stall == null) {
+				stall = new Stall(queue.getToken(), queue.getType(), task.toDesc(), thread.getName(), startTime);
+				inFlight.put(queue, stall);
+			}
+			if (stall.samples.size() < MAX_SAMPLES && now - stall.lastSampleTime >= sampleNanos) {
+				StackTraceElement[] stackTrace = thread.getStackTrace();
+				if (startTime == queue.getCurrentTaskStartTime()) {
+					stall.samples.add(new Sample(now - startTime, stackTrace));
+					stall.lastSampleTime = now;
+				}
+			}
+		}
+		// 已结束的卡顿
+		Iterator<Map.Entry<TokenTaskQueue, Stall>> iterator = inFlight.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<TokenTaskQueue, Stall> entry = iterator.next();
+			if (entry.getKey().getCurrentTaskStartTime() != entry.getValue().startTime) {
+				iterator.remove();
+				finish(entry.getValue());
+			}
+		}
+	}
+
+	private void finish(Stall stall) {
+		stall.costTime = System.nanoTime() - stall.startTime;
+		logger.warn("token[{}] task[{}] stalled.{}", stall.token, stall.taskDesc, stall.print());
+		history.addLast(stall);
+		while (history.size() > MAX_HISTORY) {
+			history.removeFirst();
+		}
+	}
+
+	/**
+	 * 打印执行中和最近的卡顿
+	 *
+	 * @return
+	 */
+	public synchronized String printStatistics() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("==== stall in flight ====\r\n");
+		for (Stall stall : inFlight.values()) {
+			sb.append(stall.print());
+		}
+		sb.append("==== stall history ====\r\n");
+		List<Stall> list = new ArrayList<>(history);
+		for (int i = list.size() - 1; i >= 0; i--) {
+			sb.append(list.get(i).print());
+		}
+		return sb.toString();
+	}
+
+	public synchronized void reset() {
+		history.clear();
+	}
+
+	/**
+	 * 1次卡顿
+	 */
+	private static class Stall {
+
+		private final long token;
+
+		private final String type;
+
+		private final String taskDesc;
+
+		private final String threadName;
+
+		private final long startTime;
+		/**
+		 * 任务开始执行时间(毫秒)
+		 */
+		private final long beginTimeMillis;
+
+		private final List<Sample> samples = new ArrayList<>(MAX_SAMPLES);
+
+		private long lastSampleTime;
+		/**
+		 * 结束时的执行时间 执行中为0<br>
+		 * 在检查时发现结束 最多多出1个采样间隔
+		 */
+		private long costTime;
+
+		private Stall(long token, String type, String taskDesc, String threadName, long startTime) {
+			this.token = token;
+			this.type = type;
+			this.taskDesc = taskDesc;
+			this.threadName = threadName;
+			this.startTime = startTime;
+			this.beginTimeMillis = System.currentTimeMillis()
+					- TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		}
+
+		private String print() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("\r\n").append(type).append('[').append(token).append("] task[").append(taskDesc);
+			sb.append("] thread[").append(threadName).append("] begin[").append(beginTimeMillis).append(']');
+			if (costTime > 0) {
+				sb.append(" cost[").append(TimeUnit.NANOSECONDS.toMillis(costTime)).append("ms]");
+			} else {
+				sb.append(" running[").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime))
+						.append("ms]");
+			}
+			sb.append("\r\n");
+			for (Sample sample : samples) {
+				sb.append("  at ").append(TimeUnit.NANOSECONDS.toMillis(sample.elapsed)).append("ms:\r\n");
+				for (StackTraceElement element : sample.stackTrace) {
+					sb.append("    ").append(element).append("\r\n");
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * 1次堆栈采样
+	 */
+	private static class Sample {
+		/**
+		 * 采样时任务已执行时间
+		 */
+		private final long elapsed;
+
+		private final StackTraceElement[] stackTrace;
+
+		private Sample(long elapsed, StackTraceElement[] stackTrace) {
+			this.elapsed = elapsed;
+			this.stackTrace = stackTrace;
+		}
+	}
+
+}
@@ -1,16 +1,21 @@
 package gleam.task.token;
 
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gleam.task.Task;
+import gleam.task.TaskPriority;
 
 /**
  * 带标记的队列 <br>
- *
+ * 分为系统和普通2个通道 每次取任务时先取系统通道<br>
+ * 普通通道积压时 rpc返回 存储等控制类任务也不会被延迟
  *
  * @author hdh
  *
@@ -21,23 +26,148 @@ public class TokenTaskQueue implements TaskQueue {
 
 	private final long token;
 
+	/**
+	 * 普通任务
+	 */
 	private final Queue<Task> tasks;
+	/**
+	 * 系统任务<br>
+	 * 数量少 不限容量 总是先于普通任务执行
+	 */
+	private final Queue<Task> systemTasks = new ConcurrentLinkedQueue<>();
+	/**
+	 * 合并键,等待执行的合并任务<br>
+	 * 首次使用时创建
+	 */
+	private volatile ConcurrentMap<Object, Task> coalescedTasks;
+	/**
+	 * 所属执行器<br>
+	 * 提供每轮执行预算 和超出预算后的重新调度<br>
+	 * 为空时不限制预算
+	 */
+	private final DefaultTokenTaskQueueExecutor executor;
+	/**
+	 * 队列类型(如实体类型)<br>
+	 * 用于分类统计
+	 */
+	private final String type;
+	/**
+	 * 该队列类型的统计数据
+	 */
+	private final TaskQueueStat typeStat;
+	/**
+	 * 支持记录入队时间的任务队列<br>
+	 * 非{@link MpscArrayQueue}时为空 不统计等待时间
+	 */
+	private final MpscArrayQueue<Task> mailbox;
+	/**
+	 * 普通任务数降到低水位时的回调<br>
+	 * 没有回调时为null 执行时不检查
+	 */
+	private volatile Queue<DrainListener> drainListeners;
 
 	private volatile AtomicBoolean running = new AtomicBoolean();
+	/**
+	 * 是否已提交给调度器等待执行<br>
+	 * 保证同一时间只有1次调度 避免队列在执行器中重复排队
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	/**
+	 * 是否由actor注册<br>
+	 * 生命周期由actor管理 不会被空闲清理移除
+	 */
+	private volatile boolean pinned;
+	/**
+	 * 是否等待移除<br>
+	 * 调用{@link DefaultTokenTaskQueueExecutor#removeQueue(long)}时队列可能正在执行 等执行完且为空时才从执行器中移除<br>
+	 * 期间提交的任务仍加入该队列 按顺序执行
+	 */
+	private volatile boolean removing;
+	/**
+	 * 是否已从执行器中移除<br>
+	 * 只在队列空闲且为空时移除 之后通过旧引用加入的任务全部转移到该标记当前的队列 已移除的队列不再执行任务<br>
+	 * 保证同标记同一时间只有1个队列在执行
+	 */
+	private volatile boolean retired;
+	/**
+	 * 是否被多标记任务占用<br>
+	 * 占用期间不执行任务 保持调度标记 释放时由释放者重新调度
+	 */
+	private volatile boolean suspended;
 	/**
 	 * 当前的执行线程
 	 */
 	private volatile Thread runThread;
+	/**
+	 * 当前正在执行的任务<br>
+	 * 开启卡顿监控时记录
+	 */
+	private volatile Task currentTask;
+	/**
+	 * 当前任务开始执行时间(nanoTime) 未执行时为0<br>
+	 * 先写任务再写时间 结束时先清除时间
+	 */
+	private volatile long currentTaskStartTime;
+	/**
+	 * 最后次执行完成时间<br>
+	 * 用于清理空闲队列
+	 */
+	private volatile long lastRunTime = System.currentTimeMillis();
 
 	public TokenTaskQueue(long token, Queue<Task> tasks) {
+		this(token, tasks, null);
+	}
+
+	public TokenTaskQueue(long token, Queue<Task> tasks, DefaultTokenTaskQueueExecutor executor) {
+		this(token, tasks, executor, DefaultTokenTaskQueueExecutor.DEFAULT_QUEUE_TYPE);
+	}
+
+	public TokenTaskQueue(long token, Queue<Task> tasks, DefaultTokenTaskQueueExecutor executor, String type) {
 		super();
 		this.token = token;
 		this.tasks = tasks;
+		this.executor = executor;
+		this.type = type;
+		this.typeStat = executor != null ? executor.getMetrics().getTypeStat(type) : null;
+		this.mailbox = tasks instanceof MpscArrayQueue<Task> mq ? mq : null;
+	}
+
+	/**
+	 * 是否记录统计数据
+	 * 
+	 * @return
+	 */
+	private boolean isMetricsEnabled() {
+		return typeStat != null && executor.isMetricsEnabled();
 	}
 
 	@Override
 	public void addTask(Task task) {
-		boolean flag = this.tasks.offer(task);
+		addTask(task, task.getPriority());
+	}
+
+	/**
+	 * 按指定优先级添加任务
+	 * 
+	 * @param task
+	 * @param priority
+	 * @return 队列已满时返回false
+	 */
+	public boolean addTask(Task task, TaskPriority priority) {
+		if (priority == TaskPriority.SYSTEM) {
+			return systemTasks.offer(task);
+		}
+		boolean flag;
+		if (isMetricsEnabled()) {
+			typeStat.recordQueueDepth(tasks.size());
+			if (mailbox != null) {
+				flag = mailbox.offer(task, System.nanoTime());
+			} else {
+				flag = tasks.offer(task);
+			}
+		} else {
+			flag = tasks.offer(task);
+		}
 		if (!flag) {
 			StringBuffer sb = new StringBuffer();
 			try {
@@ -55,21 +185,249 @@ public class TokenTaskQueue implements TaskQueue {
 			logger.error("token[{}] add task[{}] error.runThread[{}] queue[{}]", token, task.toDesc(),
 					getRunThreadName(), sb.toString());
 		}
+		return flag;
+	}
+
+	/**
+	 * 添加合并任务<br>
+	 * 若同键的任务还在等待执行 只替换为新任务 不再入队<br>
+	 * 执行时总是执行最后提交的任务<br>
+	 * 被替换或入队失败的任务调用{@link Task#discard()} 提交后调用方不应再回收该任务
+	 * 
+	 * @param key
+	 * @param task
+	 * @param priority
+	 * @return 是否新入队 被合并时返回false
+	 */
+	public boolean addCoalescedTask(Object key, Task task, TaskPriority priority) {
+		ConcurrentMap<Object, Task> pending = getCoalescedTasks();
+		Task replaced = pending.put(key, task);
+		if (replaced != null) {
+			// 已有等待执行的同键任务 被替换的任务不再执行
+			replaced.discard();
+			return false;
+		}
+		CoalescedTask coalescedTask = CoalescedTask.get(this, key);
+		if (!addTask(coalescedTask, priority)) {
+			// 期间提交的同键任务也只是替换了值 一并移除 否则该键不会再入队
+			Task removed = pending.remove(key);
+			if (removed != null) {
+				removed.discard();
+			}
+			CoalescedTask.recycle(coalescedTask);
+			return false;
+		}
+		return true;
 	}
 
+	/**
+	 * 取出等待执行的合并任务<br>
+	 * 在执行前移除 执行期间提交的同键任务会重新入队
+	 * 
+	 * @param key
+	 * @return
+	 */
+	Task pollCoalescedTask(Object key) {
+		ConcurrentMap<Object, Task> pending = coalescedTasks;
+		if (pending == null) {
+			return null;
+		}
+		return pending.remove(key);
+	}
+
+	/**
+	 * 添加邮箱排空回调<br>
+	 * 普通任务数不超过lowWatermark时回调1次 之后自动移除<br>
+	 * 在执行该队列的线程中回调 添加时已不超过水位则直接在当前线程回调
+	 * 
+	 * @param lowWatermark
+	 * @param listener
+	 */
+	public void addDrainListener(int lowWatermark, Runnable listener) {
+		Queue<DrainListener> listeners = drainListeners;
+		if (listeners == null) {
+			synchronized (this) {
+				listeners = drainListeners;
+				if (listeners == null) {
+					listeners = new ConcurrentLinkedQueue<>();
+					drainListeners = listeners;
+				}
+			}
+		}
+		DrainListener drainListener = new DrainListener(lowWatermark, listener);
+		listeners.offer(drainListener);
+		// 添加前已排空 执行线程可能不会再检查
+		if (tasks.size() <= lowWatermark && listeners.remove(drainListener)) {
+			drainListener.fire(token);
+		}
+	}
+
+	private void fireDrainListeners() {
+		Queue<DrainListener> listeners = drainListeners;
+		if (listeners.isEmpty()) {
+			return;
+		}
+		int size = tasks.size();
+		for (DrainListener listener : listeners) {
+			// 移除成功的线程负责回调 保证只回调1次
+			if (size <= listener.lowWatermark && listeners.remove(listener)) {
+				listener.fire(token);
+			}
+		}
+	}
+
+	private ConcurrentMap<Object, Task> getCoalescedTasks() {
+		ConcurrentMap<Object, Task> pending = coalescedTasks;
+		if (pending == null) {
+			synchronized (this) {
+				pending = coalescedTasks;
+				if (pending == null) {
+					pending = new ConcurrentHashMap<>();
+					coalescedTasks = pending;
+				}
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * 执行队列中的任务<br>
+	 * 先执行系统任务 再执行普通任务<br>
+	 * 执行个数或执行时间超出预算时停止 剩余任务留到下一轮<br>
+	 * 开启卡顿监控时 执行期间登记到监控的执行中队列集合
+	 */
 	private void executeTasks() {
+		TaskQueueWatchdog watchdog = executor != null ? executor.getWatchdog() : null;
+		if (watchdog == null) {
+			executeTasks(false);
+			return;
+		}
+		watchdog.register(this);
+		try {
+			executeTasks(true);
+		} finally {
+			watchdog.unregister(this);
+		}
+	}
+
+	private void executeTasks(boolean watched) {
+		int maxTasks = 0;
+		long maxNanos = 0;
+		if (executor != null) {
+			maxTasks = executor.getMaxTasksPerRun();
+			maxNanos = executor.getMaxNanosPerRun();
+		}
+		long beginTime = maxNanos > 0 ? System.nanoTime() : 0;
+		int count = 0;
 		while (true) {
-			Task task = tasks.poll();
-			if (task == null) {
+			if (suspended) {
+				break;
+			}
+			if (retired) {
+				transferToCurrent();
 				break;
 			}
+			boolean system = true;
+			Task task = systemTasks.poll();
+			if (task == null) {
+				system = false;
+				task = tasks.poll();
+				if (task == null) {
+					break;
+				}
+				if (drainListeners != null) {
+					fireDrainListeners();
+				}
+			}
+			long startTime = 0;
+			boolean metrics = isMetricsEnabled();
+			if (metrics || watched) {
+				startTime = System.nanoTime();
+			}
+			if (watched) {
+				currentTask = task;
+				currentTaskStartTime = startTime;
+			}
 			try {
 				task.execute();
 			} catch (Exception e) {
 				logger.error("token[{}] execute task[{}] error.", token, task.toDesc(), e);
+			} finally {
+				if (watched) {
+					currentTaskStartTime = 0;
+					currentTask = null;
+				}
+			}
+			if (metrics) {
+				recordExecute(task, startTime, system);
+			}
+			count++;
+			if (maxTasks > 0 && count >= maxTasks) {
+				break;
+			}
+			if (maxNanos > 0 && System.nanoTime() - beginTime >= maxNanos) {
+				break;
 			}
 		}
+	}
 
+	/**
+	 * 已移除的队列 将剩余任务转移到该标记当前的队列 不存在时创建<br>
+	 * 只能在持有执行标记时调用
+	 * 
+	 * @return 是否已转移
+	 */
+	private boolean transferToCurrent() {
+		if (executor == null) {
+			return false;
+		}
+		int capacity = mailbox != null ? mailbox.getCapacity() : executor.getQueueCapacity();
+		TokenTaskQueue current = executor.getQueue(token, capacity, type);
+		if (current == this) {
+			return false;
+		}
+		Task task;
+		while ((task = systemTasks.poll()) != null) {
+			current.addTask(task, TaskPriority.SYSTEM);
+		}
+		while ((task = tasks.poll()) != null) {
+			current.addTask(task, TaskPriority.NORMAL);
+		}
+		if (current.markScheduled()) {
+			executor.getDispatcher().dispatch(token, current);
+		}
+		return true;
+	}
+
+	/**
+	 * 尝试将剩余任务转移到该标记当前的队列<br>
+	 * 队列正在执行时由执行线程负责转移
+	 * 
+	 * @return 是否已转移
+	 */
+	boolean tryTransferToCurrent() {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			return transferToCurrent();
+		} finally {
+			running.set(false);
+		}
+	}
+
+	private void recordExecute(Task task, long startTime, boolean system) {
+		long endTime = System.nanoTime();
+		long waitTime = -1;
+		if (mailbox != null && !system) {
+			long enqueueTime = mailbox.getLastPollStamp();
+			if (enqueueTime != 0) {
+				waitTime = startTime - enqueueTime;
+			}
+		}
+		long executeTime = endTime - startTime;
+		typeStat.recordExecute(waitTime, executeTime);
+		executor.getMetrics().getTaskStat(task.getClass()).recordExecute(waitTime, executeTime);
 	}
 
 	public AtomicBoolean getRunning() {
@@ -81,6 +439,20 @@ public class TokenTaskQueue implements TaskQueue {
 		return runThread;
 	}
 
+	/**
+	 * 当前线程是否会执行该队列<br>
+	 * 正在执行该队列的线程 或线程绑定调度中该标记所属分片的工作线程<br>
+	 * 在这些线程中阻塞等待该队列投递的结果会死锁
+	 * 
+	 * @return
+	 */
+	public boolean isQueueThread() {
+		if (runThread == Thread.currentThread()) {
+			return true;
+		}
+		return executor != null && executor.getDispatcher().isShardThread(token);
+	}
+
 	/**
 	 * 获取当前在执行任务的线程名
 	 * 
@@ -98,29 +470,167 @@ public class TokenTaskQueue implements TaskQueue {
 		return tasks;
 	}
 
+	/**
+	 * 普通任务队列容量<br>
+	 * 无界队列返回{@link Integer#MAX_VALUE}
+	 * 
+	 * @return
+	 */
+	public int getCapacity() {
+		if (mailbox != null) {
+			return mailbox.getCapacity();
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	public Queue<Task> getSystemTasks() {
+		return systemTasks;
+	}
+
+	/**
+	 * 系统和普通任务都为空
+	 * 
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return systemTasks.isEmpty() && tasks.isEmpty();
+	}
+
+	/**
+	 * 系统和普通任务总数
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return systemTasks.size() + tasks.size();
+	}
+
 	public long getToken() {
 		return token;
 	}
 
+	public String getType() {
+		return type;
+	}
+
 	public boolean isRunning() {
 		return running.get();
 	}
 
+	/**
+	 * 标记为已调度<br>
+	 * 返回true时 调用者需负责将该队列提交给调度器
+	 * 
+	 * @return
+	 */
+	public boolean markScheduled() {
+		return scheduled.compareAndSet(false, true);
+	}
+
+	public boolean isScheduled() {
+		return scheduled.get();
+	}
+
+	void clearScheduled() {
+		scheduled.set(false);
+	}
+
+	public Task getCurrentTask() {
+		return currentTask;
+	}
+
+	public long getCurrentTaskStartTime() {
+		return currentTaskStartTime;
+	}
+
+	/**
+	 * 占用该队列<br>
+	 * 只能在该队列的执行线程中调用 当前任务结束后暂停执行
+	 */
+	void suspend() {
+		suspended = true;
+	}
+
+	/**
+	 * 释放占用 并重新调度该队列
+	 */
+	void resume() {
+		suspended = false;
+		executor.getDispatcher().dispatch(token, this);
+	}
+
+	public boolean isSuspended() {
+		return suspended;
+	}
+
+	public boolean isPinned() {
+		return pinned;
+	}
+
+	/**
+	 * 由actor注册 取消等待移除
+	 */
+	void pin() {
+		pinned = true;
+		removing = false;
+	}
+
+	public boolean isRemoving() {
+		return removing;
+	}
+
+	void markRemoving() {
+		removing = true;
+	}
+
+	public boolean isRetired() {
+		return retired;
+	}
+
+	void retire() {
+		retired = true;
+	}
+
+	public long getLastRunTime() {
+		return lastRunTime;
+	}
+
 	@Override
 	public void run() {
-		if (!running.compareAndSet(false, true)) {
-			return;
-		}
-		try {
-			runThread = Thread.currentThread();
-			executeTasks();
-		} finally {
-			runThread = null;
-			running.set(false);
-		}
-		if (!tasks.isEmpty()) {
-			// 执行完后 又添加了新任务
-			run();
+		while (true) {
+			if (!running.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				runThread = Thread.currentThread();
+				executeTasks();
+			} finally {
+				runThread = null;
+				lastRunTime = System.currentTimeMillis();
+				running.set(false);
+			}
+			if (suspended) {
+				// 被多标记任务占用 保持调度标记 等待释放后重新调度
+				return;
+			}
+			scheduled.set(false);
+			if (isEmpty()) {
+				if (removing && executor != null) {
+					// 等待移除的队列已执行完
+					executor.tryRemoveQueue(this);
+				}
+				return;
+			}
+			// 超出预算 或执行完后又添加了新任务
+			if (!markScheduled()) {
+				// 已被其他线程调度
+				return;
+			}
+			if (executor != null) {
+				// 让出线程 重新排到执行器末端
+				executor.getDispatcher().dispatch(token, this);
+				return;
+			}
 		}
 	}
 
@@ -132,4 +642,27 @@ public class TokenTaskQueue implements TaskQueue {
 		this.runThread = runThread;
 	}
 
+	/**
+	 * 邮箱排空回调
+	 */
+	private static class DrainListener {
+
+		private final int lowWatermark;
+
+		private final Runnable listener;
+
+		private DrainListener(int lowWatermark, Runnable listener) {
+			this.lowWatermark = lowWatermark;
+			this.listener = listener;
+		}
+
+		private void fire(long token) {
+			try {
+				listener.run();
+			} catch (Exception e) {
+				logger.error("token[{}] drain listener error.", token, e);
+			}
+		}
+	}
+
 }
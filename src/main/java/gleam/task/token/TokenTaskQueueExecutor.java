@@ -5,6 +5,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 import gleam.task.Task;
+import gleam.task.TaskPriority;
 
 /**
  * 带标记的任务队列处理类<br>
@@ -43,4 +44,14 @@ public interface TokenTaskQueueExecutor {
     
     
     Executor getTokenExecutor(long token);
+
+    /**
+     * 以指定优先级提交任务的执行器<br>
+     * 如rpc返回使用{@link TaskPriority#SYSTEM} 不被大量客户端消息阻塞
+     * 
+     * @param token
+     * @param priority
+     * @return
+     */
+    Executor getTokenExecutor(long token, TaskPriority priority);
 }
@@ -0,0 +1,53 @@
+package gleam.task.token;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import gleam.exception.handler.DefaultUncaughtExceptionHandler;
+
+/**
+ * 虚拟线程调度<br>
+ * 每次执行任务队列都使用1个新的虚拟线程<br>
+ * 任务中的阻塞操作(rpc等待结果 jdbc 同步redis)只会挂起该虚拟线程 不会占用载体线程<br>
+ * 注意:jdk21中在synchronized块内阻塞仍会占用载体线程
+ * 
+ * @author hdh
+ *
+ */
+public class VirtualThreadTaskQueueDispatcher implements TaskQueueDispatcher {
+
+	private final ExecutorService executor;
+
+	public VirtualThreadTaskQueueDispatcher(String threadPrefix) {
+		ThreadFactory threadFactory = Thread.ofVirtual()//
+				.name(threadPrefix, 1)//
+				.uncaughtExceptionHandler(DefaultUncaughtExceptionHandler.getInstance())//
+				.factory();
+		this.executor = Executors.newThreadPerTaskExecutor(threadFactory);
+	}
+
+	@Override
+	public void dispatch(long token, TaskQueue queue) {
+		executor.execute(queue);
+	}
+
+	/**
+	 * 不进行批量投递(分片数为1)<br>
+	 * 避免1个actor阻塞时挂起同批次的其他actor
+	 */
+	@Override
+	public void execute(int shardIndex, Runnable command) {
+		executor.execute(command);
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+}
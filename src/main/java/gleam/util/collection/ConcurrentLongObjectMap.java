@@ -0,0 +1,378 @@
+package gleam.util.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/**
+ * 以基础类型long为key的并发map<br>
+ * 开放寻址 分段加锁写 读无锁<br>
+ * 避免{@link Long}装箱 和通用缓存的访问记录开销<br>
+ * 不允许null值
+ *
+ * @author hdh
+ *
+ * @param <V>
+ */
+public class ConcurrentLongObjectMap<V> {
+
+	private final static int DEFAULT_SEGMENT_NUM = 16;
+
+	private final static int DEFAULT_SEGMENT_CAPACITY = 16;
+	/**
+	 * 已删除标记
+	 */
+	private final static Object REMOVED = new Object();
+
+	private final Segment<V>[] segments;
+
+	private final int segmentMask;
+
+	public ConcurrentLongObjectMap() {
+		this(DEFAULT_SEGMENT_NUM);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongObjectMap(int segmentNum) {
+		int num = 1;
+		while (num < segmentNum) {
+			num <<= 1;
+		}
+		this.segments = (Segment<V>[]) new Segment<?>[num];
+		this.segmentMask = num - 1;
+		for (int i = 0; i < num; i++) {
+			segments[i] = new Segment<>();
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private Segment<V> segmentFor(int hash) {
+		return segments[(hash >>> 24) & segmentMask];
+	}
+
+	public V get(long key) {
+		int hash = hash(key);
+		return segmentFor(hash).get(key, hash);
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	public V put(long key, V value) {
+		checkValue(value);
+		int hash = hash(key);
+		return segmentFor(hash).put(key, hash, value, false);
+	}
+
+	public V putIfAbsent(long key, V value) {
+		checkValue(value);
+		int hash = hash(key);
+		return segmentFor(hash).put(key, hash, value, true);
+	}
+
+	/**
+	 * 若不存在 则使用function创建<br>
+	 * function在分段锁内执行 不应过慢或操作该map
+	 *
+	 * @param key
+	 * @param function
+	 * @return
+	 */
+	public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+		int hash = hash(key);
+		Segment<V> segment = segmentFor(hash);
+		V value = segment.get(key, hash);
+		if (value != null) {
+			return value;
+		}
+		return segment.computeIfAbsent(key, hash, function);
+	}
+
+	public V remove(long key) {
+		int hash = hash(key);
+		return segmentFor(hash).remove(key, hash, null);
+	}
+
+	/**
+	 * 只有当前值为value时才移除
+	 *
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public boolean remove(long key, V value) {
+		checkValue(value);
+		int hash = hash(key);
+		return segmentFor(hash).remove(key, hash, value) != null;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment<V> segment : segments) {
+			size += segment.size;
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public void clear() {
+		for (Segment<V> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * 当前所有值的快照
+	 *
+	 * @return
+	 */
+	public List<V> values() {
+		List<V> list = new ArrayList<>(size());
+		forEach((k, v) -> list.add(v));
+		return list;
+	}
+
+	/**
+	 * 遍历<br>
+	 * 弱一致性 遍历期间的修改可能不可见
+	 *
+	 * @param consumer
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(LongObjectConsumer<? super V> consumer) {
+		for (Segment<V> segment : segments) {
+			Table table = segment.table;
+			for (int i = 0; i < table.length; i++) {
+				Object value = table.values.get(i);
+				if (value != null && value != REMOVED) {
+					consumer.accept(table.keys.get(i), (V) value);
+				}
+			}
+		}
+	}
+
+	private static void checkValue(Object value) {
+		if (value == null) {
+			throw new NullPointerException("value is null.");
+		}
+	}
+
+	@FunctionalInterface
+	public interface LongObjectConsumer<V> {
+
+		void accept(long key, V value);
+	}
+
+	/**
+	 * 开放寻址表<br>
+	 * 写入时先写key再写value 读取到非空value时key必然可见
+	 */
+	private static class Table {
+
+		private final int length;
+
+		private final int mask;
+
+		private final AtomicLongArray keys;
+
+		private final AtomicReferenceArray<Object> values;
+
+		private Table(int length) {
+			this.length = length;
+			this.mask = length - 1;
+			this.keys = new AtomicLongArray(length);
+			this.values = new AtomicReferenceArray<>(length);
+		}
+	}
+
+	private static class Segment<V> {
+
+		private volatile Table table = new Table(DEFAULT_SEGMENT_CAPACITY);
+		/**
+		 * 有效元素个数
+		 */
+		private volatile int size;
+		/**
+		 * 已删除标记个数
+		 */
+		private int removedNum;
+
+		@SuppressWarnings("unchecked")
+		private V get(long key, int hash) {
+			Table tab = table;
+			int index = hash & tab.mask;
+			for (int i = 0; i < tab.length; i++) {
+				Object value = tab.values.get(index);
+				if (value == null) {
+					return null;
+				}
+				if (value != REMOVED && tab.keys.get(index) == key) {
+					if (tab.values.get(index) == value) {
+						return (V) value;
+					}
+					// 读取期间该位置被删除后复用 重新查找
+					return getLocked(key, hash);
+				}
+				index = (index + 1) & tab.mask;
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private synchronized V getLocked(long key, int hash) {
+			Table tab = table;
+			int index = hash & tab.mask;
+			for (int i = 0; i < tab.length; i++) {
+				Object value = tab.values.get(index);
+				if (value == null) {
+					return null;
+				}
+				if (value != REMOVED && tab.keys.get(index) == key) {
+					return (V) value;
+				}
+				index = (index + 1) & tab.mask;
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private synchronized V put(long key, int hash, V value, boolean onlyIfAbsent) {
+			Table tab = table;
+			int index = hash & tab.mask;
+			int removedIndex = -1;
+			for (int i = 0; i < tab.length; i++) {
+				Object old = tab.values.get(index);
+				if (old == null) {
+					break;
+				}
+				if (old == REMOVED) {
+					if (removedIndex < 0) {
+						removedIndex = index;
+					}
+				} else if (tab.keys.get(index) == key) {
+					if (!onlyIfAbsent) {
+						tab.values.set(index, value);
+					}
+					return (V) old;
+				}
+				index = (index + 1) & tab.mask;
+			}
+			insert(tab, key, hash, value, removedIndex);
+			return null;
+		}
+
+		private synchronized V computeIfAbsent(long key, int hash, LongFunction<? extends V> function) {
+			V old = get(key, hash);
+			if (old != null) {
+				return old;
+			}
+			V value = function.apply(key);
+			if (value == null) {
+				return null;
+			}
+			Table tab = table;
+			int index = hash & tab.mask;
+			int removedIndex = -1;
+			for (int i = 0; i < tab.length; i++) {
+				Object tmp = tab.values.get(index);
+				if (tmp == null) {
+					break;
+				}
+				if (tmp == REMOVED && removedIndex < 0) {
+					removedIndex = index;
+				}
+				index = (index + 1) & tab.mask;
+			}
+			insert(tab, key, hash, value, removedIndex);
+			return value;
+		}
+
+		/**
+		 * 插入新元素 需持有锁
+		 */
+		private void insert(Table tab, long key, int hash, Object value, int removedIndex) {
+			if (removedIndex >= 0) {
+				tab.keys.set(removedIndex, key);
+				tab.values.set(removedIndex, value);
+				removedNum--;
+				size++;
+				return;
+			}
+			if ((size + removedNum + 1) * 4 > tab.length * 3) {
+				// 超出负载 扩容(或清理删除标记)后重新插入
+				tab = rehash(tab);
+			}
+			int index = hash & tab.mask;
+			while (tab.values.get(index) != null) {
+				index = (index + 1) & tab.mask;
+			}
+			tab.keys.set(index, key);
+			tab.values.set(index, value);
+			size++;
+		}
+
+		private Table rehash(Table oldTable) {
+			int newLength = oldTable.length;
+			if ((size + 1) * 2 > newLength) {
+				newLength <<= 1;
+			}
+			Table newTable = new Table(newLength);
+			for (int i = 0; i < oldTable.length; i++) {
+				Object value = oldTable.values.get(i);
+				if (value == null || value == REMOVED) {
+					continue;
+				}
+				long key = oldTable.keys.get(i);
+				int index = hash(key) & newTable.mask;
+				while (newTable.values.get(index) != null) {
+					index = (index + 1) & newTable.mask;
+				}
+				newTable.keys.set(index, key);
+				newTable.values.set(index, value);
+			}
+			removedNum = 0;
+			table = newTable;
+			return newTable;
+		}
+
+		@SuppressWarnings("unchecked")
+		private synchronized V remove(long key, int hash, Object expect) {
+			Table tab = table;
+			int index = hash & tab.mask;
+			for (int i = 0; i < tab.length; i++) {
+				Object old = tab.values.get(index);
+				if (old == null) {
+					return null;
+				}
+				if (old != REMOVED && tab.keys.get(index) == key) {
+					if (expect != null && expect != old) {
+						return null;
+					}
+					tab.values.set(index, REMOVED);
+					size--;
+					removedNum++;
+					return (V) old;
+				}
+				index = (index + 1) & tab.mask;
+			}
+			return null;
+		}
+
+		private synchronized void clear() {
+			table = new Table(DEFAULT_SEGMENT_CAPACITY);
+			size = 0;
+			removedNum = 0;
+		}
+	}
+
+}
@@ -0,0 +1,285 @@
+package gleam.util.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以基础类型int为key的写时复制map<br>
+ * 适合注册后很少修改 高频读取的场景(如消息处理表)<br>
+ * 读无锁无装箱 写加锁并整体重建快照 批量写入应使用{@link #putAll(Map)}<br>
+ * key非负且数组长度不超过元素个数的{@link #DENSE_FACTOR}倍时 快照为以key为下标的数组 否则为开放寻址哈希表<br>
+ * 不允许null值
+ *
+ * @author hdh
+ *
+ * @param <V>
+ */
+public class IntObjectMap<V> {
+	/**
+	 * 最大key不超过该值 且数组长度不超过元素个数的{@link #DENSE_FACTOR}倍时使用数组
+	 */
+	private final static int DENSE_MAX_LIMIT = 1 << 16;
+
+	private final static int DENSE_FACTOR = 8;
+
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		return (V) snapshot.get(key);
+	}
+
+	public boolean containsKey(int key) {
+		return snapshot.get(key) != null;
+	}
+
+	/**
+	 *
+	 * @param key
+	 * @param value
+	 * @return 旧值
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V put(int key, V value) {
+		if (value == null) {
+			throw new NullPointerException("value is null.");
+		}
+		Snapshot old = snapshot;
+		Object oldValue = old.get(key);
+		int[] keys = old.keys();
+		Object[] values = old.values();
+		if (oldValue != null) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key) {
+					values[i] = value;
+					break;
+				}
+			}
+		} else {
+			keys = Arrays.copyOf(keys, keys.length + 1);
+			values = Arrays.copyOf(values, values.length + 1);
+			keys[keys.length - 1] = key;
+			values[values.length - 1] = value;
+		}
+		snapshot = Snapshot.build(keys, values);
+		return (V) oldValue;
+	}
+
+	/**
+	 * 批量放入<br>
+	 * 只重建1次快照 逐个put时每次都要重建
+	 *
+	 * @param map
+	 */
+	public synchronized void putAll(Map<Integer, ? extends V> map) {
+		if (map.isEmpty()) {
+			return;
+		}
+		Snapshot old = snapshot;
+		int[] oldKeys = old.keys();
+		Object[] oldValues = old.values();
+		Map<Integer, Object> merged = new LinkedHashMap<>(oldKeys.length + map.size());
+		for (int i = 0; i < oldKeys.length; i++) {
+			merged.put(oldKeys[i], oldValues[i]);
+		}
+		for (Map.Entry<Integer, ? extends V> entry : map.entrySet()) {
+			if (entry.getValue() == null) {
+				throw new NullPointerException("key[" + entry.getKey() + "] value is null.");
+			}
+			merged.put(entry.getKey(), entry.getValue());
+		}
+		int[] keys = new int[merged.size()];
+		Object[] values = new Object[merged.size()];
+		int index = 0;
+		for (Map.Entry<Integer, Object> entry : merged.entrySet()) {
+			keys[index] = entry.getKey();
+			values[index] = entry.getValue();
+			index++;
+		}
+		snapshot = Snapshot.build(keys, values);
+	}
+
+	/**
+	 *
+	 * @param key
+	 * @param value
+	 * @return 已存在的值 不存在时返回null并放入新值
+	 */
+	public synchronized V putIfAbsent(int key, V value) {
+		V oldValue = get(key);
+		if (oldValue != null) {
+			return oldValue;
+		}
+		put(key, value);
+		return null;
+	}
+
+	/**
+	 *
+	 * @param key
+	 * @return 旧值
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V remove(int key) {
+		Snapshot old = snapshot;
+		Object oldValue = old.get(key);
+		if (oldValue == null) {
+			return null;
+		}
+		int[] keys = old.keys();
+		Object[] values = old.values();
+		int[] newKeys = new int[keys.length - 1];
+		Object[] newValues = new Object[values.length - 1];
+		int index = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != key) {
+				newKeys[index] = keys[i];
+				newValues[index] = values[i];
+				index++;
+			}
+		}
+		snapshot = Snapshot.build(newKeys, newValues);
+		return (V) oldValue;
+	}
+
+	public int size() {
+		return snapshot.size;
+	}
+
+	public boolean isEmpty() {
+		return snapshot.size == 0;
+	}
+
+	public int[] keys() {
+		return snapshot.keys();
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		Object[] values = snapshot.values();
+		List<V> list = new ArrayList<>(values.length);
+		for (Object value : values) {
+			list.add((V) value);
+		}
+		return list;
+	}
+
+	/**
+	 * 当前是否使用数组存储
+	 *
+	 * @return
+	 */
+	public boolean isDense() {
+		return snapshot.dense;
+	}
+
+	/**
+	 * 不可变快照
+	 */
+	private static class Snapshot {
+
+		private final static Snapshot EMPTY = new Snapshot(true, new int[0], new Object[0], 0);
+
+		private final boolean dense;
+		/**
+		 * 哈希表的key 数组存储时为空
+		 */
+		private final int[] table;
+		/**
+		 * 数组存储时以key为下标 哈希表时与table对应
+		 */
+		private final Object[] slots;
+
+		private final int size;
+
+		private Snapshot(boolean dense, int[] table, Object[] slots, int size) {
+			this.dense = dense;
+			this.table = table;
+			this.slots = slots;
+			this.size = size;
+		}
+
+		private static Snapshot build(int[] keys, Object[] values) {
+			int size = keys.length;
+			if (size == 0) {
+				return EMPTY;
+			}
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int key : keys) {
+				min = Math.min(min, key);
+				max = Math.max(max, key);
+			}
+			if (min >= 0 && max < DENSE_MAX_LIMIT && max < size * DENSE_FACTOR) {
+				Object[] slots = new Object[max + 1];
+				for (int i = 0; i < size; i++) {
+					slots[keys[i]] = values[i];
+				}
+				return new Snapshot(true, null, slots, size);
+			}
+			int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+			int[] table = new int[capacity];
+			Object[] slots = new Object[capacity];
+			int mask = capacity - 1;
+			for (int i = 0; i < size; i++) {
+				int index = hash(keys[i]) & mask;
+				while (slots[index] != null) {
+					index = (index + 1) & mask;
+				}
+				table[index] = keys[i];
+				slots[index] = values[i];
+			}
+			return new Snapshot(false, table, slots, size);
+		}
+
+		private static int hash(int key) {
+			int h = key * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+
+		private Object get(int key) {
+			Object[] tmpSlots = slots;
+			if (dense) {
+				return key >= 0 && key < tmpSlots.length ? tmpSlots[key] : null;
+			}
+			int mask = tmpSlots.length - 1;
+			int index = hash(key) & mask;
+			while (true) {
+				Object value = tmpSlots[index];
+				if (value == null) {
+					return null;
+				}
+				if (table[index] == key) {
+					return value;
+				}
+				index = (index + 1) & mask;
+			}
+		}
+
+		private int[] keys() {
+			int[] keys = new int[size];
+			int index = 0;
+			for (int i = 0; i < slots.length; i++) {
+				if (slots[i] != null) {
+					keys[index++] = dense ? i : table[i];
+				}
+			}
+			return keys;
+		}
+
+		private Object[] values() {
+			Object[] values = new Object[size];
+			int index = 0;
+			for (Object value : slots) {
+				if (value != null) {
+					values[index++] = value;
+				}
+			}
+			return values;
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package gleam.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * 以基础类型long为key int为value的map<br>
+ * 开放寻址 线性探测 避免装箱<br>
+ * 非线程安全
+ *
+ * @author hdh
+ *
+ */
+public class LongIntMap {
+
+	private final static int DEFAULT_CAPACITY = 16;
+	/**
+	 * 不存在时的返回值
+	 */
+	private final int missingValue;
+
+	private long[] keys;
+
+	private int[] values;
+
+	private boolean[] used;
+
+	private int size;
+
+	public LongIntMap(int missingValue) {
+		this(DEFAULT_CAPACITY, missingValue);
+	}
+
+	public LongIntMap(int capacity, int missingValue) {
+		int num = DEFAULT_CAPACITY;
+		while (num < capacity * 2) {
+			num <<= 1;
+		}
+		this.keys = new long[num];
+		this.values = new int[num];
+		this.used = new boolean[num];
+		this.missingValue = missingValue;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int indexOf(long key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (used[index]) {
+			if (keys[index] == key) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	public int get(long key) {
+		int index = indexOf(key);
+		return index < 0 ? missingValue : values[index];
+	}
+
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 *
+	 * @param key
+	 * @param value
+	 * @return 旧值 不存在时返回missingValue
+	 */
+	public int put(long key, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length << 1);
+		}
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (used[index]) {
+			if (keys[index] == key) {
+				int old = values[index];
+				values[index] = value;
+				return old;
+			}
+			index = (index + 1) & mask;
+		}
+		used[index] = true;
+		keys[index] = key;
+		values[index] = value;
+		size++;
+		return missingValue;
+	}
+
+	/**
+	 *
+	 * @param key
+	 * @return 旧值 不存在时返回missingValue
+	 */
+	public int remove(long key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return missingValue;
+		}
+		int old = values[index];
+		used[index] = false;
+		size--;
+		// 后移探测链上的元素 保证查找不中断
+		int mask = keys.length - 1;
+		int next = (index + 1) & mask;
+		while (used[next]) {
+			long tmpKey = keys[next];
+			int tmpValue = values[next];
+			used[next] = false;
+			size--;
+			put(tmpKey, tmpValue);
+			next = (next + 1) & mask;
+		}
+		return old;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+}
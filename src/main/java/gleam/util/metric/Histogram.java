@@ -0,0 +1,182 @@
+package gleam.util.metric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定内存的无锁直方图<br>
+ * 对数线性分桶 每个2的幂区间再分为16个子桶 误差约6%<br>
+ * 可多线程同时记录 读取结果只是近似快照<br>
+ * 一般用于记录{@link System#nanoTime()}的耗时
+ * 
+ * @author hdh
+ *
+ */
+public class Histogram {
+	/**
+	 * 每个2的幂区间的子桶数(2^4)
+	 */
+	private final static int SUB_BUCKET_BITS = 4;
+
+	private final static int SUB_BUCKET_NUM = 1 << SUB_BUCKET_BITS;
+
+	private final static int BUCKET_NUM = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_NUM;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_NUM);
+
+	/**
+	 * 记录次数和总和 多线程频繁累加 读取很少
+	 */
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * 记录1个值<br>
+	 * 负数视为0
+	 * 
+	 * @param value
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(bucketIndex(value));
+		count.increment();
+		sum.add(value);
+		long oldMax = max.get();
+		while (value > oldMax) {
+			if (max.compareAndSet(oldMax, value)) {
+				break;
+			}
+			oldMax = max.get();
+		}
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * 记录值总和
+	 * 
+	 * @return
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long tmpCount = count.sum();
+		if (tmpCount <= 0) {
+			return 0;
+		}
+		return sum.sum() / tmpCount;
+	}
+
+	/**
+	 * 获取百分位值
+	 * 
+	 * @param percentile 0~100
+	 * @return 该百分位所在桶的上限
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_NUM];
+		for (int i = 0; i < BUCKET_NUM; i++) {
+			snapshot[i] = buckets.get(i);
+			total += snapshot[i];
+		}
+		if (total <= 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+		target = Math.max(target, 1);
+		long tmpCount = 0;
+		for (int i = 0; i < BUCKET_NUM; i++) {
+			tmpCount += snapshot[i];
+			if (tmpCount >= target) {
+				return Math.min(bucketUpperValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * 清空数据
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_NUM; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	/**
+	 * 打印统计数据
+	 * 
+	 * @return
+	 */
+	public String print() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("count=").append(getCount());
+		sb.append(" mean=").append(getMean());
+		sb.append(" p50=").append(getPercentile(50));
+		sb.append(" p99=").append(getPercentile(99));
+		sb.append(" p999=").append(getPercentile(99.9));
+		sb.append(" max=").append(getMax());
+		return sb.toString();
+	}
+
+	/**
+	 * 打印耗时统计数据<br>
+	 * 记录值为纳秒 以微秒显示
+	 * 
+	 * @return
+	 */
+	public String printNanos() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("count=").append(getCount());
+		sb.append(" mean=").append(toMicros(getMean()));
+		sb.append("us p50=").append(toMicros(getPercentile(50)));
+		sb.append("us p99=").append(toMicros(getPercentile(99)));
+		sb.append("us p999=").append(toMicros(getPercentile(99.9)));
+		sb.append("us max=").append(toMicros(getMax()));
+		sb.append("us");
+		return sb.toString();
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_NUM) {
+			return (int) value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) ((value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKET_NUM - 1));
+		return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKET_NUM + sub;
+	}
+
+	private static long bucketUpperValue(int index) {
+		if (index < SUB_BUCKET_NUM) {
+			return index;
+		}
+		int exp = index / SUB_BUCKET_NUM + SUB_BUCKET_BITS - 1;
+		int sub = index % SUB_BUCKET_NUM;
+		long lower = (long) (SUB_BUCKET_NUM + sub) << (exp - SUB_BUCKET_BITS);
+		return lower + (1L << (exp - SUB_BUCKET_BITS)) - 1;
+	}
+
+}
@@ -1,111 +1,576 @@
 package gleam.util.pool;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
- * 对象池
- * 
+ * 对象池<br>
+ * 每个线程有自己的弹匣(magazine) 获取/回收时只操作本线程的弹匣 无锁无竞争<br>
+ * 弹匣满/空时 整个弹匣与共享仓库交换 跨线程回收(io线程获取 业务线程回收)通过仓库流转<br>
+ * 每个线程保留1个当前弹匣和1个备用弹匣 避免在弹匣边界反复与仓库交换<br>
+ * 虚拟线程不使用对象池 直接创建对象<br>
+ * 仓库上限按周期内的高低水位自动调整 闲置时释放 溢出时扩容<br>
+ * 可开启泄漏采样 {@link #setLeakSampleInterval(int)}<br>
+ * 不再使用单个共享队列 原queue字段/getQueue()/buildQueue(int)已移除 统计数据通过getXXXCount()读取
+ *
  * @author hdh
  *
  * @param <T> 需有无参构造函数
  */
 public abstract class ObjectPool<T extends Recoverable> {
 
-	private final static List<ObjectPool<?>> ALL_OBJECT_POOLS = new ArrayList<>();
+	private final static List<ObjectPool<?>> ALL_OBJECT_POOLS = new CopyOnWriteArrayList<>();
 
 	protected final static int DEFAULT_MAX_SIZE = 1000;
+	/**
+	 * 每个弹匣的容量
+	 */
+	protected final static int MAGAZINE_SIZE = 64;
+	/**
+	 * 仓库上限最多扩大到初始值的倍数
+	 */
+	protected final static int MAX_DEPOT_FACTOR = 8;
+	/**
+	 * 仓库上限调整周期
+	 */
+	protected final static long ADJUST_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+	/**
+	 * 泄漏采样记录的调用栈深度
+	 */
+	private final static int LEAK_STACK_DEPTH = 8;
+	/**
+	 * 每个对象池最多统计的泄漏位置数
+	 */
+	private final static int MAX_LEAK_SITES = 32;
+	/**
+	 * 获取后超过该时间仍未回收 视为疑似泄漏
+	 */
+	private final static long LEAK_SUSPECT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	/**
+	 * 泄漏采样间隔 每获取n个对象采样1个<br>
+	 * 0为关闭
+	 */
+	private static volatile int leakSampleInterval;
 	/**
 	 * 创建对象个数
 	 */
-	protected volatile long newCount = 0;
+	protected final LongAdder newCount = new LongAdder();
 	/**
 	 * 获取对象个数
 	 */
-	protected volatile long obtainCount = 0;
+	protected final LongAdder obtainCount = new LongAdder();
 	/**
 	 * 回收对象个数
 	 */
-	protected volatile long recycleCount = 0;
+	protected final LongAdder recycleCount = new LongAdder();
+	/**
+	 * 仓库已满 丢弃的对象个数
+	 */
+	protected final LongAdder dropCount = new LongAdder();
+	/**
+	 * 虚拟线程中回收 直接丢弃的对象个数<br>
+	 * 与仓库容量无关 不计入{@link #dropCount}
+	 */
+	protected final LongAdder bypassCount = new LongAdder();
+	/**
+	 * 共享仓库 存放装满的弹匣
+	 */
+	protected final Queue<Magazine> depot = new ConcurrentLinkedQueue<>();
+	/**
+	 * 仓库中的弹匣个数
+	 */
+	protected final AtomicInteger depotSize = new AtomicInteger();
+	/**
+	 * 仓库最多存放的弹匣个数<br>
+	 * 按高低水位在[1, 初始值*{@link #MAX_DEPOT_FACTOR}]之间调整
+	 */
+	protected volatile int maxDepotSize;
+	/**
+	 * 仓库上限的调整范围上限
+	 */
+	protected final int maxDepotLimit;
+	/**
+	 * 本周期仓库弹匣数的高水位
+	 */
+	private final AtomicInteger highWater = new AtomicInteger();
+	/**
+	 * 本周期仓库弹匣数的低水位<br>
+	 * 即整个周期都没被取用的弹匣数
+	 */
+	private final AtomicInteger lowWater = new AtomicInteger();
+	/**
+	 * 上次调整时的丢弃个数
+	 */
+	private long lastDropCount;
+	/**
+	 * 下次调整时间(nanoTime)
+	 */
+	private final AtomicLong nextAdjustTime = new AtomicLong(System.nanoTime() + ADJUST_INTERVAL);
+	/**
+	 * 被采样且未回收的对象
+	 */
+	private final ConcurrentMap<Object, LeakRecord> tracked = new ConcurrentHashMap<>();
+	/**
+	 * 被采样的对象未回收就被gc时 记录进入该队列
+	 */
+	private final ReferenceQueue<Object> leakQueue = new ReferenceQueue<>();
+	/**
+	 * 确认泄漏(未回收就被gc)的对象个数
+	 */
+	protected final LongAdder leakCount = new LongAdder();
+	/**
+	 * 获取位置,泄漏个数
+	 */
+	private final ConcurrentMap<String, LongAdder> leakSites = new ConcurrentHashMap<>();
 
-	protected final Queue<T> queue;
+	private final ThreadLocal<LocalCache> localCache = ThreadLocal.withInitial(LocalCache::new);
 
 	protected ObjectPool() {
 		this(DEFAULT_MAX_SIZE);
 	}
 
-	protected ObjectPool(int maxSize) {
-		queue = buildQueue(maxSize);
-		ObjectPool.ALL_OBJECT_POOLS.add(this);
-	}
-
 	/**
-	 * {@link ConcurrentLinkedQueue}无法设置长度 size方法需要遍历整个队列 性能较差<br>
-	 * {@link ArrayBlockingQueue}只有1个锁 即同一时间只有1个线程能添加或移除<br>
-	 * {@link LinkedBlockingQueue}存取分别有1个锁 则同一时间 可以1个线程添加 1个线程移除
-	 * 
-	 * @param maxSize
-	 * @return
+	 *
+	 * @param maxSize 共享仓库最多保留的对象数
 	 */
-	protected Queue<T> buildQueue(int maxSize) {
-		return new LinkedBlockingQueue<>(maxSize);
+	protected ObjectPool(int maxSize) {
+		this.maxDepotSize = Math.max(maxSize / MAGAZINE_SIZE, 1);
+		this.maxDepotLimit = this.maxDepotSize * MAX_DEPOT_FACTOR;
+		ObjectPool.ALL_OBJECT_POOLS.add(this);
 	}
 
 	/**
 	 * 从对象池中获取1个对象<br>
 	 * 若为空 则新建1个对象
-	 * 
+	 *
 	 * @return
 	 */
+	@SuppressWarnings("unchecked")
 	public T obtain() {
-		T obj = queue.poll();
+		obtainCount.increment();
+		T obj = null;
+		if (!Thread.currentThread().isVirtual()) {
+			obj = (T) localCache.get().pop();
+		}
 		if (obj == null) {
+			newCount.increment();
 			obj = newObject();
-			newCount++;
 		}
-		obtainCount++;
+		int interval = leakSampleInterval;
+		if (interval > 0 && ThreadLocalRandom.current().nextInt(interval) == 0) {
+			track(obj);
+		}
 		return obj;
 	}
 
-	public Queue<T> getQueue() {
-		return queue;
-	}
-
 	protected abstract T newObject();
 
 	/**
 	 * 回收对象
-	 * 
+	 *
 	 * @param obj
 	 */
 	public void recycle(T obj) {
+		if (!tracked.isEmpty()) {
+			tracked.remove(new LeakProbe(obj));
+		}
 		obj.recycle();
-		boolean add = queue.offer(obj);
-		if (add) {
-			recycleCount++;
+		if (Thread.currentThread().isVirtual()) {
+			bypassCount.increment();
+			return;
+		}
+		LocalCache cache = localCache.get();
+		if (cache.push(obj)) {
+			recycleCount.increment();
+		} else {
+			dropCount.increment();
+		}
+	}
+
+	/**
+	 * 从仓库取出1个满弹匣
+	 *
+	 * @return
+	 */
+	private Magazine takeFull() {
+		Magazine magazine = depot.poll();
+		if (magazine != null) {
+			int size = depotSize.decrementAndGet();
+			lowWater.accumulateAndGet(size, Math::min);
+		}
+		tryAdjust();
+		return magazine;
+	}
+
+	/**
+	 * 将满弹匣放入仓库
+	 *
+	 * @param magazine
+	 * @return 仓库已满时返回false
+	 */
+	private boolean putFull(Magazine magazine) {
+		tryAdjust();
+		int size = depotSize.incrementAndGet();
+		if (size > maxDepotSize) {
+			depotSize.decrementAndGet();
+			return false;
 		}
+		depot.offer(magazine);
+		highWater.accumulateAndGet(size, Math::max);
+		return true;
+	}
+
+	/**
+	 * 到达调整周期时调整仓库上限<br>
+	 * 只在与仓库交换弹匣 和打印统计时检查
+	 */
+	private void tryAdjust() {
+		long now = System.nanoTime();
+		long next = nextAdjustTime.get();
+		if (now - next < 0 || !nextAdjustTime.compareAndSet(next, now + ADJUST_INTERVAL)) {
+			return;
+		}
+		adjust();
+	}
+
+	/**
+	 * 调整仓库上限<br>
+	 * 周期内有仓库已满的丢弃 说明仓库不够用 上限翻倍(虚拟线程的回收不算)<br>
+	 * 否则上限向高水位收缩一半 并释放整个周期都没被取用的弹匣<br>
+	 * 包内可见 用于测试
+	 */
+	synchronized void adjust() {
+		long drops = dropCount.sum();
+		boolean overflow = drops > lastDropCount;
+		lastDropCount = drops;
+		int high = highWater.getAndSet(depotSize.get());
+		int idle = lowWater.getAndSet(depotSize.get());
+		if (overflow) {
+			maxDepotSize = Math.min(maxDepotSize * 2, maxDepotLimit);
+			return;
+		}
+		maxDepotSize = Math.max((maxDepotSize + high + 1) / 2, 1);
+		for (int i = 0; i < idle; i++) {
+			if (takeIdle() == null) {
+				break;
+			}
+		}
+		lowWater.set(depotSize.get());
+	}
+
+	/**
+	 * 释放仓库中的1个弹匣 不更新水位
+	 *
+	 * @return
+	 */
+	private Magazine takeIdle() {
+		Magazine magazine = depot.poll();
+		if (magazine != null) {
+			depotSize.decrementAndGet();
+		}
+		return magazine;
+	}
+
+	/**
+	 * 设置泄漏采样间隔<br>
+	 * 每获取n个对象 随机采样1个记录获取位置 未回收就被gc时计为泄漏
+	 *
+	 * @param interval 0为关闭
+	 */
+	public static void setLeakSampleInterval(int interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("interval too small:" + interval);
+		}
+		leakSampleInterval = interval;
+	}
+
+	public static int getLeakSampleInterval() {
+		return leakSampleInterval;
+	}
+
+	/**
+	 * 记录采样对象的获取位置
+	 *
+	 * @param obj
+	 */
+	private void track(T obj) {
+		pollLeaks();
+		String site = StackWalker.getInstance().walk(frames -> frames
+				.dropWhile(frame -> frame.getClassName().equals(ObjectPool.class.getName())).limit(LEAK_STACK_DEPTH)
+				.map(StackWalker.StackFrame::toString).collect(Collectors.joining(" <- ")));
+		LeakRecord record = new LeakRecord(obj, leakQueue, site, Thread.currentThread().getName());
+		tracked.put(record, record);
+	}
+
+	/**
+	 * 处理未回收就被gc的采样对象
+	 */
+	private void pollLeaks() {
+		Reference<?> reference;
+		while ((reference = leakQueue.poll()) != null) {
+			LeakRecord record = (LeakRecord) reference;
+			if (tracked.remove(record) == null) {
+				// 已回收
+				continue;
+			}
+			leakCount.increment();
+			LongAdder siteCount = leakSites.get(record.site);
+			if (siteCount == null && leakSites.size() < MAX_LEAK_SITES) {
+				siteCount = leakSites.computeIfAbsent(record.site, k -> new LongAdder());
+			}
+			if (siteCount != null) {
+				siteCount.increment();
+			}
+		}
+	}
+
+	public long getNewCount() {
+		return newCount.sum();
+	}
+
+	public long getObtainCount() {
+		return obtainCount.sum();
+	}
+
+	public long getRecycleCount() {
+		return recycleCount.sum();
+	}
+
+	public long getDropCount() {
+		return dropCount.sum();
+	}
+
+	public long getBypassCount() {
+		return bypassCount.sum();
+	}
+
+	/**
+	 * 仓库中的对象个数<br>
+	 * 不包含各线程弹匣中的对象
+	 *
+	 * @return
+	 */
+	public int getDepotObjectSize() {
+		return depotSize.get() * MAGAZINE_SIZE;
+	}
+
+	/**
+	 * 仓库当前上限(对象个数)
+	 *
+	 * @return
+	 */
+	public int getMaxDepotObjectSize() {
+		return maxDepotSize * MAGAZINE_SIZE;
+	}
+
+	public long getLeakCount() {
+		return leakCount.sum();
+	}
+
+	/**
+	 * 打印泄漏采样数据<br>
+	 * 包括确认泄漏的获取位置 和超时未回收的疑似泄漏
+	 *
+	 * @return
+	 */
+	public String printLeaks() {
+		pollLeaks();
+		StringBuilder sb = new StringBuilder();
+		List<Map.Entry<String, LongAdder>> sites = new ArrayList<>(leakSites.entrySet());
+		sites.sort((e1, e2) -> Long.compare(e2.getValue().sum(), e1.getValue().sum()));
+		for (Map.Entry<String, LongAdder> entry : sites) {
+			sb.append("  泄漏[").append(entry.getValue().sum()).append("] ").append(entry.getKey()).append("\r\n");
+		}
+		long now = System.currentTimeMillis();
+		for (LeakRecord record : tracked.values()) {
+			long holdTime = now - record.obtainTime;
+			if (holdTime >= LEAK_SUSPECT_MILLIS) {
+				sb.append("  疑似泄漏[").append(holdTime).append("ms] thread[").append(record.threadName).append("] ")
+						.append(record.site).append("\r\n");
+			}
+		}
+		return sb.toString();
 	}
 
 	/**
 	 * 打印对象池统计数据
-	 * 
+	 *
 	 * @return
 	 */
 	public static String printStatistics() {
 		StringBuffer sb = new StringBuffer();
 		for (ObjectPool<?> pool : ALL_OBJECT_POOLS) {
+			pool.tryAdjust();
 			sb.append(pool.getClass().getName());
-			sb.append(" 池内:").append(pool.queue.size());
-			sb.append(" 获取:").append(pool.obtainCount);
-			sb.append(" 创建:").append(pool.newCount);
-			sb.append(" 回收:").append(pool.recycleCount);
-			sb.append("\r\n");
+			sb.append(" 仓库内:").append(pool.getDepotObjectSize());
+			sb.append(" 上限:").append(pool.getMaxDepotObjectSize());
+			sb.append(" 获取:").append(pool.getObtainCount());
+			sb.append(" 创建:").append(pool.getNewCount());
+			sb.append(" 回收:").append(pool.getRecycleCount());
+			sb.append(" 丢弃:").append(pool.getDropCount());
+			sb.append(" 虚拟线程:").append(pool.getBypassCount());
+			if (leakSampleInterval > 0 || pool.getLeakCount() > 0) {
+				sb.append(" 泄漏:").append(pool.getLeakCount());
+				sb.append("\r\n");
+				sb.append(pool.printLeaks());
+			} else {
+				sb.append("\r\n");
+			}
 		}
 		return sb.toString();
 	}
 
+	/**
+	 * 弹匣 固定容量的对象栈
+	 */
+	protected static class Magazine {
+
+		private final Object[] objects = new Object[MAGAZINE_SIZE];
+
+		private int size;
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+
+		private boolean isFull() {
+			return size == MAGAZINE_SIZE;
+		}
+
+		private Object pop() {
+			Object obj = objects[--size];
+			objects[size] = null;
+			return obj;
+		}
+
+		private void push(Object obj) {
+			objects[size++] = obj;
+		}
+	}
+
+	/**
+	 * 泄漏采样记录<br>
+	 * 弱引用采样对象 对象被gc时进入泄漏队列<br>
+	 * 以自身为键 哈希为对象的identityHashCode 回收时用{@link LeakProbe}查找
+	 */
+	private static class LeakRecord extends WeakReference<Object> {
+
+		private final int hash;
+		/**
+		 * 获取位置
+		 */
+		private final String site;
+
+		private final String threadName;
+
+		private final long obtainTime = System.currentTimeMillis();
+
+		private LeakRecord(Object obj, ReferenceQueue<Object> queue, String site, String threadName) {
+			super(obj, queue);
+			this.hash = System.identityHashCode(obj);
+			this.site = site;
+			this.threadName = threadName;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * 按对象地址查找采样记录
+	 */
+	private static class LeakProbe {
+
+		private final Object obj;
+
+		private LeakProbe(Object obj) {
+			this.obj = obj;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(obj);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof LeakRecord record && record.get() == obj;
+		}
+	}
+
+	/**
+	 * 线程本地缓存<br>
+	 * 只被所属线程访问
+	 */
+	private class LocalCache {
+		/**
+		 * 当前弹匣
+		 */
+		private Magazine loaded = new Magazine();
+		/**
+		 * 备用弹匣
+		 */
+		private Magazine previous = new Magazine();
+
+		private Object pop() {
+			if (!loaded.isEmpty()) {
+				return loaded.pop();
+			}
+			if (!previous.isEmpty()) {
+				swap();
+				return loaded.pop();
+			}
+			// 2个弹匣都空 从仓库换1个满弹匣
+			Magazine full = takeFull();
+			if (full == null) {
+				return null;
+			}
+			loaded = full;
+			return loaded.pop();
+		}
+
+		private boolean push(Object obj) {
+			if (!loaded.isFull()) {
+				loaded.push(obj);
+				return true;
+			}
+			if (!previous.isFull()) {
+				swap();
+				loaded.push(obj);
+				return true;
+			}
+			// 2个弹匣都满 将1个满弹匣放入仓库
+			if (!putFull(previous)) {
+				return false;
+			}
+			previous = loaded;
+			loaded = new Magazine();
+			loaded.push(obj);
+			return true;
+		}
+
+		private void swap() {
+			Magazine tmp = loaded;
+			loaded = previous;
+			previous = tmp;
+		}
+	}
+
 }
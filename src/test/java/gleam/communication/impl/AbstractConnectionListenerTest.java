@@ -0,0 +1,149 @@
+package gleam.communication.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.communication.Connection;
+import gleam.communication.Protocol;
+import gleam.core.Entity;
+import gleam.task.Task;
+import gleam.task.token.DefaultTokenTaskQueueExecutor;
+import gleam.task.token.TokenTaskQueue;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * {@link AbstractConnectionListener}邮箱背压测试
+ * 
+ * @author hdh
+ *
+ */
+public class AbstractConnectionListenerTest {
+
+	private static class TestListener extends AbstractConnectionListener {
+
+		@Override
+		public void connected(Connection connection) {
+		}
+
+		@Override
+		public void disconnected(Connection connection) {
+		}
+
+		@Override
+		protected Entity<?> getHandleEntity(Connection connection, Protocol protocol) {
+			return null;
+		}
+	}
+
+	@Test
+	public void pauseAtHighAndResumeOnDrain() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("flow-test", 1);
+		EmbeddedChannel channel = new EmbeddedChannel();
+		try {
+			long token = 1;
+			executor.registerQueue(token, 16, "player");
+			TokenTaskQueue mailbox = executor.getTokenQueues().get(token);
+			NettyConnection connection = new NettyConnection(channel);
+			TestListener listener = new TestListener();
+			CountDownLatch block = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			executor.submit(token, (Task) () -> {
+				started.countDown();
+				block.await();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			for (int i = 0; i < 11; i++) {
+				listener.checkMailbox(connection, mailbox);
+				executor.submit(token, (Task) () -> {
+				});
+			}
+			assertTrue(connection.isAutoRead());
+			// 加上第12条 达到容量的75%
+			listener.checkMailbox(connection, mailbox);
+			assertFalse(connection.isAutoRead());
+
+			block.countDown();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!connection.isAutoRead()) {
+				assertTrue(System.nanoTime() < deadline, "timeout");
+				Thread.sleep(5);
+			}
+		} finally {
+			channel.close();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void keepReadPausedByOthers() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("flow-test", 1);
+		EmbeddedChannel channel = new EmbeddedChannel();
+		try {
+			long token = 2;
+			executor.registerQueue(token, 4, "player");
+			TokenTaskQueue mailbox = executor.getTokenQueues().get(token);
+			NettyConnection connection = new NettyConnection(channel);
+			TestListener listener = new TestListener();
+			// 其他逻辑关闭的读取 排空后也不恢复
+			connection.setAutoRead(false);
+			CountDownLatch block = new CountDownLatch(1);
+			executor.submit(token, (Task) block::await);
+			for (int i = 0; i < 4; i++) {
+				executor.submit(token, (Task) () -> {
+				});
+			}
+			listener.checkMailbox(connection, mailbox);
+			listener.resumeRead(connection, mailbox);
+			block.countDown();
+			Thread.sleep(50);
+			assertFalse(connection.isAutoRead());
+		} finally {
+			channel.close();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void drainListenerFiresOnce() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("flow-test", 1);
+		try {
+			long token = 3;
+			executor.registerQueue(token, 16, "player");
+			TokenTaskQueue mailbox = executor.getTokenQueues().get(token);
+			// 已低于水位 直接回调
+			AtomicInteger immediate = new AtomicInteger();
+			mailbox.addDrainListener(2, immediate::incrementAndGet);
+			assertEquals(1, immediate.get());
+
+			CountDownLatch block = new CountDownLatch(1);
+			executor.submit(token, (Task) block::await);
+			for (int i = 0; i < 8; i++) {
+				executor.submit(token, (Task) () -> {
+				});
+			}
+			AtomicInteger fired = new AtomicInteger();
+			AtomicInteger sizeWhenFired = new AtomicInteger(-1);
+			mailbox.addDrainListener(2, () -> {
+				fired.incrementAndGet();
+				sizeWhenFired.set(mailbox.getTasks().size());
+			});
+			assertEquals(0, fired.get());
+			block.countDown();
+			CountDownLatch done = new CountDownLatch(1);
+			executor.submit(token, (Task) done::countDown);
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(1, fired.get());
+			assertTrue(sizeWhenFired.get() <= 2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
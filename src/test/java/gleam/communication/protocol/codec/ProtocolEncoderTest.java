@@ -0,0 +1,178 @@
+package gleam.communication.protocol.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import gleam.communication.impl.NettyConnection;
+import gleam.communication.inner.protocol.ReqInnerForward;
+import gleam.communication.inner.protocol.ResInnerReturnCode;
+import gleam.communication.protocol.AbstractProtocol;
+import gleam.communication.protocol.SlicedProtocol;
+import gleam.core.ref.protocol.ReqEntityForward;
+import gleam.core.ref.protocol.ReqEntityForwardBatch;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * {@link ProtocolEncoder}零拷贝写出和转发消息体引用计数测试
+ *
+ * @author hdh
+ *
+ */
+public class ProtocolEncoderTest {
+
+	private final EmbeddedChannel channel = new EmbeddedChannel(new ProtocolEncoder());
+
+	@AfterEach
+	public void tearDown() {
+		channel.finishAndReleaseAll();
+	}
+
+	private static ReqInnerForward buildInnerForward(int code) {
+		ReqInnerForward forward = new ReqInnerForward();
+		forward.setSrcServerType(1);
+		forward.setSrcServerId(2);
+		forward.setDstServerType(3);
+		forward.setDstServerId(4);
+		forward.setForwardMsgSeq(5);
+		forward.setForwardMsgId(ResInnerReturnCode.ID);
+		ResInnerReturnCode rc = new ResInnerReturnCode();
+		rc.setCode(code);
+		forward.setForwardMsg(rc);
+		return forward;
+	}
+
+	/**
+	 * 按普通编码的帧内容 用于比较
+	 */
+	private static byte[] encodeFrame(AbstractProtocol protocol) {
+		ByteBuf buffer = Unpooled.buffer();
+		buffer.writeInt(protocol.getSeq());
+		buffer.writeInt(protocol.getId());
+		protocol.encode(buffer);
+		return ByteBufUtil.getBytes(buffer);
+	}
+
+	@Test
+	public void forwardPayloadNotCopied() {
+		ReqInnerForward forward = buildInnerForward(7);
+		ByteBuf payload = forward.getForwardMsgBuf();
+		byte[] expected = encodeFrame(forward);
+		assertEquals(1, payload.refCnt());
+		channel.writeOutbound(forward);
+		CompositeByteBuf out = assertInstanceOf(CompositeByteBuf.class, channel.readOutbound());
+		// 协议自身的引用已释放 只由输出的组合缓存持有
+		assertEquals(1, payload.refCnt());
+		assertArrayEquals(expected, ByteBufUtil.getBytes(out));
+		out.release();
+		assertEquals(0, payload.refCnt());
+	}
+
+	@Test
+	public void slicedRelayNotCopied() throws Exception {
+		// 收到的帧
+		ReqInnerForward source = buildInnerForward(8);
+		ByteBuf frame = PooledByteBufAllocator.DEFAULT.buffer();
+		source.encode(frame);
+		source.release();
+		ReqInnerForward received = new ReqInnerForward();
+		received.decode(frame);
+		// 解码器处理完后释放帧 切片仍持有
+		frame.release();
+		assertEquals(1, frame.refCnt());
+
+		SlicedProtocol sliced = (SlicedProtocol) received.buildEncodedForwardMsg(ResInnerReturnCode.ID, 0);
+		// netty处理完收到的协议后释放
+		received.release();
+		assertEquals(1, frame.refCnt());
+		channel.writeOutbound(sliced);
+		CompositeByteBuf out = assertInstanceOf(CompositeByteBuf.class, channel.readOutbound());
+		assertEquals(1, frame.refCnt());
+		assertEquals(0, out.readInt());
+		assertEquals(ResInnerReturnCode.ID, out.readInt());
+		assertEquals(8, out.readInt());
+		out.release();
+		assertEquals(0, frame.refCnt());
+	}
+
+	@Test
+	public void batchReleasedAfterWrite() {
+		List<ReqEntityForward> forwards = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			ReqEntityForward forward = new ReqEntityForward();
+			forward.setDstServerType(3);
+			forward.setDstServerId(4);
+			forward.setDstEntityId(i);
+			forward.setForwardMsgId(ResInnerReturnCode.ID);
+			forward.setForwardMsg(new ResInnerReturnCode());
+			forwards.add(forward);
+		}
+		ReqEntityForwardBatch batch = new ReqEntityForwardBatch();
+		batch.setDstServerType(3);
+		batch.setDstServerId(4);
+		batch.composeForwards(forwards);
+		byte[] expected = encodeFrame(batch);
+		channel.writeOutbound(batch);
+		// 批量消息自身的引用已释放 组合缓存只由输出持有
+		assertEquals(1, batch.refCnt());
+		ByteBuf out = channel.readOutbound();
+		assertArrayEquals(expected, ByteBufUtil.getBytes(out));
+		for (ReqEntityForward forward : forwards) {
+			assertEquals(1, forward.getForwardMsgBuf().refCnt());
+		}
+		out.release();
+		assertEquals(0, batch.refCnt());
+		for (ReqEntityForward forward : forwards) {
+			assertEquals(0, forward.getForwardMsgBuf().refCnt());
+		}
+	}
+
+	@Test
+	public void releasedWhenInactive() {
+		ReqInnerForward forward = buildInnerForward(9);
+		ByteBuf payload = forward.getForwardMsgBuf();
+		channel.close();
+		new NettyConnection(channel).sendProtocol(forward);
+		assertEquals(0, payload.refCnt());
+	}
+
+	@Test
+	public void setForwardMsgReleaseOnError() {
+		ByteBuf[] captured = new ByteBuf[1];
+		AbstractProtocol broken = new AbstractProtocol() {
+
+			@Override
+			public void decode(ByteBuf buffer) {
+			}
+
+			@Override
+			public void encode(ByteBuf buffer) {
+				captured[0] = buffer;
+				buffer.writeInt(1);
+				throw new AssertionError("encode error");
+			}
+
+			@Override
+			public int getId() {
+				return 0;
+			}
+		};
+		ReqInnerForward forward = new ReqInnerForward();
+		assertThrows(AssertionError.class, () -> forward.setForwardMsg(broken));
+		assertEquals(0, captured[0].refCnt());
+		assertEquals(null, forward.getForwardMsgBuf());
+	}
+
+}
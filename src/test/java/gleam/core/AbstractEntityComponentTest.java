@@ -0,0 +1,172 @@
+package gleam.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.communication.Protocol;
+import gleam.core.event.GameEvent;
+import gleam.task.Task;
+
+/**
+ * {@link AbstractEntity}按类查找组件测试 {@link ComponentTypes}
+ *
+ * @author hdh
+ *
+ */
+public class AbstractEntityComponentTest {
+
+	@Test
+	public void slotPerClass() {
+		int slot = ComponentTypes.slotOf(BagComponent.class);
+		assertEquals(slot, ComponentTypes.slotOf(BagComponent.class));
+		assertNotEquals(slot, ComponentTypes.slotOf(ItemContainer.class));
+		assertTrue(ComponentTypes.size() > slot);
+	}
+
+	@Test
+	public void getByExactClass() {
+		TestEntity entity = new TestEntity();
+		BagComponent bag = new BagComponent();
+		SkillComponent skill = new SkillComponent();
+		entity.registerComponent("bag", bag);
+		entity.registerComponent("skill", skill);
+		assertSame(bag, entity.getComponent(BagComponent.class));
+		assertSame(skill, entity.getComponent(SkillComponent.class));
+		// 第二次走槽位缓存
+		assertSame(bag, entity.getComponent(BagComponent.class));
+		assertSame(bag.getOwner(), entity);
+	}
+
+	@Test
+	public void getByInterfaceAndParent() {
+		TestEntity entity = new TestEntity();
+		ExtBagComponent bag = new ExtBagComponent();
+		entity.registerComponent("bag", bag);
+		assertSame(bag, entity.getComponent(ItemContainer.class));
+		assertSame(bag, entity.getComponent(BagComponent.class));
+		assertSame(bag, entity.getComponent(ExtBagComponent.class));
+	}
+
+	@Test
+	public void exactClassPreferred() {
+		TestEntity entity = new TestEntity();
+		ExtBagComponent ext = new ExtBagComponent();
+		BagComponent bag = new BagComponent();
+		entity.registerComponent("ext", ext);
+		entity.registerComponent("bag", bag);
+		assertSame(bag, entity.getComponent(BagComponent.class));
+		assertSame(ext, entity.getComponent(ExtBagComponent.class));
+	}
+
+	@Test
+	public void missingReturnsNull() {
+		TestEntity entity = new TestEntity();
+		entity.registerComponent("bag", new BagComponent());
+		assertNull(entity.getComponent(SkillComponent.class));
+		// 命中未找到标记
+		assertNull(entity.getComponent(SkillComponent.class));
+	}
+
+	@Test
+	public void registerClearsMissCache() {
+		TestEntity entity = new TestEntity();
+		assertNull(entity.getComponent(SkillComponent.class));
+		SkillComponent skill = new SkillComponent();
+		entity.registerComponent("skill", skill);
+		assertSame(skill, entity.getComponent(SkillComponent.class));
+	}
+
+	@Test
+	public void removeClearsCache() {
+		TestEntity entity = new TestEntity();
+		BagComponent bag = new BagComponent();
+		entity.registerComponent("bag", bag);
+		assertSame(bag, entity.getComponent(ItemContainer.class));
+		entity.removeComponent("bag");
+		assertNull(entity.getComponent(ItemContainer.class));
+		assertNull(entity.getComponent(BagComponent.class));
+		assertNull(bag.getOwner());
+	}
+
+	@Test
+	public void repeatedTag() {
+		TestEntity entity = new TestEntity();
+		entity.registerComponent("bag", new BagComponent());
+		assertThrows(IllegalArgumentException.class, () -> entity.registerComponent("bag", new BagComponent()));
+	}
+
+	private interface ItemContainer extends Component {
+	}
+
+	private static class TestComponent extends ConcreteComponent<TestEntity> {
+
+		@Override
+		public void handleGameEvent(GameEvent gameEvent) {
+		}
+
+		@Override
+		public Protocol handleMessage(Protocol request) {
+			return null;
+		}
+
+		@Override
+		public void initialize() {
+		}
+
+		@Override
+		public void start() {
+		}
+
+		@Override
+		public void stop() {
+		}
+
+		@Override
+		public void destroy() {
+		}
+
+	}
+
+	private static class BagComponent extends TestComponent implements ItemContainer {
+	}
+
+	private static class ExtBagComponent extends BagComponent {
+	}
+
+	private static class SkillComponent extends TestComponent {
+	}
+
+	private static class TestEntity extends AbstractEntity<Component> {
+
+		@Override
+		public long getId() {
+			return 1;
+		}
+
+		@Override
+		public void submitTask(Task task) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <V> Future<V> submitCallback(long token, Callable<V> callable) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void submitHandleEvent(GameEvent event) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+package gleam.core.actor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.core.Component;
+import gleam.core.executor.ActorTaskExecutor;
+import gleam.task.token.ShardedTaskQueueDispatcher;
+
+/**
+ * {@link ActorFuture}阻塞检查测试
+ * 
+ * @author hdh
+ *
+ */
+public class ActorFutureTest {
+
+	private static class TestActor extends AbstractActor<Component> {
+
+		private final long id;
+
+		TestActor(long id) {
+			this.id = id;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public int getMailboxCapacity() {
+			return 16;
+		}
+	}
+
+	@Test
+	public void blockOnShardThreadFailsFast() throws Exception {
+		ShardedTaskQueueDispatcher dispatcher = new ShardedTaskQueueDispatcher("future-test", 2);
+		ActorTaskExecutor executor = new ActorTaskExecutor(dispatcher);
+		try {
+			TestActor actor = new TestActor(1);
+			TestActor sameShard = new TestActor(findToken(dispatcher, 1, true));
+			TestActor otherShard = new TestActor(findToken(dispatcher, 1, false));
+			CompletableFuture<String> stage = new CompletableFuture<>();
+			ActorFuture<String> future = executor.resumeOn(actor, stage);
+
+			assertEquals("rejected", blockIn(executor, actor, future));
+			// 同分片的其他actor 结果要由该分片线程投递 同样会死锁
+			assertEquals("rejected", blockIn(executor, sameShard, future));
+
+			// 其他分片的线程可以等待
+			Future<String> other = executor.handleCallback(otherShard, () -> future.get(5, TimeUnit.SECONDS));
+			Thread.sleep(20);
+			stage.complete("value");
+			assertEquals("value", other.get(5, TimeUnit.SECONDS));
+			assertEquals("value", future.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static String blockIn(ActorTaskExecutor executor, TestActor actor, ActorFuture<String> future)
+			throws Exception {
+		return executor.handleCallback(actor, () -> {
+			try {
+				return future.get();
+			} catch (IllegalStateException e) {
+				return "rejected";
+			}
+		}).get(5, TimeUnit.SECONDS);
+	}
+
+	private static long findToken(ShardedTaskQueueDispatcher dispatcher, long token, boolean sameShard) {
+		int shardIndex = dispatcher.getShardIndex(token);
+		for (long other = token + 1;; other++) {
+			if ((dispatcher.getShardIndex(other) == shardIndex) == sameShard) {
+				return other;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package gleam.core.ecs;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link SystemRunner}测试
+ *
+ * @author hdh
+ *
+ */
+public class SystemRunnerTest {
+
+	@Test
+	public void setInstanceShutdownOld() {
+		SystemRunner oldRunner = SystemRunner.getInstance();
+		SystemRunner runner = new SystemRunner("test-ecs-system", 2);
+		SystemRunner.setInstance(runner);
+		assertSame(runner, SystemRunner.getInstance());
+		assertTrue(oldRunner.getPool().isShutdown());
+		// 重复设置同一个不关闭
+		SystemRunner.setInstance(runner);
+		assertFalse(runner.getPool().isShutdown());
+	}
+
+}
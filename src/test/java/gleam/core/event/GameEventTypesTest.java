@@ -0,0 +1,92 @@
+package gleam.core.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link GameEventTypes}测试
+ * 
+ * @author hdh
+ *
+ */
+public class GameEventTypesTest {
+
+	private static class LevelUpEvent implements GameEvent {
+
+		@Override
+		public String getId() {
+			return getClass().getSimpleName();
+		}
+	}
+
+	private static class LiteralIdEvent implements GameEvent {
+
+		@Override
+		public String getId() {
+			return "LiteralIdEvent";
+		}
+	}
+
+	private static class RenamedEvent implements GameEvent {
+
+		@Override
+		public String getId() {
+			return "Renamed";
+		}
+	}
+
+	private static class CustomIdEvent implements GameEvent {
+
+		@Override
+		public String getId() {
+			return "CustomId";
+		}
+
+		@Override
+		public int getIndex() {
+			return GameEventTypes.indexOf(getId());
+		}
+	}
+
+	private static class Other {
+
+		private static class LevelUpEvent implements GameEvent {
+
+			@Override
+			public String getId() {
+				return getClass().getSimpleName();
+			}
+		}
+	}
+
+	@Test
+	public void classAndIdShareIndex() {
+		int index = new LevelUpEvent().getIndex();
+		assertEquals(index, new LevelUpEvent().getIndex());
+		assertEquals(index, GameEventTypes.indexOf(LevelUpEvent.class));
+		assertEquals(index, GameEventTypes.indexOf("LevelUpEvent"));
+		assertEquals(GameEventTypes.indexOf("LiteralIdEvent"), new LiteralIdEvent().getIndex());
+	}
+
+	@Test
+	public void sameSimpleNameGetsIndependentIndex() {
+		int index = GameEventTypes.indexOf(LevelUpEvent.class);
+		int otherIndex = new Other.LevelUpEvent().getIndex();
+		assertNotEquals(index, otherIndex);
+		assertEquals(otherIndex, GameEventTypes.indexOf(Other.LevelUpEvent.class));
+	}
+
+	@Test
+	public void idDiffersFromClassNameFailsFast() {
+		assertThrows(IllegalStateException.class, () -> new RenamedEvent().getIndex());
+	}
+
+	@Test
+	public void customIdWithOwnIndex() {
+		assertEquals(GameEventTypes.indexOf("CustomId"), new CustomIdEvent().getIndex());
+	}
+
+}
@@ -0,0 +1,160 @@
+package gleam.core.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.core.Component;
+import gleam.core.actor.AbstractActor;
+import gleam.core.event.GameEvent;
+import gleam.task.Task;
+import gleam.task.token.ShardedTaskQueueDispatcher;
+import gleam.task.token.TaskQueueDispatcher;
+import gleam.task.token.VirtualThreadTaskQueueDispatcher;
+
+/**
+ * {@link ActorTaskExecutor}事件批量派发测试
+ * 
+ * @author hdh
+ *
+ */
+public class ActorTaskExecutorTest {
+
+	private static class TestEvent implements GameEvent {
+
+		@Override
+		public String getId() {
+			return getClass().getSimpleName();
+		}
+	}
+
+	private static class TestActor extends AbstractActor<Component> {
+
+		private final long id;
+
+		private final int capacity;
+
+		private final TaskQueueDispatcher dispatcher;
+
+		private final CountDownLatch latch;
+
+		private final AtomicInteger handled = new AtomicInteger();
+
+		private volatile boolean wrongThread;
+
+		TestActor(long id, int capacity, TaskQueueDispatcher dispatcher, CountDownLatch latch) {
+			this.id = id;
+			this.capacity = capacity;
+			this.dispatcher = dispatcher;
+			this.latch = latch;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public int getMailboxCapacity() {
+			return capacity;
+		}
+
+		@Override
+		public void handleGameEvent(GameEvent gameEvent) {
+			if (dispatcher.isThreadAffine() && !dispatcher.isShardThread(id)) {
+				wrongThread = true;
+			}
+			handled.incrementAndGet();
+			latch.countDown();
+		}
+	}
+
+	@Test
+	public void batchByShardOnThreadAffineDispatcher() throws Exception {
+		ShardedTaskQueueDispatcher dispatcher = new ShardedTaskQueueDispatcher("event-shard", 4);
+		ActorTaskExecutor executor = new ActorTaskExecutor(dispatcher);
+		try {
+			fireAndCheck(executor, dispatcher, ActorTaskExecutor.FIRE_EVENT_BATCH_MIN * 4);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void submitOneByOneOnVirtualThreads() throws Exception {
+		VirtualThreadTaskQueueDispatcher dispatcher = new VirtualThreadTaskQueueDispatcher("event-virtual");
+		ActorTaskExecutor executor = new ActorTaskExecutor(dispatcher);
+		try {
+			fireAndCheck(executor, dispatcher, ActorTaskExecutor.FIRE_EVENT_BATCH_MIN * 4);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void fullMailboxDropsEventOnShard() throws Exception {
+		ShardedTaskQueueDispatcher dispatcher = new ShardedTaskQueueDispatcher("event-full", 2);
+		ActorTaskExecutor executor = new ActorTaskExecutor(dispatcher);
+		try {
+			TestActor busy = null;
+			List<TestActor> shardActors = new ArrayList<>();
+			CountDownLatch latch = new CountDownLatch(ActorTaskExecutor.FIRE_EVENT_BATCH_MIN);
+			for (int i = 1; shardActors.size() <= ActorTaskExecutor.FIRE_EVENT_BATCH_MIN; i++) {
+				if (busy != null && dispatcher.getShardIndex(i) != dispatcher.getShardIndex(busy.getId())) {
+					continue;
+				}
+				TestActor actor = new TestActor(i, 2, dispatcher, latch);
+				executor.registerActor(actor);
+				shardActors.add(actor);
+				if (busy == null) {
+					busy = actor;
+				}
+			}
+			TestActor full = busy;
+			executor.submit(full.getId(), (Task) () -> {
+				// 在分片线程中占满邮箱后派发 该actor的事件入队失败 其他actor正常处理
+				executor.submit(full.getId(), (Task) () -> {
+				});
+				executor.submit(full.getId(), (Task) () -> {
+				});
+				executor.fireGameEventOnShard(new ArrayList<>(shardActors), new TestEvent());
+			});
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			Thread.sleep(20);
+			assertEquals(0, full.handled.get());
+			for (TestActor actor : shardActors) {
+				if (actor != full) {
+					assertEquals(1, actor.handled.get());
+					assertTrue(!actor.wrongThread);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void fireAndCheck(ActorTaskExecutor executor, TaskQueueDispatcher dispatcher, int actorNum)
+			throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(actorNum);
+		List<TestActor> actors = new ArrayList<>();
+		for (int i = 1; i <= actorNum; i++) {
+			TestActor actor = new TestActor(i, 16, dispatcher, latch);
+			executor.registerActor(actor);
+			actors.add(actor);
+		}
+		executor.fireGameEvent(actors, new TestEvent());
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		for (TestActor actor : actors) {
+			assertEquals(1, actor.handled.get());
+			assertTrue(!actor.wrongThread);
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+package gleam.core.ref;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import gleam.communication.Connection;
+import gleam.communication.impl.NettyConnection;
+import gleam.communication.inner.protocol.ResInnerReturnCode;
+import gleam.communication.protocol.codec.ProtocolEncoder;
+import gleam.core.ref.protocol.ReqEntityForward;
+import gleam.core.ref.protocol.ReqEntityForwardBatch;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * {@link EntityForwardBatcher}测试
+ *
+ * @author hdh
+ *
+ */
+public class EntityForwardBatcherTest {
+
+	private final EmbeddedChannel channel = new EmbeddedChannel(new ProtocolEncoder());
+
+	private Connection connection = new NettyConnection(channel);
+
+	private final EntityRefManager manager = new EntityRefManager() {
+		@Override
+		public Connection getServerConnection(int serverType, int serverId) {
+			return connection;
+		}
+	};
+
+	@AfterEach
+	public void tearDown() {
+		channel.finishAndReleaseAll();
+	}
+
+	private static ReqEntityForward buildForward(long entityId) {
+		ReqEntityForward forward = new ReqEntityForward();
+		forward.setDstServerType(3);
+		forward.setDstServerId(4);
+		forward.setDstEntityType(5);
+		forward.setDstEntityId(entityId);
+		forward.setForwardMsgId(ResInnerReturnCode.ID);
+		ResInnerReturnCode rc = new ResInnerReturnCode();
+		rc.setCode((int) entityId);
+		forward.setForwardMsg(rc);
+		return forward;
+	}
+
+	/**
+	 * 读取写出的帧
+	 * 
+	 * @return 协议,帧中的转发消息数(单条转发为1)
+	 */
+	private int[] readFrame() {
+		ByteBuf frame = channel.readOutbound();
+		if (frame == null) {
+			return null;
+		}
+		try {
+			frame.readInt();
+			int id = frame.readInt();
+			if (id == ReqEntityForwardBatch.ID) {
+				frame.readInt();
+				frame.readInt();
+				return new int[] { id, frame.readInt() };
+			}
+			return new int[] { id, 1 };
+		} finally {
+			frame.release();
+		}
+	}
+
+	@Test
+	public void flushAtBatchSize() {
+		EntityForwardBatcher batcher = new EntityForwardBatcher(manager, 3);
+		List<ReqEntityForward> forwards = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			ReqEntityForward forward = buildForward(i);
+			forwards.add(forward);
+			batcher.add(forward);
+		}
+		int[] frame = readFrame();
+		assertEquals(ReqEntityForwardBatch.ID, frame[0]);
+		assertEquals(3, frame[1]);
+		assertNull(readFrame());
+		// 写出后释放所有消息体
+		for (ReqEntityForward forward : forwards) {
+			assertEquals(0, forward.getForwardMsgBuf().refCnt());
+		}
+	}
+
+	@Test
+	public void flushAllSendsRemainder() {
+		EntityForwardBatcher batcher = new EntityForwardBatcher(manager, 3);
+		for (int i = 0; i < 5; i++) {
+			batcher.add(buildForward(i));
+		}
+		int[] frame = readFrame();
+		assertEquals(3, frame[1]);
+		// 不足1批的等待定时刷新
+		assertNull(readFrame());
+		batcher.flushAll();
+		frame = readFrame();
+		assertEquals(ReqEntityForwardBatch.ID, frame[0]);
+		assertEquals(2, frame[1]);
+		batcher.flushAll();
+		assertNull(readFrame());
+	}
+
+	@Test
+	public void singleSentDirectly() {
+		EntityForwardBatcher batcher = new EntityForwardBatcher(manager, 3);
+		ReqEntityForward forward = buildForward(1);
+		batcher.add(forward);
+		batcher.flushAll();
+		int[] frame = readFrame();
+		assertEquals(ReqEntityForward.ID, frame[0]);
+		assertEquals(0, forward.getForwardMsgBuf().refCnt());
+	}
+
+	@Test
+	public void dropWhenInactive() {
+		connection = null;
+		EntityForwardBatcher batcher = new EntityForwardBatcher(manager, 2);
+		ReqEntityForward forward1 = buildForward(1);
+		ReqEntityForward forward2 = buildForward(2);
+		batcher.add(forward1);
+		batcher.add(forward2);
+		assertEquals(0, forward1.getForwardMsgBuf().refCnt());
+		assertEquals(0, forward2.getForwardMsgBuf().refCnt());
+		assertNull(readFrame());
+	}
+
+	@Test
+	public void illegalBatchSize() {
+		assertThrows(IllegalArgumentException.class, () -> new EntityForwardBatcher(manager, 0));
+	}
+
+}
@@ -0,0 +1,148 @@
+package gleam.core.ref.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.communication.Protocol;
+import gleam.communication.inner.protocol.ResInnerReturnCode;
+import gleam.communication.protocol.ProtocolUtil;
+import gleam.communication.protocol.codec.ProtocolDecoder;
+import gleam.communication.protocol.factory.ProtocolFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * {@link ReqEntityForwardBatch}测试
+ *
+ * @author hdh
+ *
+ */
+public class ReqEntityForwardBatchTest {
+
+	static ReqEntityForward buildForward(long entityId, int code) {
+		ReqEntityForward forward = new ReqEntityForward();
+		forward.setSrcServerType(1);
+		forward.setSrcServerId(2);
+		forward.setDstServerType(3);
+		forward.setDstServerId(4);
+		forward.setDstEntityType(5);
+		forward.setDstEntityId(entityId);
+		forward.setForwardMsgSeq(0);
+		forward.setForwardMsgId(ResInnerReturnCode.ID);
+		ResInnerReturnCode rc = new ResInnerReturnCode();
+		rc.setCode(code);
+		forward.setForwardMsg(rc);
+		return forward;
+	}
+
+	private static ReqEntityForwardBatch buildBatch(List<ReqEntityForward> forwards) {
+		ReqEntityForwardBatch batch = new ReqEntityForwardBatch();
+		batch.setDstServerType(3);
+		batch.setDstServerId(4);
+		batch.composeForwards(forwards);
+		return batch;
+	}
+
+	@Test
+	public void composeTakesOwnership() {
+		List<ReqEntityForward> forwards = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			forwards.add(buildForward(100 + i, i));
+		}
+		ReqEntityForwardBatch batch = buildBatch(forwards);
+		assertEquals(3, batch.getForwardNum());
+		assertEquals(1, batch.refCnt());
+		// 消息体只由组合缓存中的切片引用
+		for (ReqEntityForward forward : forwards) {
+			assertEquals(1, forward.getForwardMsgBuf().refCnt());
+		}
+		batch.retain();
+		assertEquals(2, batch.refCnt());
+		assertFalse(batch.release());
+		assertEquals(1, batch.refCnt());
+		assertTrue(batch.release());
+		assertEquals(0, batch.refCnt());
+		for (ReqEntityForward forward : forwards) {
+			assertEquals(0, forward.getForwardMsgBuf().refCnt());
+		}
+	}
+
+	@Test
+	public void emptyBatchHasRealRefCnt() {
+		ReqEntityForwardBatch batch = buildBatch(new ArrayList<>());
+		assertEquals(0, batch.getForwardNum());
+		assertEquals(1, batch.refCnt());
+		assertTrue(batch.release());
+		assertEquals(0, batch.refCnt());
+	}
+
+	@Test
+	public void encodeSameAsEntries() {
+		ReqEntityForward expected = buildForward(100, 7);
+		ByteBuf expectedBuf = Unpooled.buffer();
+		expected.encode(expectedBuf);
+		expected.release();
+
+		List<ReqEntityForward> forwards = new ArrayList<>();
+		forwards.add(buildForward(100, 7));
+		ReqEntityForwardBatch batch = buildBatch(forwards);
+		ByteBuf buffer = Unpooled.buffer();
+		batch.encode(buffer);
+		batch.release();
+		assertEquals(3, buffer.readInt());
+		assertEquals(4, buffer.readInt());
+		assertEquals(1, buffer.readInt());
+		assertArrayEquals(ByteBufUtil.getBytes(expectedBuf), ByteBufUtil.getBytes(buffer));
+	}
+
+	@Test
+	public void unpackOnReceive() throws Exception {
+		ProtocolFactory.registerProtocol(ReqEntityForwardBatch.ID, ReqEntityForwardBatch.class);
+		ProtocolFactory.registerProtocol(ResInnerReturnCode.ID, ResInnerReturnCode.class);
+		List<ReqEntityForward> forwards = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			forwards.add(buildForward(100 + i, i));
+		}
+		ReqEntityForwardBatch batch = buildBatch(forwards);
+		ByteBuf frame = Unpooled.buffer();
+		frame.writeInt(0);
+		frame.writeInt(ReqEntityForwardBatch.ID);
+		batch.encode(frame);
+		batch.release();
+
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder());
+		assertTrue(channel.writeInbound(frame));
+		Object msg = channel.readInbound();
+		ReqEntityForwardBatch received = assertInstanceOf(ReqEntityForwardBatch.class, msg);
+		assertEquals(3, received.getDstServerType());
+		assertEquals(4, received.getDstServerId());
+		// 接收端不持有缓存
+		assertEquals(1, received.refCnt());
+		assertFalse(received.release());
+		List<ReqEntityForward> receivedForwards = received.getForwards();
+		assertEquals(5, receivedForwards.size());
+		for (int i = 0; i < 5; i++) {
+			ReqEntityForward forward = receivedForwards.get(i);
+			assertEquals(1, forward.getSrcServerType());
+			assertEquals(2, forward.getSrcServerId());
+			assertEquals(5, forward.getDstEntityType());
+			assertEquals(100 + i, forward.getDstEntityId());
+			assertEquals(ResInnerReturnCode.ID, forward.getForwardMsgId());
+			Protocol forwardMsg = ProtocolUtil.decodeMessage(forward.getForwardMsgId(), forward.getForwardMsgSeq(),
+					forward.getForwardMsgData());
+			assertEquals(i, assertInstanceOf(ResInnerReturnCode.class, forwardMsg).getCode());
+		}
+		assertFalse(channel.finish());
+	}
+
+}
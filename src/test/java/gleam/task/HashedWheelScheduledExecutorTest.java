@@ -0,0 +1,129 @@
+package gleam.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link HashedWheelScheduledExecutor}测试
+ * 
+ * @author hdh
+ *
+ */
+public class HashedWheelScheduledExecutorTest {
+
+	@Test
+	public void fireInOrderAcrossLevels() throws Exception {
+		// tick=1ms 第0层1圈256ms 大于256ms的任务先放在第1层 到期前下沉到第0层
+		HashedWheelScheduledExecutor timer = new HashedWheelScheduledExecutor("wheel-test", 1);
+		try {
+			long[] delays = { 700, 5, 300, 255, 257, 520 };
+			List<Long> fired = new CopyOnWriteArrayList<>();
+			List<Long> early = new CopyOnWriteArrayList<>();
+			CountDownLatch latch = new CountDownLatch(delays.length);
+			long beginTime = System.nanoTime();
+			for (long delay : delays) {
+				timer.schedule(() -> {
+					long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginTime);
+					// 不会早于指定时间执行
+					if (elapsed < delay) {
+						early.add(delay);
+					}
+					fired.add(delay);
+					latch.countDown();
+				}, delay, TimeUnit.MILLISECONDS);
+			}
+			assertTrue(latch.await(5, TimeUnit.SECONDS), "not all tasks fired:" + fired);
+			assertEquals(List.of(5L, 255L, 257L, 300L, 520L, 700L), fired);
+			assertTrue(early.isEmpty(), "fired early:" + early);
+		} finally {
+			timer.shutdown();
+		}
+	}
+
+	@Test
+	public void cancelInUpperLevel() throws Exception {
+		HashedWheelScheduledExecutor timer = new HashedWheelScheduledExecutor("wheel-test", 1);
+		try {
+			AtomicInteger count = new AtomicInteger();
+			ScheduledFuture<?> cancelled = timer.schedule(() -> count.addAndGet(100), 400, TimeUnit.MILLISECONDS);
+			CountDownLatch latch = new CountDownLatch(1);
+			timer.schedule(() -> {
+				count.incrementAndGet();
+				latch.countDown();
+			}, 600, TimeUnit.MILLISECONDS);
+			assertTrue(cancelled.cancel(false));
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertEquals(1, count.get());
+			assertTrue(cancelled.isCancelled());
+		} finally {
+			timer.shutdown();
+		}
+	}
+
+	@Test
+	public void fixedRate() throws Exception {
+		HashedWheelScheduledExecutor timer = new HashedWheelScheduledExecutor(1, "wheel-test", 1);
+		try {
+			CountDownLatch latch = new CountDownLatch(5);
+			long beginTime = System.nanoTime();
+			ScheduledFuture<?> future = timer.scheduleAtFixedRate(latch::countDown, 10, 100, TimeUnit.MILLISECONDS);
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginTime);
+			// 第5次在10+4*100ms之后 周期大于第0层的1圈时也能正确下沉
+			assertTrue(elapsed >= 410, "elapsed " + elapsed);
+			assertTrue(future.cancel(false));
+		} finally {
+			timer.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectAfterShutdown() throws Exception {
+		HashedWheelScheduledExecutor timer = new HashedWheelScheduledExecutor("wheel-test", 1);
+		timer.shutdown();
+		assertTrue(timer.awaitTermination(5, TimeUnit.SECONDS));
+		assertThrows(RejectedExecutionException.class, () -> timer.schedule(() -> {
+		}, 1, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void startTickThreadOnFirstTask() throws Exception {
+		String prefix = "wheel-lazy";
+		HashedWheelScheduledExecutor timer = new HashedWheelScheduledExecutor(prefix, 1);
+		try {
+			assertFalse(hasThread(prefix));
+			CountDownLatch latch = new CountDownLatch(1);
+			timer.schedule(latch::countDown, 1, TimeUnit.MILLISECONDS);
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertTrue(hasThread(prefix));
+		} finally {
+			timer.shutdown();
+		}
+		assertTrue(timer.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void shutdownBeforeStart() throws Exception {
+		HashedWheelScheduledExecutor timer = new HashedWheelScheduledExecutor("wheel-test", 1);
+		timer.shutdown();
+		assertTrue(timer.isTerminated());
+		assertTrue(timer.awaitTermination(1, TimeUnit.SECONDS));
+	}
+
+	private static boolean hasThread(String prefix) {
+		return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith(prefix));
+	}
+
+}
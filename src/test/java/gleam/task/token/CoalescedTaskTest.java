@@ -0,0 +1,119 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link CoalescedTask}合并任务测试
+ * 
+ * @author hdh
+ *
+ */
+public class CoalescedTaskTest {
+
+	private static class CountTask implements Task {
+
+		private final String name;
+
+		private final List<String> executed;
+
+		private final AtomicInteger discarded;
+
+		CountTask(String name, List<String> executed, AtomicInteger discarded) {
+			this.name = name;
+			this.executed = executed;
+			this.discarded = discarded;
+		}
+
+		@Override
+		public void execute() throws Exception {
+			executed.add(name);
+		}
+
+		@Override
+		public void discard() {
+			discarded.incrementAndGet();
+		}
+	}
+
+	@Test
+	public void keepOnlyLastAndDiscardReplaced() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("coalesce-test", 1);
+		try {
+			long token = 1;
+			List<String> executed = new CopyOnWriteArrayList<>();
+			AtomicInteger discarded = new AtomicInteger();
+			CountDownLatch block = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			executor.submit(token, (Task) () -> {
+				started.countDown();
+				block.await();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			assertTrue(executor.submitCoalesced(token, "power", new CountTask("power0", executed, discarded)));
+			assertFalse(executor.submitCoalesced(token, "power", new CountTask("power1", executed, discarded)));
+			assertFalse(executor.submitCoalesced(token, "power", new CountTask("power2", executed, discarded)));
+			assertTrue(executor.submitCoalesced(token, "sync", new CountTask("sync0", executed, discarded)));
+			// 只占用2个队列位置
+			assertEquals(2, executor.getTokenQueues().get(token).getTasks().size());
+			assertEquals(2, discarded.get());
+
+			CountDownLatch done = new CountDownLatch(1);
+			executor.submit(token, (Task) done::countDown);
+			block.countDown();
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(List.of("power2", "sync0"), executed);
+
+			// 执行后同键任务重新入队
+			CountDownLatch again = new CountDownLatch(1);
+			assertTrue(executor.submitCoalesced(token, "power", (Task) again::countDown));
+			assertTrue(again.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void discardWhenMailboxFull() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("coalesce-test", 1);
+		try {
+			long token = 2;
+			executor.registerQueue(token, 1, "actor");
+			List<String> executed = new CopyOnWriteArrayList<>();
+			AtomicInteger discarded = new AtomicInteger();
+			CountDownLatch block = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			executor.submit(token, (Task) () -> {
+				started.countDown();
+				block.await();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			executor.submit(token, (Task) () -> {
+			});
+			assertFalse(executor.submitCoalesced(token, "power", new CountTask("power0", executed, discarded)));
+			assertEquals(1, discarded.get());
+			block.countDown();
+
+			// 入队失败后该键没有残留 之后可以正常入队
+			CountDownLatch done = new CountDownLatch(1);
+			Thread.sleep(20);
+			assertTrue(executor.submitCoalesced(token, "power", (Task) done::countDown));
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertTrue(executed.isEmpty());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link DefaultTokenTaskQueueExecutor}队列注册和移除测试
+ * 
+ * @author hdh
+ *
+ */
+public class DefaultTokenTaskQueueExecutorTest {
+
+	@Test
+	public void removeInsideOwnTaskThenResubmit() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("remove-test", 4);
+		try {
+			for (int round = 0; round < 50; round++) {
+				long token = 1000 + round;
+				executor.registerQueue(token, 64, "actor");
+				AtomicInteger active = new AtomicInteger();
+				AtomicInteger maxActive = new AtomicInteger();
+				List<String> order = new CopyOnWriteArrayList<>();
+				CountDownLatch removed = new CountDownLatch(1);
+				CountDownLatch done = new CountDownLatch(3);
+				Task destroy = () -> {
+					enter(active, maxActive);
+					// actor在自身任务中销毁 之后任务还要继续执行一段时间
+					executor.removeQueue(token);
+					removed.countDown();
+					Thread.sleep(20);
+					order.add("destroy");
+					active.decrementAndGet();
+					done.countDown();
+				};
+				executor.submit(token, destroy);
+				assertTrue(removed.await(5, TimeUnit.SECONDS));
+				if (round % 2 == 0) {
+					// 销毁期间同id的新actor注册
+					executor.registerQueue(token, 64, "actor");
+				}
+				for (int i = 0; i < 2; i++) {
+					String name = "after" + i;
+					executor.submit(token, (Task) () -> {
+						enter(active, maxActive);
+						order.add(name);
+						active.decrementAndGet();
+						done.countDown();
+					});
+				}
+				assertTrue(done.await(5, TimeUnit.SECONDS));
+				assertEquals(1, maxActive.get(), "round " + round);
+				assertEquals(List.of("destroy", "after0", "after1"), order);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void removedAfterDrained() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("remove-test", 2);
+		try {
+			long token = 7;
+			executor.registerQueue(token, 64, "actor");
+			TokenTaskQueue queue = executor.getTokenQueues().get(token);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(1);
+			executor.submit(token, (Task) release::await);
+			executor.submit(token, (Task) done::countDown);
+			executor.removeQueue(token);
+			// 还有任务未执行完 保留在执行器中
+			assertSame(queue, executor.getTokenQueues().get(token));
+			release.countDown();
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			waitUntil(() -> executor.getTokenQueues().get(token) == null);
+			assertTrue(queue.isRetired());
+			// 通过旧引用提交的任务转移到新队列执行
+			CountDownLatch transferred = new CountDownLatch(1);
+			executor.submit(queue, (Task) transferred::countDown);
+			assertTrue(transferred.await(5, TimeUnit.SECONDS));
+			TokenTaskQueue current = executor.getTokenQueues().get(token);
+			assertNotSame(queue, current);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void registerCancelsPendingRemove() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("remove-test", 2);
+		try {
+			long token = 9;
+			executor.registerQueue(token, 64, "actor");
+			TokenTaskQueue queue = executor.getTokenQueues().get(token);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(1);
+			executor.submit(token, (Task) release::await);
+			executor.removeQueue(token);
+			executor.registerQueue(token, 64, "actor");
+			release.countDown();
+			executor.submit(token, (Task) done::countDown);
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			Thread.sleep(50);
+			assertSame(queue, executor.getTokenQueues().get(token));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void idleSweeperSkipsPinned() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("remove-test", 2);
+		try {
+			executor.registerQueue(1L, 64, "actor");
+			CountDownLatch done = new CountDownLatch(1);
+			executor.submit(2L, (Task) done::countDown);
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			Thread.sleep(20);
+			executor.sweepIdleQueues(0);
+			assertTrue(executor.getTokenQueues().get(1L) != null);
+			assertNull(executor.getTokenQueues().get(2L));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void enter(AtomicInteger active, AtomicInteger maxActive) {
+		int value = active.incrementAndGet();
+		maxActive.accumulateAndGet(value, Math::max);
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "timeout");
+			Thread.sleep(5);
+		}
+	}
+
+}
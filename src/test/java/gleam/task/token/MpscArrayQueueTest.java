@@ -0,0 +1,139 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link MpscArrayQueue}测试
+ * 
+ * @author hdh
+ *
+ */
+public class MpscArrayQueueTest {
+
+	@Test
+	public void capacityRoundUp() {
+		assertEquals(1, new MpscArrayQueue<Integer>(1).getCapacity());
+		assertEquals(16, new MpscArrayQueue<Integer>(16).getCapacity());
+		assertEquals(32, new MpscArrayQueue<Integer>(17).getCapacity());
+		assertThrows(IllegalArgumentException.class, () -> new MpscArrayQueue<Integer>(0));
+	}
+
+	@Test
+	public void offerWhenFull() {
+		MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(queue.offer(i));
+		}
+		assertFalse(queue.offer(4), "full queue accepted element");
+		assertEquals(4, queue.size());
+		// 取出1个后可再放入1个
+		assertEquals(0, (int) queue.poll());
+		assertTrue(queue.offer(4));
+		assertFalse(queue.offer(5));
+		for (int i = 1; i <= 4; i++) {
+			assertEquals(i, (int) queue.poll());
+		}
+		assertNull(queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void wraparound() {
+		MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(8);
+		int next = 0;
+		int expect = 0;
+		// 每轮放入5个取出5个 多次越过数组末端
+		for (int round = 0; round < 100; round++) {
+			for (int i = 0; i < 5; i++) {
+				assertTrue(queue.offer(next, next * 10L));
+				next++;
+			}
+			assertEquals(5, queue.size());
+			assertEquals(expect, (int) queue.peek());
+			for (int i = 0; i < 5; i++) {
+				assertEquals(expect, (int) queue.poll());
+				assertEquals(expect * 10L, queue.getLastPollStamp());
+				expect++;
+			}
+			assertTrue(queue.isEmpty());
+		}
+	}
+
+	@Test
+	public void iteratorSnapshot() {
+		MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+		for (int i = 0; i < 6; i++) {
+			queue.offer(i);
+			if (i % 2 == 0) {
+				queue.poll();
+			}
+		}
+		// 剩余3,4,5 跨过数组末端
+		Iterator<Integer> it = queue.iterator();
+		assertEquals(3, (int) it.next());
+		assertEquals(4, (int) it.next());
+		assertEquals(5, (int) it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void multiProducer() throws Exception {
+		int producers = 4;
+		int perProducer = 100_000;
+		MpscArrayQueue<Long> queue = new MpscArrayQueue<>(64);
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			threads[p] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					Long value = (producer << 32) | i;
+					while (!queue.offer(value)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads[p].start();
+		}
+		start.countDown();
+		int[] lastSeq = new int[producers];
+		Arrays.fill(lastSeq, -1);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		int received = 0;
+		while (received < producers * perProducer) {
+			Long value = queue.poll();
+			if (value == null) {
+				assertTrue(System.nanoTime() < deadline, "timeout.received " + received);
+				Thread.onSpinWait();
+				continue;
+			}
+			int producer = (int) (value >>> 32);
+			int seq = (int) (value & 0xFFFFFFFFL);
+			// 同一生产者的元素保持顺序
+			assertEquals(lastSeq[producer] + 1, seq);
+			lastSeq[producer] = seq;
+			received++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(queue.poll());
+	}
+
+}
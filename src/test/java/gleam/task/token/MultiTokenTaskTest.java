@@ -0,0 +1,106 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link MultiTokenTask}多标记任务测试
+ * 
+ * @author hdh
+ *
+ */
+public class MultiTokenTaskTest {
+
+	@Test
+	public void exclusiveAcrossTokens() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("multi-test", 4);
+		try {
+			int tokenNum = 3;
+			AtomicIntegerArray active = new AtomicIntegerArray(tokenNum + 1);
+			AtomicInteger overlap = new AtomicInteger();
+			int roundNum = 200;
+			for (int token = 1; token <= tokenNum; token++) {
+				executor.registerQueue(token, roundNum * 2, "multi");
+			}
+			CountDownLatch done = new CountDownLatch(roundNum * (tokenNum + 1));
+			for (int round = 0; round < roundNum; round++) {
+				// 乱序的标记 按从小到大占用
+				executor.submit(new long[] { 3, 1, 2 }, (Task) () -> {
+					for (int token = 1; token <= tokenNum; token++) {
+						if (active.incrementAndGet(token) != 1) {
+							overlap.incrementAndGet();
+						}
+					}
+					for (int token = 1; token <= tokenNum; token++) {
+						active.decrementAndGet(token);
+					}
+					done.countDown();
+				});
+				for (int token = 1; token <= tokenNum; token++) {
+					int index = token;
+					executor.submit(token, (Task) () -> {
+						if (active.incrementAndGet(index) != 1) {
+							overlap.incrementAndGet();
+						}
+						active.decrementAndGet(index);
+						done.countDown();
+					});
+				}
+			}
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			assertEquals(0, overlap.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void crossOrderNoDeadlock() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("multi-test", 4);
+		try {
+			int roundNum = 500;
+			executor.registerQueue(1L, roundNum * 2, "multi");
+			executor.registerQueue(2L, roundNum * 2, "multi");
+			CountDownLatch done = new CountDownLatch(roundNum * 2);
+			Thread other = new Thread(() -> {
+				for (int i = 0; i < roundNum; i++) {
+					executor.submit(new long[] { 2, 1 }, (Task) done::countDown);
+				}
+			});
+			other.start();
+			for (int i = 0; i < roundNum; i++) {
+				executor.submit(new long[] { 1, 2 }, (Task) done::countDown);
+			}
+			other.join();
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void resumeAfterTaskError() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("multi-test", 2);
+		try {
+			executor.submit(new long[] { 1, 2 }, (Task) () -> {
+				throw new IllegalStateException("test error");
+			});
+			CountDownLatch done = new CountDownLatch(2);
+			executor.submit(1L, (Task) done::countDown);
+			executor.submit(2L, (Task) done::countDown);
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link ShardedTaskQueueDispatcher}测试
+ * 
+ * @author hdh
+ *
+ */
+public class ShardedTaskQueueDispatcherTest {
+
+	@Test
+	public void callableKeepsFifoOnShardThread() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor(
+				new ShardedTaskQueueDispatcher("shard-test", 1));
+		try {
+			List<String> order = new CopyOnWriteArrayList<>();
+			CountDownLatch latch = new CountDownLatch(1);
+			executor.submit(1L, (Task) () -> {
+				// 同分片的另1个标记 先提交普通任务 再提交callable 必须按顺序执行
+				executor.submit(2L, (Task) () -> order.add("task"));
+				executor.submit(2L, () -> order.add("callable"));
+				executor.submit(2L, (Task) latch::countDown);
+			});
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertEquals(List.of("task", "callable"), order);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void blockingOnSameShardFailsFast() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor(
+				new ShardedTaskQueueDispatcher("shard-test", 1));
+		try {
+			AtomicReference<Throwable> error = new AtomicReference<>();
+			CountDownLatch latch = new CountDownLatch(1);
+			executor.submit(1L, (Task) () -> {
+				Future<Integer> future = executor.submit(2L, () -> 42);
+				try {
+					future.get();
+				} catch (Throwable e) {
+					error.set(e);
+				}
+				latch.countDown();
+			});
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertInstanceOf(IllegalStateException.class, error.get());
+			// 分片外的线程可以正常等待
+			assertEquals(7, (int) executor.submit(2L, () -> 7).get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shutdownStopsWorkers() throws Exception {
+		ShardedTaskQueueDispatcher dispatcher = new ShardedTaskQueueDispatcher("shard-stop", 2);
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor(dispatcher);
+		assertEquals(5, (int) executor.submit(3L, () -> 5).get(5, TimeUnit.SECONDS));
+		executor.shutdown();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("shard-stop"))) {
+			assertTrue(System.nanoTime() < deadline, "shard threads still alive");
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link TaskQueueMetrics}测试
+ * 
+ * @author hdh
+ *
+ */
+public class TaskQueueMetricsTest {
+
+	private static class SleepTask implements Task {
+
+		private final CountDownLatch latch;
+
+		SleepTask(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void execute() throws Exception {
+			Thread.sleep(5);
+			latch.countDown();
+		}
+	}
+
+	@Test
+	public void recordByTypeAndTaskClass() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("metrics-test", 1);
+		try {
+			executor.setMetricsEnabled(true);
+			executor.registerQueue(1L, 64, "player");
+			executor.registerQueue(2L, 64, "guild");
+			int playerNum = 5;
+			CountDownLatch latch = new CountDownLatch(playerNum + 1);
+			for (int i = 0; i < playerNum; i++) {
+				executor.submit(1L, new SleepTask(latch));
+			}
+			executor.submit(2L, new SleepTask(latch));
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			TaskQueueMetrics metrics = executor.getMetrics();
+			waitCount(metrics.getTaskStat(SleepTask.class), playerNum + 1);
+
+			TaskQueueStat player = metrics.getTypeStat("player");
+			assertEquals(playerNum, player.getExecuteTime().getCount());
+			assertEquals(playerNum, player.getQueueDepth().getCount());
+			assertEquals(playerNum, player.getWaitTime().getCount());
+			// 单线程串行执行 后面的任务要等前面的执行完
+			assertTrue(player.getWaitTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(5));
+			assertTrue(player.getExecuteTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(5));
+			assertEquals(1, metrics.getTypeStat("guild").getExecuteTime().getCount());
+			assertSame(metrics.getTaskStat(SleepTask.class), metrics.getTaskStat(SleepTask.class));
+
+			String print = metrics.printStatistics();
+			assertTrue(print.contains("player"));
+			assertTrue(print.contains(SleepTask.class.getName()));
+
+			metrics.reset();
+			assertEquals(0, player.getExecuteTime().getCount());
+			assertEquals(0, metrics.getTaskStat(SleepTask.class).getExecuteTime().getCount());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void disabledRecordsNothing() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("metrics-test", 1);
+		try {
+			executor.setMetricsEnabled(false);
+			executor.registerQueue(1L, 64, "player");
+			CountDownLatch latch = new CountDownLatch(3);
+			for (int i = 0; i < 3; i++) {
+				executor.submit(1L, new SleepTask(latch));
+			}
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			Thread.sleep(20);
+			TaskQueueStat player = executor.getMetrics().getTypeStat("player");
+			assertEquals(0, player.getExecuteTime().getCount());
+			assertEquals(0, player.getQueueDepth().getCount());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void waitCount(TaskQueueStat stat, long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (stat.getExecuteTime().getCount() < count) {
+			assertTrue(System.nanoTime() < deadline, "timeout");
+			Thread.sleep(5);
+		}
+	}
+
+}
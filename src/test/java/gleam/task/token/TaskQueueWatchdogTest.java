@@ -0,0 +1,84 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link TaskQueueWatchdog}测试
+ * 
+ * @author hdh
+ *
+ */
+public class TaskQueueWatchdogTest {
+
+	@Test
+	public void sampleStalledTaskAndKeepHistory() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("watchdog-test", 1);
+		try {
+			// 定时检查间隔很长 测试中手动检查
+			executor.startWatchdog(20, TimeUnit.MINUTES.toMillis(10));
+			TaskQueueWatchdog watchdog = executor.getWatchdog();
+			executor.registerQueue(7L, 16, "stall");
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(1);
+			executor.submit(7L, (Task) () -> {
+				started.countDown();
+				release.await();
+				done.countDown();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			Thread.sleep(50);
+			watchdog.check();
+			String inFlight = watchdog.printStatistics();
+			assertTrue(inFlight.contains("stall[7]"), inFlight);
+			assertTrue(inFlight.contains("running["), inFlight);
+			assertTrue(inFlight.contains("CountDownLatch.await"), inFlight);
+
+			release.countDown();
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			Thread.sleep(20);
+			watchdog.check();
+			String history = watchdog.printStatistics();
+			String historyPart = history.substring(history.indexOf("==== stall history ===="));
+			assertTrue(historyPart.contains("stall[7]"), history);
+			assertTrue(historyPart.contains("cost["), history);
+
+			watchdog.reset();
+			assertFalse(watchdog.printStatistics().contains("stall[7]"));
+		} finally {
+			executor.stopWatchdog();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void ignoreFastTasks() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("watchdog-test", 1);
+		try {
+			executor.startWatchdog(1000, TimeUnit.MINUTES.toMillis(10));
+			TaskQueueWatchdog watchdog = executor.getWatchdog();
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			executor.submit(8L, (Task) () -> {
+				started.countDown();
+				release.await();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			watchdog.check();
+			release.countDown();
+			assertFalse(watchdog.printStatistics().contains("[8]"));
+		} finally {
+			executor.stopWatchdog();
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link TokenTaskQueue}执行预算测试
+ * 
+ * @author hdh
+ *
+ */
+public class TokenTaskQueueBudgetTest {
+
+	private final static int TASK_NUM = 100;
+
+	@Test
+	public void yieldAfterMaxTasks() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("budget-test", 1);
+		executor.setMaxTasksPerRun(10);
+		executor.setMaxNanosPerRun(0);
+		try {
+			assertOtherTokenNotStarved(executor, () -> {
+			});
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void yieldAfterMaxNanos() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("budget-test", 1);
+		executor.setMaxTasksPerRun(0);
+		executor.setMaxNanosPerRun(TimeUnit.MILLISECONDS.toNanos(5));
+		try {
+			assertOtherTokenNotStarved(executor, () -> Thread.sleep(1));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void yieldDoesNotRecurse() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("budget-test", 1);
+		executor.setMaxTasksPerRun(1);
+		try {
+			List<Integer> depths = new CopyOnWriteArrayList<>();
+			CountDownLatch latch = new CountDownLatch(TASK_NUM);
+			for (int i = 0; i < TASK_NUM; i++) {
+				executor.submit(1L, TASK_NUM, (Task) () -> {
+					depths.add(Thread.currentThread().getStackTrace().length);
+					latch.countDown();
+				});
+			}
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			// 每执行1个任务就让出 重新调度不会加深调用栈
+			assertEquals(1, depths.stream().distinct().count(), "depths " + depths);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 先给标记1提交大量任务 再给标记2提交1个任务<br>
+	 * 标记1超出预算后让出线程 标记2不用等标记1全部执行完
+	 */
+	private void assertOtherTokenNotStarved(DefaultTokenTaskQueueExecutor executor, Task body) throws Exception {
+		List<Long> order = new CopyOnWriteArrayList<>();
+		CountDownLatch blocker = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(TASK_NUM + 1);
+		// 先占住唯一的线程 保证两个标记的任务都已入队
+		executor.submit(3L, (Task) blocker::await);
+		for (int i = 0; i < TASK_NUM; i++) {
+			executor.submit(1L, TASK_NUM, (Task) () -> {
+				body.execute();
+				order.add(1L);
+				latch.countDown();
+			});
+		}
+		executor.submit(2L, (Task) () -> {
+			order.add(2L);
+			latch.countDown();
+		});
+		blocker.countDown();
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		int index = order.indexOf(2L);
+		assertTrue(index < TASK_NUM / 2, "token 2 ran at " + index);
+	}
+
+}
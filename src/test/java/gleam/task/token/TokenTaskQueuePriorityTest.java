@@ -0,0 +1,91 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+import gleam.task.TaskPriority;
+
+/**
+ * {@link TokenTaskQueue}系统/普通任务通道测试
+ * 
+ * @author hdh
+ *
+ */
+public class TokenTaskQueuePriorityTest {
+
+	@Test
+	public void systemTaskRunsBeforeQueuedNormalTasks() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("priority-test", 1);
+		try {
+			long token = 1;
+			List<String> order = new CopyOnWriteArrayList<>();
+			CountDownLatch block = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(4);
+			executor.submit(token, (Task) () -> {
+				started.countDown();
+				block.await();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			for (int i = 0; i < 2; i++) {
+				String name = "normal" + i;
+				executor.submit(token, (Task) () -> {
+					order.add(name);
+					done.countDown();
+				});
+			}
+			executor.submitSystem(token, () -> {
+				order.add("system0");
+				done.countDown();
+			});
+			executor.submitSystem(token, () -> {
+				order.add("system1");
+				done.countDown();
+			});
+			block.countDown();
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(List.of("system0", "system1", "normal0", "normal1"), order);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void systemLaneIgnoresMailboxCapacity() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor("priority-test", 1);
+		try {
+			long token = 2;
+			executor.registerQueue(token, 2, "actor");
+			TokenTaskQueue queue = executor.getTokenQueues().get(token);
+			CountDownLatch block = new CountDownLatch(1);
+			CountDownLatch started = new CountDownLatch(1);
+			executor.submit(token, (Task) () -> {
+				started.countDown();
+				block.await();
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			Task empty = () -> {
+			};
+			assertTrue(queue.addTask(empty, TaskPriority.NORMAL));
+			assertTrue(queue.addTask(empty, TaskPriority.NORMAL));
+			// 邮箱已满 普通任务被抛弃 系统任务仍可加入
+			assertFalse(queue.addTask(empty, TaskPriority.NORMAL));
+			CountDownLatch system = new CountDownLatch(1);
+			executor.submitSystem(token, system::countDown);
+			block.countDown();
+			assertTrue(system.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
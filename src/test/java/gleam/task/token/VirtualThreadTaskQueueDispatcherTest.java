@@ -0,0 +1,81 @@
+package gleam.task.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gleam.task.Task;
+
+/**
+ * {@link VirtualThreadTaskQueueDispatcher}测试
+ * 
+ * @author hdh
+ *
+ */
+public class VirtualThreadTaskQueueDispatcherTest {
+
+	@Test
+	public void blockingTasksDoNotHoldPoolThreads() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor(
+				new VirtualThreadTaskQueueDispatcher("vt-test"));
+		try {
+			int tokenNum = 500;
+			CountDownLatch latch = new CountDownLatch(tokenNum);
+			AtomicInteger virtualCount = new AtomicInteger();
+			long beginTime = System.nanoTime();
+			for (long token = 1; token <= tokenNum; token++) {
+				executor.submit(token, (Task) () -> {
+					if (Thread.currentThread().isVirtual()) {
+						virtualCount.incrementAndGet();
+					}
+					Thread.sleep(200);
+					latch.countDown();
+				});
+			}
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			long costMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginTime);
+			assertEquals(tokenNum, virtualCount.get());
+			// 串行需要100s 固定大小线程池也远超该时间
+			assertTrue(costMillis < 5000, "cost " + costMillis);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void keepsOrderPerToken() throws Exception {
+		DefaultTokenTaskQueueExecutor executor = new DefaultTokenTaskQueueExecutor(
+				new VirtualThreadTaskQueueDispatcher("vt-test"));
+		try {
+			int taskNum = 2000;
+			List<Integer> order = new ArrayList<>();
+			CountDownLatch latch = new CountDownLatch(1);
+			for (int i = 0; i < taskNum; i++) {
+				int value = i;
+				// 同1标记的任务不会并发执行 不需要同步
+				executor.submit(1L, taskNum + 1, (Task) () -> {
+					order.add(value);
+					if (value % 100 == 0) {
+						Thread.sleep(1);
+					}
+				});
+			}
+			executor.submit(1L, (Task) latch::countDown);
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			assertEquals(taskNum, order.size());
+			for (int i = 0; i < taskNum; i++) {
+				assertEquals(i, (int) order.get(i));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package gleam.util.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ConcurrentLongObjectMap}测试
+ * 
+ * @author hdh
+ *
+ */
+public class ConcurrentLongObjectMapTest {
+
+	@Test
+	public void putGetRemove() {
+		ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<>();
+		assertNull(map.put(1, "a"));
+		assertEquals("a", map.put(1, "b"));
+		assertEquals("b", map.putIfAbsent(1, "c"));
+		assertEquals("b", map.get(1));
+		assertFalse(map.remove(1, "a"));
+		assertTrue(map.remove(1, "b"));
+		assertNull(map.get(1));
+		assertTrue(map.isEmpty());
+		assertThrows(NullPointerException.class, () -> map.put(2, null));
+	}
+
+	@Test
+	public void tombstoneReuse() {
+		// 1个分段 便于构造同1探测链
+		ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>(1);
+		for (long i = 0; i < 10; i++) {
+			map.put(i, i);
+		}
+		// 删除中间的元素留下删除标记 其后的元素仍可找到
+		for (long i = 0; i < 10; i += 2) {
+			assertEquals(i, (long) map.remove(i));
+		}
+		for (long i = 1; i < 10; i += 2) {
+			assertEquals(i, (long) map.get(i));
+		}
+		for (long i = 0; i < 10; i += 2) {
+			assertNull(map.get(i));
+		}
+		// 重新插入时复用删除标记 不产生重复key
+		for (long i = 0; i < 10; i++) {
+			map.put(i, i + 100);
+		}
+		assertEquals(10, map.size());
+		int[] count = new int[1];
+		map.forEach((k, v) -> {
+			assertEquals(k + 100, (long) v);
+			count[0]++;
+		});
+		assertEquals(10, count[0]);
+	}
+
+	@Test
+	public void rehashWithTombstones() {
+		ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>(1);
+		// 反复插入删除不同的key 删除标记累积后触发清理重建
+		for (long round = 0; round < 1000; round++) {
+			long key = round * 7919;
+			map.put(key, round);
+			assertEquals(round, (long) map.get(key));
+			if (round % 3 != 0) {
+				map.remove(key);
+			}
+		}
+		for (long round = 0; round < 1000; round++) {
+			long key = round * 7919;
+			if (round % 3 == 0) {
+				assertEquals(round, (long) map.get(key));
+			} else {
+				assertNull(map.get(key));
+			}
+		}
+		assertEquals(334, map.size());
+	}
+
+	@Test
+	public void computeIfAbsent() {
+		ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<>();
+		String value = map.computeIfAbsent(5, k -> "v" + k);
+		assertEquals("v5", value);
+		assertSame(value, map.computeIfAbsent(5, k -> "other"));
+		assertNull(map.computeIfAbsent(6, k -> null));
+		assertFalse(map.containsKey(6));
+	}
+
+	@Test
+	public void randomAgainstHashMap() {
+		ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>(4);
+		Map<Long, Long> expect = new HashMap<>();
+		Random random = new Random(1);
+		for (int i = 0; i < 200_000; i++) {
+			long key = random.nextInt(2000) - 1000;
+			int op = random.nextInt(4);
+			if (op == 0) {
+				assertEquals(expect.remove(key), map.remove(key));
+			} else if (op == 1) {
+				assertEquals(expect.put(key, (long) i), map.put(key, (long) i));
+			} else {
+				assertEquals(expect.get(key), map.get(key));
+			}
+		}
+		assertEquals(expect.size(), map.size());
+		for (Map.Entry<Long, Long> entry : expect.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+	}
+
+	@Test
+	public void concurrentReadDuringRehash() throws Exception {
+		ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>(1);
+		// 常驻的key 读线程应总能读到
+		for (long i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicReference<String> error = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while (!stop.get()) {
+				for (long i = 0; i < 100; i++) {
+					Long value = map.get(i);
+					if (value == null || value != i) {
+						error.set("key " + i + " read " + value);
+						return;
+					}
+				}
+			}
+		});
+		reader.start();
+		for (long i = 100; i < 200_000; i++) {
+			map.put(i, i);
+			map.remove(i);
+		}
+		stop.set(true);
+		reader.join();
+		assertNull(error.get(), error.get());
+		assertEquals(100, map.size());
+	}
+
+}
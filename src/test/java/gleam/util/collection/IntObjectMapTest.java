@@ -0,0 +1,107 @@
+package gleam.util.collection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link IntObjectMap}测试
+ * 
+ * @author hdh
+ *
+ */
+public class IntObjectMapTest {
+
+	@Test
+	public void denseWhenCompact() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		for (int i = 0; i < 10; i++) {
+			map.put(i, "v" + i);
+		}
+		assertTrue(map.isDense());
+		assertEquals("v5", map.get(5));
+		assertNull(map.get(10));
+		assertNull(map.get(-1));
+	}
+
+	@Test
+	public void hashWhenSparse() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		// 1个较大的key 使用数组会浪费大量空间
+		map.put(4000, "a");
+		assertFalse(map.isDense());
+		assertEquals("a", map.get(4000));
+		map.put(-5, "b");
+		assertFalse(map.isDense());
+		assertEquals("b", map.get(-5));
+		assertNull(map.get(5));
+	}
+
+	@Test
+	public void switchBetweenDenseAndHash() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		map.put(1, "a");
+		map.put(2, "b");
+		assertTrue(map.isDense());
+		map.put(100, "c");
+		// 最大key不小于元素个数*8
+		assertFalse(map.isDense());
+		assertEquals("c", map.get(100));
+		map.remove(100);
+		assertTrue(map.isDense());
+		assertEquals("a", map.get(1));
+		assertNull(map.get(100));
+	}
+
+	@Test
+	public void putAllRebuildOnce() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		map.put(1, "old");
+		Map<Integer, String> values = new LinkedHashMap<>();
+		values.put(1, "new");
+		values.put(2, "b");
+		values.put(3, "c");
+		map.putAll(values);
+		assertEquals(3, map.size());
+		assertEquals("new", map.get(1));
+		int[] keys = map.keys();
+		Arrays.sort(keys);
+		assertArrayEquals(new int[] { 1, 2, 3 }, keys);
+		Map<Integer, String> nullValue = new HashMap<>();
+		nullValue.put(4, null);
+		assertThrows(NullPointerException.class, () -> map.putAll(nullValue));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	public void sameAsHashMap() {
+		IntObjectMap<Integer> map = new IntObjectMap<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(1);
+		for (int i = 0; i < 2000; i++) {
+			int key = random.nextInt(200) - (i % 3 == 0 ? 0 : 100) * (i % 7);
+			if (random.nextInt(4) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+		assertEquals(expected.size(), map.values().size());
+	}
+
+}
@@ -0,0 +1,136 @@
+package gleam.util.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link LongIntMap}测试
+ * 
+ * @author hdh
+ *
+ */
+public class LongIntMapTest {
+
+	private final static int MISSING = -1;
+	/**
+	 * 默认容量16时的数组长度
+	 */
+	private final static int TABLE_LENGTH = 32;
+
+	/**
+	 * 与LongIntMap相同的哈希 找出落在同一槽位的key
+	 */
+	private static List<Long> keysAtSlot(int slot, int count) {
+		List<Long> list = new ArrayList<>(count);
+		for (long key = 1; list.size() < count; key++) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			if ((((int) (h ^ (h >>> 32))) & (TABLE_LENGTH - 1)) == slot) {
+				list.add(key);
+			}
+		}
+		return list;
+	}
+
+	@Test
+	public void putGetRemove() {
+		LongIntMap map = new LongIntMap(MISSING);
+		assertEquals(MISSING, map.put(1L, 10));
+		assertEquals(10, map.put(1L, 11));
+		assertEquals(11, map.get(1L));
+		assertEquals(MISSING, map.get(2L));
+		assertEquals(1, map.size());
+		assertEquals(11, map.remove(1L));
+		assertEquals(MISSING, map.remove(1L));
+		assertFalse(map.containsKey(1L));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void removeInCollisionChain() {
+		LongIntMap map = new LongIntMap(MISSING);
+		List<Long> keys = keysAtSlot(5, 6);
+		for (int i = 0; i < keys.size(); i++) {
+			map.put(keys.get(i), i);
+		}
+		// 删除探测链中间的元素 后面的元素仍能找到
+		assertEquals(2, map.remove(keys.get(2)));
+		assertEquals(0, map.remove(keys.get(0)));
+		assertEquals(4, map.size());
+		for (int i = 0; i < keys.size(); i++) {
+			int expected = i == 0 || i == 2 ? MISSING : i;
+			assertEquals(expected, map.get(keys.get(i)));
+		}
+		// 删除后空出的位置可再次写入
+		map.put(keys.get(2), 22);
+		assertEquals(22, map.get(keys.get(2)));
+		assertEquals(5, map.size());
+	}
+
+	@Test
+	public void removeWithWraparound() {
+		LongIntMap map = new LongIntMap(MISSING);
+		// 落在最后1个槽位 探测链绕回数组开头
+		List<Long> tailKeys = keysAtSlot(TABLE_LENGTH - 1, 3);
+		List<Long> headKeys = keysAtSlot(0, 2);
+		for (long key : tailKeys) {
+			map.put(key, (int) key);
+		}
+		for (long key : headKeys) {
+			map.put(key, (int) key);
+		}
+		assertEquals((int) (long) tailKeys.get(0), map.remove(tailKeys.get(0)));
+		for (int i = 1; i < tailKeys.size(); i++) {
+			assertEquals((int) (long) tailKeys.get(i), map.get(tailKeys.get(i)));
+		}
+		for (long key : headKeys) {
+			assertEquals((int) key, map.get(key));
+		}
+		assertEquals(4, map.size());
+	}
+
+	@Test
+	public void randomAgainstHashMap() {
+		LongIntMap map = new LongIntMap(MISSING);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 200000; i++) {
+			long key = random.nextInt(2000);
+			if (random.nextInt(3) == 0) {
+				Integer old = expected.remove(key);
+				assertEquals(old == null ? MISSING : (int) old, map.remove(key));
+			} else {
+				int value = random.nextInt(1000000);
+				Integer old = expected.put(key, value);
+				assertEquals(old == null ? MISSING : (int) old, map.put(key, value));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (long key = 0; key < 2000; key++) {
+			Integer value = expected.get(key);
+			assertEquals(value == null ? MISSING : (int) value, map.get(key));
+		}
+	}
+
+	@Test
+	public void clear() {
+		LongIntMap map = new LongIntMap(MISSING);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertEquals(MISSING, map.get(50L));
+		map.put(50L, 5);
+		assertEquals(5, map.get(50L));
+	}
+
+}
@@ -0,0 +1,117 @@
+package gleam.util.metric;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link Histogram}测试
+ *
+ * @author hdh
+ *
+ */
+public class HistogramTest {
+
+	@Test
+	public void smallValuesExact() {
+		Histogram histogram = new Histogram();
+		for (int i = 0; i < 16; i++) {
+			histogram.record(i);
+		}
+		assertEquals(16, histogram.getCount());
+		assertEquals(120, histogram.getSum());
+		assertEquals(15, histogram.getMax());
+		// 小于16的值每个值1个桶
+		assertEquals(7, histogram.getPercentile(50));
+		assertEquals(0, histogram.getPercentile(0));
+		assertEquals(15, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void bucketBoundary() {
+		Histogram histogram = new Histogram();
+		histogram.record(16);
+		histogram.record(1000);
+		// 16单独1个桶 上限为16
+		assertEquals(16, histogram.getPercentile(50));
+		// 1000所在桶[992,1023] 上限不超过最大值
+		assertEquals(1000, histogram.getPercentile(100));
+		histogram.record(1023);
+		assertEquals(1023, histogram.getPercentile(100));
+		histogram.record(1024);
+		assertEquals(1024, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void percentileError() {
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 100000; i++) {
+			histogram.record(i * 10L);
+		}
+		long p50 = histogram.getPercentile(50);
+		long p99 = histogram.getPercentile(99);
+		assertTrue(Math.abs(p50 - 500000) <= 500000 * 0.07, "p50=" + p50);
+		assertTrue(Math.abs(p99 - 990000) <= 990000 * 0.07, "p99=" + p99);
+		assertTrue(p50 >= 500000, "p50=" + p50);
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(100000, histogram.getCount());
+		assertEquals(10L * 100000 * 100001 / 2, histogram.getSum());
+	}
+
+	@Test
+	public void largeValue() {
+		Histogram histogram = new Histogram();
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+		assertEquals(Long.MAX_VALUE, histogram.getMax());
+	}
+
+	@Test
+	public void negativeAsZero() {
+		Histogram histogram = new Histogram();
+		histogram.record(-5);
+		assertEquals(1, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void reset() {
+		Histogram histogram = new Histogram();
+		histogram.record(100);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getPercentile(99));
+	}
+
+	@Test
+	public void concurrentRecord() throws InterruptedException {
+		Histogram histogram = new Histogram();
+		int threadNum = 4;
+		int times = 10000;
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < threadNum; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 1; j <= times; j++) {
+					histogram.record(j);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(threadNum * times, histogram.getCount());
+		assertEquals((long) threadNum * times * (times + 1) / 2, histogram.getSum());
+		assertEquals(times, histogram.getMax());
+	}
+
+}
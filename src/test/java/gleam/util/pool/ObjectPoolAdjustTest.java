@@ -0,0 +1,118 @@
+package gleam.util.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ObjectPool}仓库上限调整和泄漏采样测试
+ * 
+ * @author hdh
+ *
+ */
+public class ObjectPoolAdjustTest {
+
+	private static class Item implements Recoverable {
+
+		@Override
+		public void recycle() {
+		}
+	}
+
+	private static class ItemPool extends ObjectPool<Item> {
+
+		ItemPool(int maxSize) {
+			super(maxSize);
+		}
+
+		@Override
+		protected Item newObject() {
+			return new Item();
+		}
+	}
+
+	@Test
+	public void growAfterOverflow() throws Exception {
+		ItemPool pool = new ItemPool(ObjectPool.MAGAZINE_SIZE);
+		assertEquals(ObjectPool.MAGAZINE_SIZE, pool.getMaxDepotObjectSize());
+		recycleInThread(pool, ObjectPool.MAGAZINE_SIZE * 4);
+		assertTrue(pool.getDropCount() > 0);
+		pool.adjust();
+		assertEquals(ObjectPool.MAGAZINE_SIZE * 2, pool.getMaxDepotObjectSize());
+		// 没有新的丢弃 不再扩大
+		pool.adjust();
+		assertTrue(pool.getMaxDepotObjectSize() <= ObjectPool.MAGAZINE_SIZE * 2);
+	}
+
+	@Test
+	public void growUpToLimit() throws Exception {
+		ItemPool pool = new ItemPool(ObjectPool.MAGAZINE_SIZE);
+		for (int i = 0; i < 10; i++) {
+			// 每轮都超出扩大后的上限
+			recycleInThread(pool, ObjectPool.MAGAZINE_SIZE * ObjectPool.MAX_DEPOT_FACTOR * 2);
+			pool.adjust();
+		}
+		assertEquals(ObjectPool.MAGAZINE_SIZE * ObjectPool.MAX_DEPOT_FACTOR, pool.getMaxDepotObjectSize());
+	}
+
+	@Test
+	public void releaseIdleAndShrink() throws Exception {
+		ItemPool pool = new ItemPool(ObjectPool.MAGAZINE_SIZE * 4);
+		// 2个弹匣留在线程中 3个满弹匣放入仓库
+		recycleInThread(pool, ObjectPool.MAGAZINE_SIZE * 5);
+		assertEquals(ObjectPool.MAGAZINE_SIZE * 3, pool.getDepotObjectSize());
+		assertEquals(0, pool.getDropCount());
+		pool.adjust();
+		assertEquals(ObjectPool.MAGAZINE_SIZE * 3, pool.getDepotObjectSize());
+		// 整个周期都没被取用 释放
+		pool.adjust();
+		assertEquals(0, pool.getDepotObjectSize());
+		for (int i = 0; i < 5; i++) {
+			pool.adjust();
+		}
+		assertEquals(ObjectPool.MAGAZINE_SIZE, pool.getMaxDepotObjectSize());
+	}
+
+	@Test
+	public void sampleLeaks() throws Exception {
+		ItemPool pool = new ItemPool(1000);
+		ObjectPool.setLeakSampleInterval(1);
+		try {
+			int leakNum = 10;
+			for (int i = 0; i < leakNum; i++) {
+				pool.obtain();
+			}
+			// 回收的对象不算泄漏
+			pool.recycle(pool.obtain());
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			String leaks = "";
+			while (pool.getLeakCount() < leakNum && System.nanoTime() < deadline) {
+				System.gc();
+				Thread.sleep(10);
+				leaks = pool.printLeaks();
+			}
+			assertEquals(leakNum, pool.getLeakCount());
+			assertTrue(leaks.contains(ObjectPoolAdjustTest.class.getName()), leaks);
+		} finally {
+			ObjectPool.setLeakSampleInterval(0);
+		}
+	}
+
+	private static void recycleInThread(ItemPool pool, int num) throws InterruptedException {
+		Thread thread = new Thread(() -> {
+			List<Item> items = new ArrayList<>();
+			for (int i = 0; i < num; i++) {
+				items.add(pool.obtain());
+			}
+			items.forEach(pool::recycle);
+		});
+		thread.start();
+		thread.join();
+	}
+
+}
@@ -0,0 +1,125 @@
+package gleam.util.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ObjectPool}弹匣测试
+ * 
+ * @author hdh
+ *
+ */
+public class ObjectPoolTest {
+
+	private static class Item implements Recoverable {
+
+		private boolean recycled;
+
+		@Override
+		public void recycle() {
+			recycled = true;
+		}
+	}
+
+	private static class ItemPool extends ObjectPool<Item> {
+
+		ItemPool(int maxSize) {
+			super(maxSize);
+		}
+
+		@Override
+		protected Item newObject() {
+			return new Item();
+		}
+	}
+
+	@Test
+	public void reuseInSameThread() {
+		ItemPool pool = new ItemPool(1000);
+		Item item = pool.obtain();
+		pool.recycle(item);
+		assertTrue(item.recycled);
+		assertSame(item, pool.obtain());
+		assertEquals(1, pool.getNewCount());
+		assertEquals(2, pool.getObtainCount());
+		assertEquals(1, pool.getRecycleCount());
+	}
+
+	@Test
+	public void crossThreadRecycleThroughDepot() throws Exception {
+		ItemPool pool = new ItemPool(1000);
+		int num = ObjectPool.MAGAZINE_SIZE * 3;
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < num; i++) {
+			items.add(pool.obtain());
+		}
+		// 其他线程回收 2个弹匣满后 1个满弹匣放入仓库
+		runInThread(() -> items.forEach(pool::recycle));
+		assertEquals(ObjectPool.MAGAZINE_SIZE, pool.getDepotObjectSize());
+		long newCount = pool.getNewCount();
+		// 第3个线程从仓库取整个弹匣 不再新建
+		runInThread(() -> {
+			for (int i = 0; i < ObjectPool.MAGAZINE_SIZE; i++) {
+				pool.obtain();
+			}
+		});
+		assertEquals(newCount, pool.getNewCount());
+		assertEquals(0, pool.getDepotObjectSize());
+	}
+
+	@Test
+	public void dropWhenDepotFull() throws Exception {
+		// 仓库只能放1个弹匣
+		ItemPool pool = new ItemPool(ObjectPool.MAGAZINE_SIZE);
+		int num = ObjectPool.MAGAZINE_SIZE * 4;
+		runInThread(() -> {
+			List<Item> items = new ArrayList<>();
+			for (int i = 0; i < num; i++) {
+				items.add(pool.obtain());
+			}
+			items.forEach(pool::recycle);
+		});
+		assertEquals(ObjectPool.MAGAZINE_SIZE, pool.getDepotObjectSize());
+		assertEquals(ObjectPool.MAGAZINE_SIZE * 3, pool.getRecycleCount());
+		assertEquals(ObjectPool.MAGAZINE_SIZE, pool.getDropCount());
+	}
+
+	@Test
+	public void bypassOnVirtualThread() throws Exception {
+		ItemPool pool = new ItemPool(1000);
+		AtomicReference<Item> first = new AtomicReference<>();
+		AtomicReference<Item> second = new AtomicReference<>();
+		Thread.ofVirtual().start(() -> {
+			first.set(pool.obtain());
+			pool.recycle(first.get());
+			second.set(pool.obtain());
+		}).join();
+		assertNotSame(first.get(), second.get());
+		assertEquals(2, pool.getNewCount());
+		assertEquals(1, pool.getBypassCount());
+		assertEquals(0, pool.getRecycleCount());
+		assertEquals(0, pool.getDropCount());
+	}
+
+	@Test
+	public void printStatistics() {
+		ItemPool pool = new ItemPool(1000);
+		pool.recycle(pool.obtain());
+		assertTrue(ObjectPool.printStatistics().contains(ItemPool.class.getName()));
+	}
+
+	private static void runInThread(Runnable runnable) throws InterruptedException {
+		Thread thread = new Thread(runnable);
+		thread.start();
+		thread.join();
+	}
+
+}